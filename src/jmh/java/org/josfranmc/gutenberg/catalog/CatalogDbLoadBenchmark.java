@@ -0,0 +1,142 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.josfranmc.gutenberg.db.DbConnection;
+import org.josfranmc.gutenberg.db.DbConnectionBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed by <code>CatalogDb</code> to load a number of synthetic books in an in-memory HSQLDB database, for 
+ * different ways of writing them.<p>
+ * Every operation is a whole load: the same steps as the {@link CatalogDb#load(boolean)} method, with <code>Book</code> objects built 
+ * beforehand so RDF files are not read. Each iteration uses a new database, created through <code>DbConnectionBuilder</code>, in which a 
+ * percentage of the books may have been loaded before, so the existence checks find both new and existing books.<br>
+ * The benchmarks are run with the <i>jmh</i> profile, which saves the results as JSON in <i>target/jmh-result.json</i>:
+ * <pre>mvn -P jmh test-compile exec:exec -Djmh.benchmarks=CatalogDbLoadBenchmark</pre>
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogDb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CatalogDbLoadBenchmark {
+
+	@Param({"1000", "10000"})
+	private int books;
+	
+	@Param({"1", "100", "1000"})
+	private int batchSize;
+	
+	@Param({"0", "1000"})
+	private int commitInterval;
+	
+	@Param({"QUERY", "PRELOAD"})
+	private CatalogDb.ExistenceCheck existenceCheck;
+	
+	/**
+	 * Percentage of the books loaded in the database before the measured load
+	 */
+	@Param({"0", "50"})
+	private int existing;
+	
+	private List<Book> catalog;
+	
+	private DbConnection dbConnection;
+	
+	private int database;
+	
+	
+	@Setup(Level.Trial)
+	public void createBooks() {
+		this.catalog = new ArrayList<>(books);
+		for (int i = 0; i < books; i++) {
+			Book book = new Book();
+			book.setId(String.valueOf(i + 1));
+			book.setTitle("Synthetic book " + (i + 1));
+			book.setAuthor("Author " + (i % 500));
+			book.setLanguage((i % 10 == 0) ? "es" : "en");
+			this.catalog.add(book);
+		}
+	}
+	
+	@Setup(Level.Iteration)
+	public void createDatabase() {
+		Properties properties = new Properties();
+		properties.put("DbType", "HSQL");
+		properties.put("DatabaseDriver", "org.hsqldb.jdbcDriver");
+		properties.put("HSQL.url", "jdbc:hsqldb:mem:loadbenchmark" + (database++));
+		properties.put("HSQL.user", "SA");
+		properties.put("HSQL.password", "");
+		this.dbConnection = new DbConnectionBuilder().setSettingProperties(properties).build();
+		
+		CatalogDb catalogDb = new CatalogDb(dbConnection);
+		catalogDb.setBatchSize(1000);
+		catalogDb.beginLoad(true);
+		for (Book book : catalog.subList(0, books * existing / 100)) {
+			catalogDb.loadBook(book);
+		}
+		catalogDb.endLoad();
+	}
+	
+	@TearDown(Level.Iteration)
+	public void dropDatabase() throws SQLException {
+		try (Connection connection = dbConnection.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("SHUTDOWN");
+		}
+	}
+	
+	@Benchmark
+	public CatalogDb load() {
+		CatalogDb catalogDb = new CatalogDb(dbConnection);
+		catalogDb.setBatchSize(batchSize);
+		catalogDb.setCommitInterval(commitInterval);
+		catalogDb.setExistenceCheck(existenceCheck);
+		catalogDb.beginLoad(false);
+		for (Book book : catalog) {
+			catalogDb.loadBook(book);
+		}
+		catalogDb.endLoad();
+		return catalogDb;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of extracting the data of a book from a RDF file with each <code>RdfExtractor</code> implementation.<p>
+ * Every operation reads one RDF file, which is held in memory, so disk access is not measured. The files are taken in turn from one of 
+ * these corpora:
+ * <ul>
+ * <li><i>samples</i>: the RDF files used by the tests, in the folder given by the <i>rdf.samples</i> system property 
+ * (<i>src/test/resources/rdftest</i> by default)</li>
+ * <li><i>synthetic</i>: {@value #SYNTHETIC_SIZE} files built from the samples by <code>RdfCorpusGenerator</code>, with their own identifiers, 
+ * titles, authors and languages</li>
+ * </ul>
+ * The <i>extract</i> benchmark calls the extractor directly, and the <i>rdfFile</i> benchmark creates a <code>RdfFile</code> object, as 
+ * <code>CatalogRdf</code> does, so it also includes the cleaning of the title and the fallback to Jena.<br>
+ * The benchmarks are run with the <i>jmh</i> profile, which adds the gc profiler to report the allocation rate:
+ * <pre>mvn -P jmh test-compile exec:exec -Djmh.benchmarks=RdfExtractorBenchmark</pre>
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see RdfExtractor
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RdfExtractorBenchmark {
+
+	/**
+	 * Number of files of the synthetic corpus
+	 */
+	static final int SYNTHETIC_SIZE = 1000;
+	
+	@Param({"stax", "jena"})
+	private String extractorName;
+	
+	@Param({"samples", "synthetic"})
+	private String corpus;
+	
+	private RdfExtractor extractor;
+	
+	private List<byte[]> contents;
+	
+	private List<String> ids;
+	
+	private int next;
+	
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.extractor = extractorName.equals("jena") ? new JenaRdfExtractor() : new StaxRdfExtractor();
+		this.contents = new ArrayList<>();
+		this.ids = new ArrayList<>();
+		File samples = new File(System.getProperty("rdf.samples", "src/test/resources/rdftest"));
+		if (corpus.equals("synthetic")) {
+			RdfCorpusGenerator generator = new RdfCorpusGenerator(samples);
+			generator.setFirstId(100000);
+			generator.setDeleteRate(0);
+			samples = generator.generate(new File("target/jmh-corpus"), SYNTHETIC_SIZE);
+		}
+		this.contents.addAll(readSamples(samples, this.ids));
+	}
+	
+	private static List<byte[]> readSamples(File folder, List<String> sampleIds) throws IOException {
+		List<byte[]> samples = new ArrayList<>();
+		File[] subfolders = folder.listFiles(File::isDirectory);
+		if (subfolders == null) {
+			throw new IllegalStateException("RDF samples folder not found: " + folder.getAbsolutePath());
+		}
+		for (File subfolder : subfolders) {
+			File rdf = new File(subfolder, RdfFile.FILE_PREFIX + subfolder.getName() + RdfFile.FILE_EXTENSION);
+			if (rdf.isFile()) {
+				samples.add(Files.readAllBytes(rdf.toPath()));
+				sampleIds.add(subfolder.getName());
+			}
+		}
+		return samples;
+	}
+	
+	@Benchmark
+	public Book extract() throws IOException {
+		int index = nextIndex();
+		Book book = new Book();
+		book.setId(ids.get(index));
+		extractor.extract(new ByteArrayInputStream(contents.get(index)), book);
+		return book;
+	}
+	
+	@Benchmark
+	public Book rdfFile() {
+		int index = nextIndex();
+		return new RdfFile("", '/', ids.get(index), contents.get(index), extractor).getBook();
+	}
+	
+	private int nextIndex() {
+		int index = next;
+		next = (next + 1) % contents.size();
+		return index;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of books, used by <code>JGutenbergCatalog</code> to avoid looking for the same books in the database or in the RDF files 
+ * again and again.<p>
+ * When the cache is full, the least recently used book is evicted. All the operations are synchronized, so the cache can be used by several 
+ * threads at the same time. The number of hits, misses and evictions is counted.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see JGutenbergCatalog#getBook(String)
+ */
+public class BookCache {
+
+	/**
+	 * Maximum number of books cached by default
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	private final int capacity;
+	
+	private final Map<String, Book> books;
+	
+	private final LongAdder hits;
+	
+	private final LongAdder misses;
+	
+	private final LongAdder evictions;
+	
+	
+	/**
+	 * @param capacity maximum number of books cached, zero for caching nothing
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	BookCache(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Cache size can not be negative.");
+		}
+		this.capacity = capacity;
+		this.books = new LinkedHashMap<String, Book>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 4410867525613916932L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Book> eldest) {
+				boolean result = size() > BookCache.this.capacity;
+				if (result) {
+					evictions.increment();
+				}
+				return result;
+			}
+		};
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+	}
+	
+	/**
+	 * Returns a book from the cache, counting a hit or a miss.
+	 * @param id book identifier
+	 * @return the book, or null if it is not cached
+	 */
+	Book get(String id) {
+		Book book;
+		synchronized (this.books) {
+			book = this.books.get(id);
+		}
+		if (book != null) {
+			this.hits.increment();
+		} else {
+			this.misses.increment();
+		}
+		return book;
+	}
+	
+	/**
+	 * Adds a book to the cache, evicting the least recently used book if the cache is full.
+	 * @param book the book
+	 */
+	void put(Book book) {
+		if (this.capacity > 0 && book != null) {
+			synchronized (this.books) {
+				this.books.put(book.getId(), book);
+			}
+		}
+	}
+	
+	/**
+	 * Removes all the books from the cache. Statistics are not reset.
+	 */
+	void clear() {
+		synchronized (this.books) {
+			this.books.clear();
+		}
+	}
+	
+	/**
+	 * @return number of books cached
+	 */
+	public int size() {
+		synchronized (this.books) {
+			return this.books.size();
+		}
+	}
+	
+	/**
+	 * @return maximum number of books cached
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+	
+	/**
+	 * @return number of books found in the cache
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+	
+	/**
+	 * @return number of books not found in the cache
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+	
+	/**
+	 * @return number of books evicted because the cache was full
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+	
+	/**
+	 * @return ratio of books found in the cache, between 0 and 1
+	 */
+	public double getHitRate() {
+		long found = getHits();
+		long total = found + getMisses();
+		return (total > 0) ? (double) found / total : 0;
+	}
+	
+	@Override
+	public String toString() {
+		return "BookCache [size=" + size() + ", capacity=" + capacity + ", hits=" + getHits() + ", misses=" + getMisses() 
+				+ ", evictions=" + getEvictions() + "]";
+	}
+}
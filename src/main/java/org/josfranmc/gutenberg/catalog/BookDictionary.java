@@ -0,0 +1,113 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+/**
+ * Dictionaries of the authors and languages of the books of a catalog.<p>
+ * Many books share the same author or language, so each different value is stored only once. When a book is added to the dictionary, 
+ * its author and language are replaced by the instances kept in the dictionary, so all the books with the same author or language share 
+ * the same <code>String</code> object. Each author and language has an <code>int</code> code, which allows to compare and group books 
+ * by author or language cheaply.<p>
+ * Books keep the shared strings, not the codes: once the strings are shared, a reference takes the same space in a book as an 
+ * <code>int</code> code, and the book stays meaningful on its own, without the dictionary that encoded it. The codes are obtained from 
+ * the dictionary with {@link #getAuthorCode(Book)} and {@link #getLanguageCode(Book)}, which don't add anything to it. Books with the 
+ * same author or language can also be compared with <code>==</code> when both have been added to the same dictionary.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see Book
+ * @see CatalogRdf
+ */
+public class BookDictionary {
+
+	/**
+	 * Code of null authors or languages, and of values which are not in the dictionary
+	 */
+	public static final int NO_CODE = StringDictionary.NO_CODE;
+	
+	private final StringDictionary authors;
+	
+	private final StringDictionary languages;
+	
+	
+	BookDictionary() {
+		this.authors = new StringDictionary();
+		this.languages = new StringDictionary();
+	}
+	
+	/**
+	 * Adds the author and language of a book to the dictionary, replacing them in the book by the instances kept in the dictionary.
+	 * @param book the book
+	 */
+	void intern(Book book) {
+		book.setAuthor(this.authors.intern(book.getAuthor()));
+		book.setLanguage(this.languages.intern(book.getLanguage()));
+	}
+	
+	/**
+	 * Returns the code of the author of a book.
+	 * @param book the book
+	 * @return code of the author, or NO_CODE if the book has no author or the author is not in the dictionary
+	 */
+	public int getAuthorCode(Book book) {
+		return this.authors.getCode(book.getAuthor());
+	}
+	
+	/**
+	 * Returns the code of the language of a book.
+	 * @param book the book
+	 * @return code of the language, or NO_CODE if the book has no language or the language is not in the dictionary
+	 */
+	public int getLanguageCode(Book book) {
+		return this.languages.getCode(book.getLanguage());
+	}
+	
+	/**
+	 * Returns the author that corresponds to a code.
+	 * @param code code of the author
+	 * @return the author, or null if the code is NO_CODE
+	 * @throws IllegalArgumentException if the code is not in the dictionary
+	 */
+	public String getAuthor(int code) {
+		return this.authors.decode(code);
+	}
+	
+	/**
+	 * Returns the language that corresponds to a code.
+	 * @param code code of the language
+	 * @return the language, or null if the code is NO_CODE
+	 * @throws IllegalArgumentException if the code is not in the dictionary
+	 */
+	public String getLanguage(int code) {
+		return this.languages.decode(code);
+	}
+	
+	/**
+	 * @return number of different authors
+	 */
+	public int getAuthorCount() {
+		return this.authors.size();
+	}
+	
+	/**
+	 * @return number of different languages
+	 */
+	public int getLanguageCount() {
+		return this.languages.size();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of book identifiers with a small memory footprint.<p>
+ * Gutenberg book identifiers are numbers, so they are stored as bits of a <code>BitSet</code>: the whole catalog needs a few KB and a lookup
+ * doesn't create any object. Identifiers that are not numbers in canonical form (e.g. with leading zeros) are stored in a regular set.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+class BookIdSet {
+
+	/**
+	 * Maximum number of digits of an identifier stored as a bit
+	 */
+	private static final int MAX_DIGITS = 9;
+	
+	private final BitSet numericIds;
+	
+	private final Set<String> otherIds;
+	
+	private int size;
+	
+	
+	BookIdSet() {
+		numericIds = new BitSet();
+		otherIds = new HashSet<>();
+		size = 0;
+	}
+	
+	/**
+	 * Adds an identifier to the set.
+	 * @param id book identifier
+	 * @return <i>true</i> if the set did not already contain the identifier
+	 */
+	boolean add(String id) {
+		boolean added;
+		int number = toNumber(id);
+		if (number >= 0) {
+			added = !numericIds.get(number);
+			numericIds.set(number);
+		} else {
+			added = otherIds.add(id);
+		}
+		if (added) {
+			size++;
+		}
+		return added;
+	}
+	
+	/**
+	 * Checks if an identifier is in the set.
+	 * @param id book identifier
+	 * @return <i>true</i> if the set contains the identifier
+	 */
+	boolean contains(String id) {
+		int number = toNumber(id);
+		return (number >= 0) ? numericIds.get(number) : otherIds.contains(id);
+	}
+	
+	/**
+	 * @return number of identifiers in the set
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the identifier as a number, or -1 if it is not a number in canonical form.
+	 */
+	static int toNumber(String id) {
+		int number = -1;
+		if (id != null && !id.isEmpty() && id.length() <= MAX_DIGITS && (id.charAt(0) != '0' || id.length() == 1)) {
+			number = 0;
+			for (int i = 0; i < id.length() && number >= 0; i++) {
+				char c = id.charAt(i);
+				number = (c >= '0' && c <= '9') ? number * 10 + (c - '0') : -1;
+			}
+		}
+		return number;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A <code>Flow.Publisher</code> of the books of the catalog, which reads the RDF files as the subscribers request books.<p>
+ * Every subscriber gets its own subscription, which reads the whole catalog from the beginning through a stream of books. Books are parsed 
+ * only when they have been requested: at most one book is read ahead of the demand, in order to signal the end of the catalog as soon as it 
+ * is reached. Cancelling a subscription stops reading and closes the RDF files.<p>
+ * Signals are delivered to each subscriber by the executor, one at a time and in order. A subscription never uses more than one thread of the 
+ * executor at the same time, so different subscribers are served in parallel if the executor has several threads.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogRdf#publishBooks()
+ */
+class BookPublisher implements Flow.Publisher<Book> {
+
+	private static final Logger log = LogManager.getLogger(BookPublisher.class);
+	
+	/**
+	 * Opens a new stream of books for each subscriber
+	 */
+	private final Supplier<Stream<Book>> books;
+	
+	/**
+	 * Executor that delivers the signals to the subscribers
+	 */
+	private final Executor executor;
+	
+	
+	/**
+	 * @param books function that opens a new stream of books each time it is called
+	 * @param executor executor used to read the books and deliver them to the subscribers
+	 */
+	BookPublisher(Supplier<Stream<Book>> books, Executor executor) {
+		this.books = Objects.requireNonNull(books);
+		this.executor = Objects.requireNonNull(executor);
+	}
+	
+	/**
+	 * Adds a subscriber. The catalog is read from the beginning for it.
+	 * @param subscriber the subscriber
+	 * @throws NullPointerException if the subscriber is <i>null</i>
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super Book> subscriber) {
+		new BookSubscription(Objects.requireNonNull(subscriber)).signal();
+	}
+	
+	/**
+	 * Subscription of a subscriber. All the signals are sent from the <code>run()</code> method, which is executed by a single thread at a 
+	 * time: a counter of pending signals makes a thread keep on running while other threads request books or cancel.
+	 */
+	private final class BookSubscription implements Flow.Subscription, Runnable {
+		
+		private final Flow.Subscriber<? super Book> subscriber;
+		
+		/**
+		 * Number of books requested and not delivered yet
+		 */
+		private final AtomicLong demand = new AtomicLong();
+		
+		/**
+		 * Number of signals not processed yet by <code>run()</code>
+		 */
+		private final AtomicInteger pending = new AtomicInteger();
+		
+		/**
+		 * Error of a request with a wrong number of books
+		 */
+		private volatile IllegalArgumentException requestError;
+		
+		private volatile boolean cancelled;
+		
+		/**
+		 * Fields only used from <code>run()</code>
+		 */
+		private boolean subscribed;
+		
+		private boolean done;
+		
+		private Stream<Book> stream;
+		
+		private Iterator<Book> iterator;
+		
+		
+		BookSubscription(Flow.Subscriber<? super Book> subscriber) {
+			this.subscriber = subscriber;
+		}
+		
+		/**
+		 * Requests books. A number not greater than zero cancels the subscription with an <code>IllegalArgumentException</code> error.
+		 * @param n number of books
+		 */
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				requestError = new IllegalArgumentException("Number of requested books must be greater than zero: " + n);
+			} else {
+				demand.getAndAccumulate(n, (current, added) -> (current + added < 0) ? Long.MAX_VALUE : current + added);
+			}
+			signal();
+		}
+		
+		@Override
+		public void cancel() {
+			cancelled = true;
+			signal();
+		}
+		
+		private void signal() {
+			if (pending.getAndIncrement() == 0) {
+				executor.execute(this);
+			}
+		}
+		
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				if (!done) {
+					try {
+						deliver();
+					} catch (RuntimeException e) {
+						if (done) {
+							log.warn("[WARN] Error thrown by a subscriber. " + e.toString());
+						} else {
+							finish(e);
+						}
+					}
+				}
+				missed = pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+		
+		/**
+		 * Sends the subscription to the subscriber, then as many books as have been requested, and finally the end of the catalog.
+		 */
+		private void deliver() {
+			if (!subscribed) {
+				subscribed = true;
+				subscriber.onSubscribe(this);
+			}
+			if (cancelled) {
+				finish(null);
+			} else if (requestError != null) {
+				finish(requestError);
+			} else {
+				if (stream == null) {
+					stream = books.get();
+					iterator = stream.iterator();
+				}
+				boolean more = iterator.hasNext();
+				while (more && demand.get() > 0 && !cancelled) {
+					Book book = iterator.next();
+					demand.decrementAndGet();
+					subscriber.onNext(book);
+					more = iterator.hasNext();
+				}
+				if (cancelled) {
+					finish(null);
+				} else if (!more) {
+					finish(null);
+					subscriber.onComplete();
+				}
+			}
+		}
+		
+		/**
+		 * Closes the stream of books. If there has been an error, it is sent to the subscriber unless the subscription has been cancelled.
+		 */
+		private void finish(RuntimeException error) {
+			done = true;
+			if (stream != null) {
+				stream.close();
+			}
+			if (error != null && !cancelled) {
+				log.warn("[WARN] Error publishing books. " + error.toString());
+				subscriber.onError(error);
+			}
+		}
+	}
+}
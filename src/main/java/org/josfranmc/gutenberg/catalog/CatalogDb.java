@@ -21,25 +21,40 @@
  */
 package org.josfranmc.gutenberg.catalog;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.josfranmc.gutenberg.db.DbConnection;
+import org.josfranmc.gutenberg.db.DbDialect;
 
 /**
  * It allows to load a collection of <code>RdfFiles</code> objects in a database.<p>
  * Each <code>RdfFile</code> object is inserted in a table called <i>Books</i>. If this table doesn't exist in the database, it is created.<br>
- * You may get a collection of <code>RdfFiles</code> objects from a <code>CatalogRdf</code> object.
+ * You may get a collection of <code>RdfFiles</code> objects from a <code>CatalogRdf</code> object.<p>
+ * By default books are inserted one by one and changes are commited at the end of the load. Books may be inserted in batches instead 
+ * (see {@link #setBatchSize(int)}), and changes may be commited periodically (see {@link #setCommitInterval(int)}). If a batch fails, it is split
+ * in halves until the books that cannot be saved are found, so errors are still reported book by book.<p>
+ * Before inserting a book, it is checked that the book is not in the database. By default a query is executed for every book. Alternatively,
+ * the identifiers of all the books in the database can be read at the beginning of the load and kept in memory (see {@link ExistenceCheck}).<p>
+ * Books can also be upserted, so books already loaded are updated with the new data without checking them first, or loaded with the <i>COPY</i> command
+ * in PostgreSQL databases (see {@link LoadMode}).
  * @author Jose Francisco Mena Ceca
  * @version 2.2
  * @see CatalogRdf
@@ -49,7 +64,54 @@ import org.josfranmc.gutenberg.db.DbConnection;
 public class CatalogDb {
 
 	private static final Logger log = LogManager.getLogger(CatalogDb.class);
+	
+	/**
+	 * Number of rows fetched at once when reading the identifiers of the books in the database
+	 */
+	private static final int FETCH_SIZE = 10000;
+	
+	/**
+	 * Maximum number of books looked for by a single query
+	 */
+	private static final int LOOKUP_CHUNK_SIZE = 500;
+	
+	/**
+	 * Ways of checking if a book is already in the database before inserting it.
+	 */
+	public enum ExistenceCheck {
+		/**
+		 * A query is executed for every book
+		 */
+		QUERY,
+		/**
+		 * The identifiers of all books in the database are read once, at the beginning of the load, and kept in memory
+		 */
+		PRELOAD
+	}
+	
+	/**
+	 * Ways of saving books in the database.
+	 */
+	public enum LoadMode {
+		/**
+		 * Books are saved with <i>INSERT</i> statements, one by one or in batches
+		 */
+		INSERT,
+		/**
+		 * Books are inserted or, if they already exist, updated, using the specific statement of each database. Books are not checked before saving them
+		 */
+		UPSERT,
+		/**
+		 * Books are streamed to the database with the <i>COPY</i> command. Only for PostgreSQL databases, other databases use <i>INSERT</i>
+		 */
+		COPY
+	}
 
+	/**
+	 * Object that provides connections to the database
+	 */
+	private DbConnection dbConnection;
+	
 	/**
 	 * Connection to the database where to save the data about books
 	 */
@@ -70,6 +132,61 @@ public class CatalogDb {
 	 */
 	private Map<String, RdfFile> rdfCatalog;
 	
+	/**
+	 * Number of books inserted in each batch
+	 */
+	private int batchSize;
+	
+	/**
+	 * Number of books saved between commits. Zero for commiting only at the end of the load
+	 */
+	private int commitInterval;
+	
+	/**
+	 * Books added to the current batch
+	 */
+	private List<Book> batch;
+	
+	/**
+	 * Number of books saved since the last commit
+	 */
+	private int uncommitted;
+	
+	/**
+	 * How to check if a book is already in the database
+	 */
+	private ExistenceCheck existenceCheck;
+	
+	/**
+	 * Identifiers of the books in the database, if they are preloaded
+	 */
+	private BookIdSet bookIds;
+	
+	/**
+	 * How to save books in the database
+	 */
+	private LoadMode loadMode;
+	
+	/**
+	 * SQL dialect of the database
+	 */
+	private DbDialect dialect;
+	
+	/**
+	 * Object used to copy books in PostgreSQL databases, if the COPY mode is used
+	 */
+	private PostgresCopyWriter copyWriter;
+	
+	/**
+	 * Indicates that the copy of books has failed
+	 */
+	private boolean copyFailed;
+	
+	/**
+	 * Indicates that the table for books is known to exist, so lookups don't need to check it
+	 */
+	private boolean tableForBooksFound;
+	
 	
 	/**
 	 * @param rdfCatalog a <code>RdfFile</code> objects collection that make up the Gutenberg catalog.
@@ -92,9 +209,16 @@ public class CatalogDb {
 	}
 	
 	private void initializeDbConnection(DbConnection dbConnection) {
+		this.batchSize = 1;
+		this.commitInterval = 0;
+		this.batch = new ArrayList<>();
+		this.existenceCheck = ExistenceCheck.QUERY;
+		this.loadMode = LoadMode.INSERT;
 		if (dbConnection == null) {
 			throw new IllegalArgumentException("No manager to database connection.");
 		}
+		this.dbConnection = dbConnection;
+		this.dialect = dbConnection.getDialect();
 		try {
 			this.connection = dbConnection.getConnection();
 			this.connection.setAutoCommit(false);
@@ -105,36 +229,209 @@ public class CatalogDb {
 	
 	/**
 	 * Loads the book catalog in a database. It takes the <code>RdfFile</code> objects collection that make up the catalog (collection previously assigned).<br>
-	 * It only loads new information. RDF files already loaded are ignored.
+	 * It only loads new information. RDF files already loaded are ignored, unless books are upserted (see {@link LoadMode#UPSERT}).
+	 * @param resetDb <i>true</i> for deleting previous data, <i>false</i> otherwise
+	 * @return <i>true</i> if the changes have been commited or there was nothing to load, <i>false</i> if the commit has failed
 	 * @see RdfFile
 	 * @see Book
 	 */
-	public void load(boolean resetDb) {
+	public boolean load(boolean resetDb) {
+		boolean result = true;
 		if (getRdfCatalog() != null && !getRdfCatalog().isEmpty()) {
-			log.info("[INFO] Loading catalog in DB... " + getCurrentTime());
-			boolean isNewTable = createTableForBooks();
-			createStatementForInsert();
-			createStatementForSelect();
-			
-			if (!isNewTable && resetDb) {
-				log.info("[INFO] Deleting previous data... " + getCurrentTime());
-				deletePreviousData();
+			beginLoad(resetDb);
+			getRdfCatalog().forEach((bookId, rdfFile) -> loadBook(rdfFile.getBook()));
+			result = endLoad();
+		} else {
+			log.warn("[WARN] Cannot load catalog in DB: No RDF catalog to process");
+		}
+		return result;
+	}
+	
+	/**
+	 * Prepares the database for loading books one by one with the {@link #loadBook(Book)} method. The table for books is created if it 
+	 * doesn't exist. The connection is opened again if a previous load has closed it.<br>
+	 * The load must be finished calling the {@link #endLoad()} method.
+	 * @param resetDb <i>true</i> for deleting previous data, <i>false</i> otherwise
+	 */
+	public void beginLoad(boolean resetDb) {
+		log.info("[INFO] Loading catalog in DB... " + getCurrentTime());
+		this.batch.clear();
+		this.uncommitted = 0;
+		boolean isNewTable = createTableForBooks();
+		createStatementForInsert();
+		createStatementForSelect();
+		
+		if (!isNewTable && resetDb) {
+			log.info("[INFO] Deleting previous data... " + getCurrentTime());
+			deletePreviousData();
+		}
+		
+		if (this.existenceCheck == ExistenceCheck.PRELOAD && this.loadMode != LoadMode.UPSERT) {
+			this.bookIds = (isNewTable || resetDb) ? new BookIdSet() : readBookIds();
+		}
+		
+		this.copyFailed = false;
+		if (this.loadMode == LoadMode.COPY) {
+			beginCopy();
+		}
+	}
+	
+	/**
+	 * Loads a book in the database, if it has not been loaded before. The load must have been started with the {@link #beginLoad(boolean)} method.
+	 * @param book the book to load
+	 */
+	public void loadBook(Book book) {
+		if (isNewBook(book)) {
+			saveBook(book);
+		}
+	}
+	
+	/**
+	 * Checks if a book must be saved, according to the way of checking books set.<br>
+	 * When books are upserted or copied there is no need to query them, because books already in the database are updated or discarded by the database.
+	 */
+	private boolean isNewBook(Book book) {
+		boolean result;
+		if (this.loadMode == LoadMode.UPSERT) {
+			result = true;
+		} else if (this.existenceCheck == ExistenceCheck.PRELOAD) {
+			result = this.bookIds.add(book.getId());
+		} else if (this.copyWriter != null) {
+			result = true;
+		} else {
+			result = !isBookInDatabase(book.getId());
+		}
+		return result;
+	}
+	
+	/**
+	 * Finishes the load started with the {@link #beginLoad(boolean)} method. Changes are commited and the database connection is closed.<br>
+	 * If books are copied and the copy has failed, the changes have already been rolled back and nothing is commited.
+	 * @return <i>true</i> if the changes have been commited, <i>false</i> if the copy or the commit have failed
+	 */
+	public boolean endLoad() {
+		boolean result = false;
+		if (this.copyWriter != null) {
+			endCopy();
+		} else {
+			executeBatch();
+		}
+		if (this.copyFailed) {
+			close();
+			log.error("[ERROR] Catalog not loaded in DB: the copy of books has failed " + getCurrentTime());
+		} else {
+			result = commitAndClose();
+			log.info("[INFO] Load complete " + getCurrentTime());
+		}
+		return result;
+	}
+	
+	/**
+	 * Cancels the load started with the {@link #beginLoad(boolean)} method. Changes are rolled back and the database connection is closed.
+	 */
+	public void abortLoad() {
+		this.copyWriter = null;
+		rollback();
+		close();
+		log.warn("[WARN] Load cancelled, changes rolled back " + getCurrentTime());
+	}
+	
+	/**
+	 * Looks for a book in the database. If the connection has been closed at the end of a load, a new connection is opened.
+	 * @param id book identifier
+	 * @return the book, or <i>null</i> if the book is not in the database, no book has been loaded yet or the database cannot be queried
+	 */
+	public synchronized Book findBook(String id) {
+		Book book = null;
+		try {
+			if (isTableForBooksFound()) {
+				try (PreparedStatement statement = getOpenConnection().prepareStatement("SELECT id, author, title, language FROM books WHERE id = ?")) {
+					statement.setString(1, id);
+					try (ResultSet resultSet = statement.executeQuery()) {
+						if (resultSet.next()) {
+							book = readBook(resultSet);
+						}
+					}
+				}
+			}
+		} catch (SQLException e) {
+			log.warn("[WARN] Error looking for book " + id + " in DB. " + e.toString());
+		}
+		return book;
+	}
+	
+	/**
+	 * Looks for several books in the database. The books are looked for in chunks of {@value #LOOKUP_CHUNK_SIZE} identifiers, with a single 
+	 * query per chunk. If the connection has been closed at the end of a load, a new connection is opened.
+	 * @param ids book identifiers
+	 * @return the books found, by identifier. It is empty if no book has been loaded yet or the database cannot be queried
+	 */
+	public synchronized Map<String, Book> findBooks(Collection<String> ids) {
+		Map<String, Book> books = new HashMap<>();
+		List<String> idList = new ArrayList<>(ids);
+		try {
+			if (isTableForBooksFound()) {
+				for (int from = 0; from < idList.size(); from += LOOKUP_CHUNK_SIZE) {
+					findBooks(idList.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, idList.size())), books);
+				}
 			}
+		} catch (SQLException e) {
+			log.warn("[WARN] Error looking for books in DB. " + e.toString());
+			books.clear();
+		}
+		return books;
+	}
 	
-			getRdfCatalog().forEach((bookId, rdfFile) -> {
-				if (!isBookInDatabase(bookId)) {
-					Book book = rdfFile.getBook();
-					saveBook(book);
+	private void findBooks(List<String> ids, Map<String, Book> books) throws SQLException {
+		StringBuilder sql = new StringBuilder("SELECT id, author, title, language FROM books WHERE id IN (");
+		for (int i = 0; i < ids.size(); i++) {
+			sql.append((i == 0) ? "?" : ", ?");
+		}
+		sql.append(')');
+		try (PreparedStatement statement = getOpenConnection().prepareStatement(sql.toString())) {
+			for (int i = 0; i < ids.size(); i++) {
+				statement.setString(i + 1, ids.get(i));
+			}
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					Book book = readBook(resultSet);
+					books.put(book.getId(), book);
 				}
-			});
-			
-			commitAndClose();
-			log.info("[INFO] Load complete " + getCurrentTime());
-		} else {
-			log.warn("[WARN] Cannot load catalog in DB: No RDF catalog to process");
+			}
 		}
 	}
 	
+	private Book readBook(ResultSet resultSet) throws SQLException {
+		Book book = new Book();
+		book.setId(resultSet.getString(1));
+		book.setAuthor(resultSet.getString(2));
+		book.setTitle(resultSet.getString(3));
+		book.setLanguage(resultSet.getString(4));
+		return book;
+	}
+	
+	/**
+	 * Checks if the table for books exists before a lookup, so lookups made before any load don't fail. Once the table is found, it is not 
+	 * checked again.
+	 */
+	private boolean isTableForBooksFound() throws SQLException {
+		if (!this.tableForBooksFound) {
+			this.tableForBooksFound = isTableForBooksInDatabase(getOpenConnection());
+			if (!this.tableForBooksFound) {
+				log.debug("BOOKS table not found. No book has been loaded yet.");
+			}
+		}
+		return this.tableForBooksFound;
+	}
+	
+	private Connection getOpenConnection() throws SQLException {
+		if (this.connection == null || this.connection.isClosed()) {
+			this.connection = this.dbConnection.getConnection();
+			this.connection.setAutoCommit(false);
+		}
+		return this.connection;
+	}
+	
 	/**
 	 * Checks if a book already exists in the database.
 	 * @param id book identify to check
@@ -167,6 +464,26 @@ public class CatalogDb {
 		return result;
 	}
 	
+	/**
+	 * Reads the identifiers of all the books in the database. Only the identifiers are read, and they are fetched in blocks.
+	 * @return a set with the identifiers
+	 */
+	private BookIdSet readBookIds() {
+		BookIdSet ids = new BookIdSet();
+		try (Statement statement = this.connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+			statement.setFetchSize(FETCH_SIZE);
+			try (ResultSet resultSet = statement.executeQuery("SELECT id FROM books")) {
+				while (resultSet.next()) {
+					ids.add(resultSet.getString(1));
+				}
+			}
+			log.info("[INFO] Books already in DB: " + ids.size());
+		} catch (SQLException e) {
+			log.error(e);
+		}
+		return ids;
+	}
+	
 	/**
 	 * Returns the <code>RdfFile</code> objects collection with which the object was initialized.
 	 * @return a <code>RdfFile</code> objects collection
@@ -184,50 +501,352 @@ public class CatalogDb {
 	}
 	
 	/**
-	 * It saves a book in the database.
+	 * Sets how to check if a book is already in the database before inserting it. By default a query is executed for every book.
+	 * @param existenceCheck the way of checking
+	 * @throws IllegalArgumentException if the parameter is null
+	 * @see ExistenceCheck
+	 */
+	public void setExistenceCheck(ExistenceCheck existenceCheck) {
+		if (existenceCheck == null) {
+			throw new IllegalArgumentException("Existence check can not be null.");
+		}
+		this.existenceCheck = existenceCheck;
+	}
+	
+	/**
+	 * Returns how to check if a book is already in the database before inserting it.
+	 * @return the way of checking
+	 */
+	public ExistenceCheck getExistenceCheck() {
+		return this.existenceCheck;
+	}
+	
+	/**
+	 * Sets how to save books in the database. By default books are saved with <i>INSERT</i> statements.
+	 * @param loadMode the way of saving books
+	 * @throws IllegalArgumentException if the parameter is null
+	 * @see LoadMode
+	 */
+	public void setLoadMode(LoadMode loadMode) {
+		if (loadMode == null) {
+			throw new IllegalArgumentException("Load mode can not be null.");
+		}
+		this.loadMode = loadMode;
+	}
+	
+	/**
+	 * Returns how books are saved in the database.
+	 * @return the way of saving books
+	 */
+	public LoadMode getLoadMode() {
+		return this.loadMode;
+	}
+	
+	/**
+	 * Sets the number of books inserted in each batch. By default books are inserted one by one.
+	 * @param batchSize number of books of each batch
+	 * @throws IllegalArgumentException if the batch size is less than one
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be greater than zero.");
+		}
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Returns the number of books inserted in each batch.
+	 * @return number of books of each batch
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+	
+	/**
+	 * Sets the number of books saved between commits. By default changes are commited only at the end of the load.
+	 * @param commitInterval number of books saved between commits, zero for commiting only at the end of the load
+	 * @throws IllegalArgumentException if the interval is negative
+	 */
+	public void setCommitInterval(int commitInterval) {
+		if (commitInterval < 0) {
+			throw new IllegalArgumentException("Commit interval can not be negative.");
+		}
+		this.commitInterval = commitInterval;
+	}
+	
+	/**
+	 * Returns the number of books saved between commits.
+	 * @return number of books saved between commits, zero if changes are commited only at the end of the load
+	 */
+	public int getCommitInterval() {
+		return this.commitInterval;
+	}
+	
+	/**
+	 * It saves a book in the database. If books are inserted in batches, the book is added to the current batch, which is executed when it is full.
 	 * @param book object <code>Book</code> to save
 	 */
 	private void saveBook(Book book) {
+		if (this.copyWriter != null) {
+			copyBook(book);
+		} else if (this.batchSize > 1) {
+			this.batch.add(book);
+			if (this.batch.size() >= this.batchSize) {
+				executeBatch();
+			}
+		} else if (insertBook(book)) {
+			countSaved(1);
+		}
+	}
+	
+	/**
+	 * Starts copying books to a PostgreSQL database. If the database doesn't support the COPY command, books are inserted.
+	 */
+	private void beginCopy() {
+		if (PostgresCopyWriter.isSupported(this.connection)) {
+			Savepoint savepoint = setSavepoint();
+			try {
+				this.copyWriter = createCopyWriter(this.connection);
+				this.copyWriter.begin();
+				this.copyFailed = false;
+			} catch (SQLException e) {
+				log.warn("[WARN] COPY not available, using INSERT. " + e.toString());
+				this.copyWriter = null;
+				if (savepoint != null) {
+					rollback(savepoint);
+				}
+			}
+		} else {
+			log.warn("[WARN] COPY is only supported by PostgreSQL databases, using INSERT.");
+		}
+	}
+	
+	/**
+	 * Creates the object used to copy books to a PostgreSQL database.
+	 * @param connection connection to a PostgreSQL database
+	 * @throws SQLException if the connection is not a PostgreSQL connection
+	 */
+	PostgresCopyWriter createCopyWriter(Connection connection) throws SQLException {
+		return new PostgresCopyWriter(connection);
+	}
+	
+	private void copyBook(Book book) {
+		if (!this.copyFailed) {
+			try {
+				this.copyWriter.write(book);
+			} catch (SQLException e) {
+				log.error("[ERROR] Error copying books. " + e.toString());
+				this.copyFailed = true;
+			}
+		}
+	}
+	
+	/**
+	 * Ends the copy of books, merging them with the books already in the database. If the copy has failed, no book is loaded.
+	 */
+	private void endCopy() {
 		try {
-			this.insertStatament.setString(1, book.getId());
-			this.insertStatament.setString(2, book.getAuthor());
-			this.insertStatament.setString(3, book.getTitle());
-			this.insertStatament.setString(4, book.getLanguage());
+			if (!this.copyFailed) {
+				this.copyWriter.end();
+			}
+		} catch (SQLException e) {
+			log.error("[ERROR] Error copying books. " + e.toString());
+			this.copyFailed = true;
+		}
+		if (this.copyFailed) {
+			try {
+				this.connection.rollback();
+			} catch (SQLException e) {
+				log.error(e);
+			}
+		}
+		this.copyWriter = null;
+	}
+	
+	/**
+	 * Inserts a single book, reporting the error if it cannot be saved.
+	 * @param book object <code>Book</code> to save
+	 * @return <i>true</i> if the book has been saved, <i>false</i> otherwise
+	 */
+	private boolean insertBook(Book book) {
+		boolean result = false;
+		try {
+			setInsertParameters(book);
 			this.insertStatament.executeUpdate();
+			result = true;
 		} catch (SQLIntegrityConstraintViolationException e) {
 			log.warn("[WARN] SQLIntegrityConstraintViolationException: book " + book.getId());
 		} catch (SQLException e) {
 			log.warn("[WARN] Error saving " + book.getId() + ". " + e.toString());
 		}
+		return result;
+	}
+	
+	private void setInsertParameters(Book book) throws SQLException {
+		this.insertStatament.setString(1, book.getId());
+		this.insertStatament.setString(2, book.getAuthor());
+		this.insertStatament.setString(3, book.getTitle());
+		this.insertStatament.setString(4, book.getLanguage());
+	}
+	
+	/**
+	 * Executes the current batch.
+	 */
+	private void executeBatch() {
+		if (!this.batch.isEmpty()) {
+			List<Book> books = this.batch;
+			this.batch = new ArrayList<>();
+			countSaved(executeBatch(books));
+		}
+	}
+	
+	/**
+	 * Inserts a list of books as a batch. If the batch fails, changes are rolled back and the list is split in two halves, which are inserted 
+	 * separately. Single books are inserted on their own, so the books that cannot be saved are reported.
+	 * @param books books to insert
+	 * @return number of books saved
+	 */
+	private int executeBatch(List<Book> books) {
+		int result = 0;
+		if (books.size() == 1) {
+			Savepoint savepoint = setSavepoint();
+			if (insertBook(books.get(0))) {
+				releaseSavepoint(savepoint);
+				result = 1;
+			} else if (savepoint != null) {
+				rollback(savepoint);
+			}
+		} else {
+			Savepoint savepoint = setSavepoint();
+			try {
+				for (Book book : books) {
+					setInsertParameters(book);
+					this.insertStatament.addBatch();
+				}
+				this.insertStatament.executeBatch();
+				releaseSavepoint(savepoint);
+				result = books.size();
+			} catch (BatchUpdateException e) {
+				clearBatch();
+				if (savepoint == null) {
+					log.warn("[WARN] Error saving batch of " + books.size() + " books. " + e.toString());
+					result = countExecuted(e.getUpdateCounts());
+				} else {
+					rollback(savepoint);
+					int middle = books.size() / 2;
+					result = executeBatch(books.subList(0, middle)) + executeBatch(books.subList(middle, books.size()));
+				}
+			} catch (SQLException e) {
+				clearBatch();
+				log.warn("[WARN] Error saving batch of " + books.size() + " books. " + e.toString());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Counts the statements of a failed batch that have been executed, when the changes of the batch cannot be rolled back.
+	 */
+	private int countExecuted(int[] updateCounts) {
+		int result = 0;
+		if (updateCounts != null) {
+			for (int updateCount : updateCounts) {
+				if (updateCount != Statement.EXECUTE_FAILED) {
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+	
+	private Savepoint setSavepoint() {
+		Savepoint savepoint = null;
+		try {
+			savepoint = this.connection.setSavepoint();
+		} catch (SQLException e) {
+			log.debug("Savepoints not supported. " + e.toString());
+		}
+		return savepoint;
+	}
+	
+	private void releaseSavepoint(Savepoint savepoint) {
+		if (savepoint != null) {
+			try {
+				this.connection.releaseSavepoint(savepoint);
+			} catch (SQLException e) {
+				log.debug("Savepoint not released. " + e.toString());
+			}
+		}
+	}
+	
+	private void rollback(Savepoint savepoint) {
+		try {
+			this.connection.rollback(savepoint);
+		} catch (SQLException e) {
+			log.error(e);
+		}
+	}
+	
+	private void clearBatch() {
+		try {
+			this.insertStatament.clearBatch();
+		} catch (SQLException e) {
+			log.error(e);
+		}
+	}
+	
+	/**
+	 * Counts the books saved, commiting changes if the commit interval has been reached. Books that could not be saved are not counted.
+	 * @param books number of books saved
+	 */
+	private void countSaved(int books) {
+		this.uncommitted += books;
+		if (this.commitInterval > 0 && this.uncommitted >= this.commitInterval) {
+			try {
+				this.connection.commit();
+				this.uncommitted = 0;
+			} catch (SQLException e) {
+				log.error(e);
+			}
+		}
 	}
 
+	/**
+	 * Creates the table for books if it doesn't exist. The table is looked for before creating it, since in some databases, like PostgreSQL, 
+	 * a failed statement aborts the whole transaction.
+	 * @return <i>true</i> if the table has been created, <i>false</i> if it already existed
+	 */
 	private boolean createTableForBooks() {
-		Statement statement = null;
-		boolean result = true;
+		boolean result = false;
 		try {
-			statement = this.connection.createStatement();
-       	 	statement.executeUpdate("CREATE TABLE books (" + 
-     	 		" ID varchar(10) PRIMARY KEY," + 
-     	 		" author varchar(300) NULL, " + 
-     	 		" title varchar(1000) NULL," + 
-     	 		" language varchar(3) NULL" +
-     	 		");");
-       	 	log.info("[INFO] BOOKS table created.");
-		} catch (SQLException e) {
-			if (e.getSQLState().equalsIgnoreCase("42504")) {
-				log.warn("[INFO] BOOKS table already exists.");
-				result = false;
+			if (!isTableForBooksInDatabase(getOpenConnection())) {
+				try (Statement statement = this.connection.createStatement()) {
+					statement.executeUpdate("CREATE TABLE IF NOT EXISTS books (" + 
+						" ID varchar(10) PRIMARY KEY," + 
+						" author varchar(300) NULL, " + 
+						" title varchar(1000) NULL," + 
+						" language varchar(3) NULL" +
+						")");
+				}
+				log.info("[INFO] BOOKS table created.");
+				result = true;
 			} else {
-				log.error(e);
+				log.info("[INFO] BOOKS table already exists.");
+			}
+			this.tableForBooksFound = true;
+		} catch (SQLException e) {
+			log.error(e);
+		}
+		return result;
+	}
+	
+	private boolean isTableForBooksInDatabase(Connection connection) throws SQLException {
+		boolean result = false;
+		DatabaseMetaData metaData = connection.getMetaData();
+		for (String name : new String[] {"books", "BOOKS"}) {
+			try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), name, new String[] {"TABLE"})) {
+				result = result || tables.next();
 			}
-		} finally {
-        	try {
-    		    if (statement != null) {
-    		    	statement.close();
-    		    }
-        	} catch (Exception e) {
-        		log.error(e);
-        	}
 		}
 		return result;
 	}
@@ -252,7 +871,8 @@ public class CatalogDb {
 	
 	private void createStatementForInsert() {
 		try {
-			this.insertStatament = this.connection.prepareStatement("INSERT INTO books VALUES (?, ?, ?, ?)");
+			String sql = (this.loadMode == LoadMode.UPSERT) ? this.dialect.getUpsertSql() : "INSERT INTO books VALUES (?, ?, ?, ?)";
+			this.insertStatament = this.connection.prepareStatement(sql);
 		} catch (SQLException e) {
 			log.error(e);
 		}
@@ -267,9 +887,11 @@ public class CatalogDb {
 	}
 	
 	/**
-	 * Commit changes and close database connection.
+	 * Commit changes and close database connection. If the commit fails, changes are rolled back.
+	 * @return <i>true</i> if the changes have been commited
 	 */
-	private void commitAndClose() {
+	private boolean commitAndClose() {
+		boolean result = false;
 		try {
 			if (this.insertStatament != null) {
 				this.insertStatament.close();
@@ -279,10 +901,40 @@ public class CatalogDb {
 			}
 			if (this.connection != null) {
 				this.connection.commit();
+			}
+			result = true;
+		} catch (SQLException e) {
+			log.error(e);
+			rollback();
+		} finally {
+			close();
+		}
+		return result;
+	}
+	
+	private void rollback() {
+		try {
+			if (this.connection != null) {
+				this.connection.rollback();
+			}
+		} catch (SQLException e) {
+			log.error(e);
+		}
+	}
+	
+	/**
+	 * Closes the database connection. The statements are closed with it, so they are discarded and created again on the next load.
+	 */
+	private void close() {
+		try {
+			if (this.connection != null) {
 				this.connection.close();
 			}
 		} catch (SQLException e) {
 			log.error(e);
+		} finally {
+			this.insertStatament = null;
+			this.selectStatament = null;
 		}
 	}
 	
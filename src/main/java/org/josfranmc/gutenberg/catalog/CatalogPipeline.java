@@ -0,0 +1,204 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * It loads the book catalog in a database while the RDF files are being read.<p>
+ * The threads of the <code>CatalogRdf</code> object parse the RDF files and put the books in a bounded queue. A writer thread takes the books 
+ * from the queue and saves them in the database through a <code>CatalogDb</code> object. This way parsing and inserting overlap, and since 
+ * the parsed files are not kept in memory, memory usage doesn't grow with the number of RDF files. When the queue is full, parsers wait 
+ * for the writer.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogRdf
+ * @see CatalogDb
+ */
+class CatalogPipeline {
+
+	private static final Logger log = LogManager.getLogger(CatalogPipeline.class);
+	
+	/**
+	 * Default number of books that may wait in the queue to be saved
+	 */
+	static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	
+	/**
+	 * Marks the end of the catalog in the queue
+	 */
+	private static final Book END_OF_CATALOG = new Book();
+	
+	/**
+	 * Milliseconds a parser waits for room in the queue before checking that the writer is still working
+	 */
+	private static final long OFFER_TIMEOUT = 100;
+	
+	private final CatalogRdf catalogRdf;
+	
+	private final CatalogDb catalogDb;
+	
+	private final BlockingQueue<Book> queue;
+	
+	/**
+	 * Error that stopped the writer thread, if any
+	 */
+	private final AtomicReference<Throwable> writerError;
+	
+	private final AtomicLong booksWritten;
+	
+	/**
+	 * Object that receives every book read, besides the database
+	 */
+	private Consumer<Book> listener;
+	
+	
+	/**
+	 * @param catalogRdf object used to read the RDF files
+	 * @param catalogDb object used to save the books in the database
+	 * @param queueCapacity maximum number of books waiting to be saved
+	 */
+	CatalogPipeline(CatalogRdf catalogRdf, CatalogDb catalogDb, int queueCapacity) {
+		if (catalogRdf == null || catalogDb == null) {
+			throw new IllegalArgumentException("RDF catalog and database are required.");
+		}
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("Queue capacity must be greater than zero.");
+		}
+		this.catalogRdf = catalogRdf;
+		this.catalogDb = catalogDb;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.writerError = new AtomicReference<>();
+		this.booksWritten = new AtomicLong();
+	}
+	
+	/**
+	 * Reads the RDF files and loads the books in the database. It returns when all books have been saved.<br>
+	 * If a manifest has been set, it is saved only after the books have been commited to the database, so if the load fails the files are 
+	 * read again in the next run. If the files cannot be read or the books cannot be saved, the changes are rolled back.
+	 * @param resetDb <i>true</i> for deleting previous data, <i>false</i> otherwise
+	 * @return number of books passed to the database
+	 * @throws IllegalStateException if the load could not be completed
+	 */
+	long run(boolean resetDb) {
+		catalogDb.beginLoad(resetDb);
+		Thread writer = new Thread(this::write, "catalog-db-writer");
+		writer.start();
+		boolean manifestSavedOnRead = catalogRdf.isManifestSavedOnRead();
+		catalogRdf.setManifestSavedOnRead(false);
+		boolean filesRead = false;
+		boolean commited = false;
+		try {
+			catalogRdf.readFiles(rdfFile -> {
+				Book book = rdfFile.getBook();
+				if (listener != null) {
+					listener.accept(book);
+				}
+				put(book);
+			});
+			filesRead = true;
+		} finally {
+			catalogRdf.setManifestSavedOnRead(manifestSavedOnRead);
+			finish(writer);
+			if (filesRead && writerError.get() == null) {
+				commited = catalogDb.endLoad();
+			} else {
+				catalogDb.abortLoad();
+			}
+		}
+		Throwable error = writerError.get();
+		if (error != null) {
+			throw new IllegalStateException("Error loading catalog in DB: " + error.toString());
+		}
+		if (!commited) {
+			throw new IllegalStateException("Error loading catalog in DB: changes could not be commited");
+		}
+		catalogRdf.saveManifest();
+		log.info("[INFO] Books passed to DB: " + booksWritten.get());
+		return booksWritten.get();
+	}
+	
+	/**
+	 * Sets an object that receives every book read, before it is queued. It is called from the threads that read the RDF files, so it must 
+	 * be thread-safe.
+	 * @param listener object that receives the books, or <i>null</i>
+	 */
+	void setListener(Consumer<Book> listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Puts a book in the queue, waiting while the queue is full.
+	 */
+	private void put(Book book) {
+		try {
+			while (!queue.offer(book, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				if (writerError.get() != null) {
+					throw new IllegalStateException("Database writer stopped: " + writerError.get().toString());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading catalog in DB");
+		}
+	}
+	
+	/**
+	 * Sends the end mark to the writer and waits for it to finish.
+	 */
+	private void finish(Thread writer) {
+		try {
+			while (writerError.get() == null && !queue.offer(END_OF_CATALOG, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				// waiting for the writer to make room
+			}
+			writer.join();
+		} catch (InterruptedException e) {
+			writer.interrupt();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Writer thread loop. It saves the books in the database until the end mark is found.
+	 */
+	private void write() {
+		try {
+			Book book = queue.take();
+			while (book != END_OF_CATALOG) {
+				catalogDb.loadBook(book);
+				booksWritten.incrementAndGet();
+				book = queue.take();
+			}
+		} catch (InterruptedException e) {
+			writerError.set(e);
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			log.error(e);
+			writerError.set(e);
+		}
+	}
+}
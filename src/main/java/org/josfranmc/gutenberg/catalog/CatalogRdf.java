@@ -21,20 +21,59 @@
  */
 package org.josfranmc.gutenberg.catalog;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.apache.jena.sys.JenaSystem;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 /**
  * It allows to read the RDF files that make up the Gutenberg catalog.<p>
- * The data is stored in memory as a <code>HashMap</code>. Each RDF file is stored as an <code>RdfFile</code> object, with key the file identifier.<br>
- * This identifier is the same as the book it represents.
+ * The data is stored in memory as a <code>Map</code>. Each RDF file is stored as an <code>RdfFile</code> object, with key the file identifier.<br>
+ * This identifier is the same as the book it represents.<p>
+ * The map is a <code>RdfCatalogMap</code>, which stores the numeric identifiers as primitive values to reduce memory usage. Authors and 
+ * languages are shared between books through a <code>BookDictionary</code> (see {@link #getDictionary()}).<p>
+ * Files can be read by several threads at the same time (see {@link #setThreads(int)}). In that case a work-stealing pool is used and the data is 
+ * stored in a concurrent map.<p>
+ * RDF files may be read either from a folder or directly from the archive downloaded from the Gutenberg project (<i>.tar</i>, <i>.tar.zip</i>, 
+ * <i>.tar.bz2</i> or <i>.tar.gz</i>), without extracting it.<p>
+ * In lazy mode (see {@link #setLazy(boolean)}) files are only found and indexed when they are read, and each one is parsed the first time its 
+ * book is requested. Files may also be parsed in the background by a pool of threads (see {@link #setPrefetchThreads(int)}).<p>
+ * The catalog can also be processed as a <code>Stream</code> (see {@link #streamBooks()}), which reads the files as they are consumed instead of 
+ * keeping them in memory, or through a <code>Flow.Publisher</code> (see {@link #publishBooks()}), which reads them as subscribers request them.<p>
+ * If a manifest file is set (see {@link #setManifest(File)}), only the RDF files that are new or have changed since the last time the files 
+ * were read are processed, and the files that have been deleted are reported.
  * @author Jose Francisco Mena Ceca
  * @version 2.2
  * @see RdfFile
@@ -44,65 +83,791 @@ public class CatalogRdf {
 
 	private static final Logger log = LogManager.getLogger(CatalogRdf.class);
 
+	/**
+	 * Maximum number of folders processed by a single task when reading in parallel. It is also the size of the batches a parallel stream is split in
+	 */
+	private static final int FOLDERS_PER_TASK = 64;
+	
+	/**
+	 * Number of files parsed by each task when files are prefetched
+	 */
+	private static final int FILES_PER_PREFETCH_TASK = 256;
+	
+	/**
+	 * Maximum number of archive entries waiting to be parsed per thread. It limits the memory used when reading an archive
+	 */
+	private static final int ENTRIES_PER_THREAD = 16;
+
 	/**
 	 * The path to the folder that contains RDF files about books
 	 */
 	private File rdfFilesFolder;
 	
+	/**
+	 * The absolute path to the folder that contains the RDF files. It is shared by all the <code>RdfFile</code> objects
+	 */
+	private String rdfFilesPath;
+	
+	/**
+	 * Archive that contains the RDF files, if they are not read from a folder
+	 */
+	private RdfArchive rdfArchive;
+	
+	/**
+	 * Paths to the folders inside the archive that contain RDF files, shared by all the <code>RdfFile</code> objects
+	 */
+	private ConcurrentMap<String, String> archivePaths;
+	
 	/**
 	 * Collection of RDF files
 	 */
 	private Map<String, RdfFile> rdfCatalog;
+	
+	/**
+	 * Number of threads used to read RDF files
+	 */
+	private int threads;
+	
+	/**
+	 * Object used to extract the data from RDF files
+	 */
+	private RdfExtractor extractor;
+	
+	/**
+	 * State of the RDF files read in the previous run, if only new or changed files are read
+	 */
+	private RdfManifest manifest;
+	
+	/**
+	 * Whether the manifest is saved at the end of every read, or only when {@link #saveManifest()} is called
+	 */
+	private boolean manifestSavedOnRead = true;
+	
+	/**
+	 * Indicates that files are parsed when their books are requested
+	 */
+	private boolean lazy;
+	
+	/**
+	 * Number of threads used to parse files in the background in lazy mode
+	 */
+	private int prefetchThreads;
+	
+	/**
+	 * Pool of threads that parses files in the background
+	 */
+	private ExecutorService prefetchPool;
+	
+	/**
+	 * Authors and languages of the books stored in memory
+	 */
+	private BookDictionary dictionary;
+	
+	/**
+	 * Object that receives the books stored in memory by <code>readFiles()</code>
+	 */
+	private Consumer<Book> bookListener;
+	
+	/**
+	 * Identifiers of the RDF files deleted since the previous run
+	 */
+	private Set<String> deletedIds;
 
 	
 	/**
 	 * Default constructor.
-	 * @param rdfFilesFolder a <code>RdfFile</code> objects collection that make up the Gutenberg catalog.
+	 * @param rdfFilesFolder the folder that contains the RDF files, or the archive downloaded from the Gutenberg project
 	 */
 	public CatalogRdf(File rdfFilesFolder) {
 		if (rdfFilesFolder == null || !rdfFilesFolder.exists()) {
 			throw new IllegalArgumentException("Invalid path to RDF container.");
 		}
+		if (RdfArchive.isArchive(rdfFilesFolder)) {
+			this.rdfArchive = new RdfArchive(rdfFilesFolder);
+		} else if (!rdfFilesFolder.isDirectory()) {
+			throw new IllegalArgumentException("Invalid path to RDF container.");
+		}
 		this.rdfFilesFolder = rdfFilesFolder;
+		this.rdfFilesPath = rdfFilesFolder.getAbsolutePath();
+		this.archivePaths = new ConcurrentHashMap<>();
 
-		this.rdfCatalog = new HashMap<>();
+		this.rdfCatalog = new RdfCatalogMap();
+		this.threads = 1;
+		this.extractor = RdfFile.DEFAULT_EXTRACTOR;
+		this.deletedIds = Collections.emptySet();
+		this.dictionary = new BookDictionary();
 	}
 	
 	/**
-	 * Reads the RDF files to extrac its data and store it as a collection of <code>RdfFile</code> objects.
+	 * Reads the RDF files to extrac its data and store it as a collection of <code>RdfFile</code> objects.<br>
+	 * Folders whose name contains the word <i>delete</i> are ignored. If more than one thread has been set, files are read in parallel.<br>
+	 * The authors and languages of the books are added to the dictionary of the catalog, so books share them.<br>
+	 * If a manifest has been set, the files deleted since the previous run are removed from memory.<br>
+	 * In lazy mode files are not parsed, and if prefetch threads have been set they start parsing the files in the background.
 	 * @see RdfFile
 	 */
 	public void readFiles() {
+		if (this.threads > 1 && !(this.rdfCatalog instanceof ConcurrentMap)) {
+			this.rdfCatalog = new RdfCatalogMap(this.rdfCatalog);
+		}
+		readFiles(rdfFile -> {
+			if (!this.lazy) {
+				this.dictionary.intern(rdfFile.getBook());
+				if (this.bookListener != null) {
+					this.bookListener.accept(rdfFile.getBook());
+				}
+			}
+			this.rdfCatalog.put(rdfFile.getId(), rdfFile);
+		});
+		for (String id : this.deletedIds) {
+			this.rdfCatalog.remove(id);
+		}
+		if (this.lazy && this.prefetchThreads > 0) {
+			prefetch(new ArrayList<>(this.rdfCatalog.values()));
+		}
+	}
+	
+	/**
+	 * Reads the RDF files and passes each <code>RdfFile</code> object to a consumer, instead of storing it in memory.<br>
+	 * Folders whose name contains the word <i>delete</i> are ignored. If more than one thread has been set, files are read in parallel and 
+	 * the consumer is called from several threads at the same time, so it must be thread-safe.<br>
+	 * If a manifest has been set, only new or changed files are passed to the consumer and the manifest is saved at the end, unless it has 
+	 * been set to be saved only by the {@link #saveManifest()} method. Files that cannot be parsed are not registered in the manifest, so 
+	 * they are read again in the next run (in lazy mode files are registered before they are parsed).<br>
+	 * If the consumer throws an exception, the files not read yet are not reported as deleted and the exception is rethrown.
+	 * @param consumer object that receives the <code>RdfFile</code> objects
+	 * @see RdfFile
+	 */
+	public void readFiles(Consumer<RdfFile> consumer) {
 		log.info("[INFO] Processing RDF files... " + getCurrentTime());
-		for (File folder : this.rdfFilesFolder.listFiles()) {
-			if (!folder.getName().toLowerCase().contains("delete")) {
-				try {
-					RdfFile rdfFile = new RdfFile(folder);
-					this.rdfCatalog.put(folder.getName(), rdfFile);
-				} catch (IllegalArgumentException e) {
-					log.warn("[WARN] File " + folder.getName() + " not read");
+		boolean complete = true;
+		AtomicReference<RuntimeException> error = new AtomicReference<>();
+		if (this.manifest != null) {
+			this.manifest.beginScan();
+		}
+		if (this.rdfArchive != null) {
+			complete = readArchive(consumer, error);
+		} else {
+			File[] folders = this.rdfFilesFolder.listFiles();
+			if (this.threads > 1) {
+				readFilesInParallel(folders, consumer);
+			} else {
+				for (File folder : folders) {
+					readFolder(folder, consumer);
 				}
 			}
 		}
+		if (this.manifest != null) {
+			endManifestScan(complete);
+		}
+		if (error.get() != null) {
+			throw error.get();
+		}
 		log.info("[INFO] RDF files processed " + getCurrentTime());
 	}
 	
+	/**
+	 * Returns a stream of the RDF files of the catalog. Files are read as the stream is consumed, so the catalog is not kept in memory, and they 
+	 * are not added to the map of the catalog.<br>
+	 * The stream can be made parallel with <code>parallel()</code>. It is split in batches of a fixed number of files, so the files are parsed 
+	 * by all the threads even if they are read from an archive, which is always read sequentially.<br>
+	 * Folders whose name contains the word <i>delete</i> and files that cannot be read are skipped. The manifest, if it has been set, is not used. 
+	 * The stream must be closed after use, in order to close the folder or the archive, e.g. with a <i>try-with-resources</i> statement.
+	 * @return a stream of the <code>RdfFile</code> objects
+	 * @throws IllegalStateException if the folder or the archive cannot be opened
+	 * @see #streamBooks()
+	 */
+	public Stream<RdfFile> streamFiles() {
+		JenaSystem.init();
+		Stream<RdfFile> result;
+		try {
+			if (this.rdfArchive != null) {
+				RdfArchive.EntryReader entries = this.rdfArchive.reader();
+				result = stream(entries, entries, this::toRdfFile);
+			} else {
+				DirectoryStream<Path> folders = Files.newDirectoryStream(this.rdfFilesFolder.toPath());
+				result = stream(folders.iterator(), folders, this::toRdfFile);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("RDF files could not be read. " + e.toString());
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns a stream of the books of the catalog. Books are read as the stream is consumed (see {@link #streamFiles()}), and the stream must be 
+	 * closed after use.
+	 * @return a stream of the <code>Book</code> objects
+	 * @throws IllegalStateException if the folder or the archive cannot be opened
+	 */
+	public Stream<Book> streamBooks() {
+		return streamFiles().map(RdfFile::getBook);
+	}
+	
+	/**
+	 * Returns a publisher of the books of the catalog, which reads the RDF files as its subscribers request books. Each subscriber reads the 
+	 * catalog from the beginning, and its subscription can be cancelled at any time. Signals are delivered by the common <code>ForkJoinPool</code>.
+	 * @return a publisher of the <code>Book</code> objects
+	 * @see #publishBooks(Executor)
+	 */
+	public Flow.Publisher<Book> publishBooks() {
+		return publishBooks(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Returns a publisher of the books of the catalog, which reads the RDF files as its subscribers request books (see {@link #publishBooks()}).
+	 * @param executor executor used to read the books and deliver them to the subscribers
+	 * @return a publisher of the <code>Book</code> objects
+	 * @throws IllegalArgumentException if the executor is <i>null</i>
+	 */
+	public Flow.Publisher<Book> publishBooks(Executor executor) {
+		if (executor == null) {
+			throw new IllegalArgumentException("Executor can not be null.");
+		}
+		return new BookPublisher(this::streamBooks, executor);
+	}
+	
+	/**
+	 * Creates a stream that reads the RDF files from a source of folders or archive entries, and closes the source when it is closed.
+	 */
+	private <T> Stream<RdfFile> stream(Iterator<T> source, Closeable closeable, Function<T, RdfFile> reader) {
+		return StreamSupport.stream(new FixedBatchSpliterator<>(source, FOLDERS_PER_TASK), false)
+				.onClose(() -> close(closeable))
+				.map(reader)
+				.filter(Objects::nonNull);
+	}
+	
+	private void close(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			log.warn("[WARN] Error closing RDF files. " + e.toString());
+		}
+	}
+	
+	/**
+	 * Reads the RDF file of a folder for a stream.
+	 * @return the <code>RdfFile</code> object, or <i>null</i> if the folder must be skipped
+	 */
+	private RdfFile toRdfFile(Path folder) {
+		RdfFile result = null;
+		String folderName = folder.getFileName().toString();
+		if (!folderName.toLowerCase().contains("delete")) {
+			try {
+				result = createRdfFile(this.rdfFilesPath, File.separatorChar, folderName, null);
+			} catch (IllegalArgumentException e) {
+				log.warn("[WARN] File " + folderName + " not read");
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Reads a RDF file from an archive for a stream.
+	 * @return the <code>RdfFile</code> object, or <i>null</i> if the file must be skipped
+	 */
+	private RdfFile toRdfFile(RdfArchive.Entry entry) {
+		RdfFile result = null;
+		String folderName = entry.getFolderName();
+		if (!folderName.toLowerCase().contains("delete")) {
+			if (entry.getFileName().equals(RdfFile.FILE_PREFIX + folderName + RdfFile.FILE_EXTENSION)) {
+				result = createRdfFile(getArchivePath(entry), '/', folderName, entry.getContent());
+			} else {
+				log.warn("[WARN] File " + entry.getName() + " not read");
+			}
+		}
+		return result;
+	}
+	
+	private void readFilesInParallel(File[] folders, Consumer<RdfFile> consumer) {
+		ForkJoinPool pool = createPool();
+		try {
+			pool.invoke(new ReadFoldersTask(folders, 0, folders.length, consumer));
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Saves the manifest. Files not found are reported as deleted only if all the files have been read.
+	 */
+	private void endManifestScan(boolean complete) {
+		if (complete) {
+			this.deletedIds = Collections.unmodifiableSet(this.manifest.endScan());
+			if (!this.deletedIds.isEmpty()) {
+				log.info("[INFO] RDF files deleted since the last run: " + this.deletedIds.size());
+			}
+		} else {
+			this.deletedIds = Collections.emptySet();
+		}
+		if (this.manifestSavedOnRead) {
+			this.manifest.commit();
+			this.manifest.save();
+		}
+	}
+	
+	/**
+	 * Commits the changes of the last read to the manifest and saves it, if one has been set. It is used when the manifest is not saved at 
+	 * the end of every read, so it can be saved once the files read have been stored, e.g. once the books have been commited to the database.
+	 * @throws IllegalStateException if the manifest cannot be saved
+	 * @see #setManifestSavedOnRead(boolean)
+	 */
+	void saveManifest() {
+		if (this.manifest != null) {
+			this.manifest.commit();
+			this.manifest.save();
+		}
+	}
+	
+	/**
+	 * Commits the changes of the last read to the manifest kept in memory, if one has been set, without saving it. It is used when the files 
+	 * read have been stored in memory, so the next read only looks for the files changed since then.
+	 * @see #saveManifest()
+	 */
+	void commitManifest() {
+		if (this.manifest != null) {
+			this.manifest.commit();
+		}
+	}
+	
+	/**
+	 * Sets whether the manifest is saved at the end of every read, which is the default, or only by the {@link #saveManifest()} method.
+	 * @param manifestSavedOnRead <i>true</i> for saving the manifest at the end of every read
+	 */
+	void setManifestSavedOnRead(boolean manifestSavedOnRead) {
+		this.manifestSavedOnRead = manifestSavedOnRead;
+	}
+	
+	/**
+	 * @return <i>true</i> if the manifest is saved at the end of every read
+	 */
+	boolean isManifestSavedOnRead() {
+		return this.manifestSavedOnRead;
+	}
+	
+	/**
+	 * Reads the RDF files from an archive. The archive is read sequentially by the calling thread, and its entries are parsed by the 
+	 * pool threads. The number of entries waiting to be parsed is limited, so the archive is never loaded in memory as a whole.<br>
+	 * If an entry throws an exception, the exception is recorded and the remaining entries are skipped.
+	 * @param error receives the first exception thrown while reading an entry
+	 * @return <i>true</i> if the whole archive has been read, <i>false</i> if there has been an error
+	 */
+	private boolean readArchive(Consumer<RdfFile> consumer, AtomicReference<RuntimeException> error) {
+		boolean result = true;
+		ForkJoinPool pool = (this.threads > 1) ? createPool() : null;
+		Semaphore pending = new Semaphore(this.threads * ENTRIES_PER_THREAD);
+		try {
+			this.rdfArchive.read(entry -> {
+				if (error.get() == null) {
+					if (pool == null) {
+						readEntry(entry, consumer, error);
+					} else {
+						pending.acquireUninterruptibly();
+						pool.execute(() -> {
+							try {
+								readEntry(entry, consumer, error);
+							} finally {
+								pending.release();
+							}
+						});
+					}
+				}
+			});
+		} catch (IOException e) {
+			log.error("[ERROR] Error reading RDF archive. " + e.toString());
+			result = false;
+		} finally {
+			if (pool != null) {
+				shutdownPool(pool);
+			}
+		}
+		if (error.get() != null) {
+			log.error("[ERROR] Error reading RDF archive. " + error.get().toString());
+			result = false;
+		}
+		return result;
+	}
+	
+	/**
+	 * Reads a RDF file from an archive, recording the exception thrown, if any.
+	 */
+	private void readEntry(RdfArchive.Entry entry, Consumer<RdfFile> consumer, AtomicReference<RuntimeException> error) {
+		try {
+			readEntry(entry, consumer);
+		} catch (RuntimeException e) {
+			error.compareAndSet(null, e);
+		}
+	}
+	
+	private ForkJoinPool createPool() {
+		JenaSystem.init();
+		return new ForkJoinPool(this.threads);
+	}
+	
+	private void shutdownPool(ForkJoinPool pool) {
+		pool.shutdown();
+		try {
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			log.warn("[WARN] Interrupted while reading RDF files");
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Reads the RDF file stored in a folder and passes it to the consumer.
+	 * @param folder folder that contains the RDF file
+	 * @param consumer object that receives the <code>RdfFile</code> object
+	 */
+	private void readFolder(File folder, Consumer<RdfFile> consumer) {
+		if (!folder.getName().toLowerCase().contains("delete")) {
+			try {
+				if (this.manifest != null) {
+					readFolderIfChanged(folder, consumer);
+				} else {
+					RdfFile rdfFile = createRdfFile(this.rdfFilesPath, File.separatorChar, folder.getName(), null);
+					consumer.accept(rdfFile);
+				}
+			} catch (IllegalArgumentException e) {
+				log.warn("[WARN] File " + folder.getName() + " not read");
+			}
+		}
+	}
+	
+	/**
+	 * Reads the RDF file stored in a folder only if it is new or has changed since the last run.
+	 */
+	private void readFolderIfChanged(File folder, Consumer<RdfFile> consumer) {
+		String id = folder.getName();
+		File file = new File(folder, RdfFile.FILE_PREFIX + id + RdfFile.FILE_EXTENSION);
+		if (!file.isFile()) {
+			throw new IllegalArgumentException("Wrong rdf file. Id: " + id);
+		}
+		long lastModified = file.lastModified();
+		if (!this.manifest.isUnchanged(id, lastModified, file.length())) {
+			byte[] content;
+			try {
+				content = Files.readAllBytes(file.toPath());
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Wrong rdf file. Id: " + id);
+			}
+			readIfChanged(this.rdfFilesPath, File.separatorChar, id, content, lastModified, consumer);
+		}
+	}
+	
+	/**
+	 * Parses the content of a RDF file if it is different from the content read in the last run, and registers it in the manifest once it 
+	 * has been passed to the consumer. Files whose title cannot be extracted are not registered, so they are read again in the next run.
+	 */
+	private void readIfChanged(String catalogPath, char separator, String id, byte[] content, long lastModified, Consumer<RdfFile> consumer) {
+		if (!this.manifest.hasSameContent(id, lastModified, content)) {
+			RdfFile rdfFile = createRdfFile(catalogPath, separator, id, content);
+			consumer.accept(rdfFile);
+			if (this.lazy || rdfFile.getBook().getTitle() != null) {
+				this.manifest.update(id, lastModified, content);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a RDF file from an archive and passes it to the consumer.
+	 * @param entry RDF file read from the archive
+	 * @param consumer object that receives the <code>RdfFile</code> object
+	 */
+	private void readEntry(RdfArchive.Entry entry, Consumer<RdfFile> consumer) {
+		String folderName = entry.getFolderName();
+		if (!folderName.toLowerCase().contains("delete")) {
+			if (entry.getFileName().equals(RdfFile.FILE_PREFIX + folderName + RdfFile.FILE_EXTENSION)) {
+				if (this.manifest == null) {
+					RdfFile rdfFile = createRdfFile(getArchivePath(entry), '/', folderName, entry.getContent());
+					consumer.accept(rdfFile);
+				} else if (!this.manifest.isUnchanged(folderName, entry.getLastModified(), entry.getContent().length)) {
+					readIfChanged(getArchivePath(entry), '/', folderName, entry.getContent(), entry.getLastModified(), consumer);
+				}
+			} else {
+				log.warn("[WARN] File " + entry.getName() + " not read");
+			}
+		}
+	}
+	
+	/**
+	 * Creates a <code>RdfFile</code> object, which is parsed now or, in lazy mode, when its book is requested.
+	 */
+	private RdfFile createRdfFile(String catalogPath, char separator, String id, byte[] content) {
+		RdfFile rdfFile;
+		if (this.lazy) {
+			rdfFile = RdfFile.createLazy(catalogPath, separator, id, content, this.extractor, this.dictionary::intern);
+		} else {
+			rdfFile = new RdfFile(catalogPath, separator, id, content, this.extractor);
+		}
+		return rdfFile;
+	}
+	
+	/**
+	 * Parses files in the background. Files already parsed, e.g. because their books have been requested, are not parsed again.
+	 */
+	private void prefetch(List<RdfFile> rdfFiles) {
+		if (this.prefetchPool != null) {
+			this.prefetchPool.shutdownNow();
+		}
+		JenaSystem.init();
+		this.prefetchPool = Executors.newFixedThreadPool(this.prefetchThreads, task -> {
+			Thread thread = new Thread(task, "rdf-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int from = 0; from < rdfFiles.size(); from += FILES_PER_PREFETCH_TASK) {
+			List<RdfFile> files = rdfFiles.subList(from, Math.min(from + FILES_PER_PREFETCH_TASK, rdfFiles.size()));
+			this.prefetchPool.execute(() -> {
+				for (int i = 0; i < files.size() && !Thread.currentThread().isInterrupted(); i++) {
+					files.get(i).getBook();
+				}
+			});
+		}
+		this.prefetchPool.shutdown();
+	}
+	
+	/**
+	 * Waits until the files being parsed in the background have been parsed.
+	 * @param timeout maximum time to wait
+	 * @param unit unit of the timeout
+	 * @return <i>true</i> if all the files have been parsed or no file is being parsed, <i>false</i> if the timeout elapsed
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public boolean awaitPrefetch(long timeout, TimeUnit unit) throws InterruptedException {
+		return (this.prefetchPool == null) || this.prefetchPool.awaitTermination(timeout, unit);
+	}
+	
+	/**
+	 * Returns the path that identifies the folder of the archive that contains the folder of an entry, e.g. <i>rdf-files.tar!/cache/epub</i>.
+	 */
+	private String getArchivePath(RdfArchive.Entry entry) {
+		return this.archivePaths.computeIfAbsent(entry.getCatalogPath(), 
+				path -> this.rdfArchive.getPath() + (path.isEmpty() ? "!" : "!/" + path));
+	}
+	
+	/**
+	 * Number of threads used to read the RDF files. By default only one thread is used.
+	 * @param threads number of threads
+	 * @throws IllegalArgumentException if the number of threads is less than one
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be greater than zero.");
+		}
+		this.threads = threads;
+	}
+	
+	/**
+	 * Returns the number of threads used to read the RDF files.
+	 * @return number of threads
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+	
+	/**
+	 * Sets the lazy mode. In lazy mode files are only indexed when they are read, and each file is parsed when its book is requested for 
+	 * the first time. Files read from an archive keep their content in memory until they are parsed. By default files are parsed when they 
+	 * are read.
+	 * @param lazy <i>true</i> for parsing files when their books are requested, <i>false</i> for parsing them when they are read
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+	
+	/**
+	 * Checks if the lazy mode is set.
+	 * @return <i>true</i> if files are parsed when their books are requested, <i>false</i> otherwise
+	 */
+	public boolean isLazy() {
+		return this.lazy;
+	}
+	
+	/**
+	 * Sets the number of threads used to parse the files in the background in lazy mode, once they have been read. By default no file is 
+	 * parsed in the background.
+	 * @param prefetchThreads number of threads, zero for not parsing files in the background
+	 * @throws IllegalArgumentException if the number of threads is negative
+	 */
+	public void setPrefetchThreads(int prefetchThreads) {
+		if (prefetchThreads < 0) {
+			throw new IllegalArgumentException("Number of prefetch threads can not be negative.");
+		}
+		this.prefetchThreads = prefetchThreads;
+	}
+	
+	/**
+	 * Returns the number of threads used to parse the files in the background in lazy mode.
+	 * @return number of threads
+	 */
+	public int getPrefetchThreads() {
+		return this.prefetchThreads;
+	}
+	
+	/**
+	 * Sets the object used to extract the data from RDF files. By default a <code>StaxRdfExtractor</code> object is used.
+	 * @param extractor object used to extract the data from RDF files
+	 * @throws IllegalArgumentException if the extractor is null
+	 * @see RdfExtractor
+	 */
+	public void setExtractor(RdfExtractor extractor) {
+		if (extractor == null) {
+			throw new IllegalArgumentException("RDF extractor can not be null.");
+		}
+		this.extractor = extractor;
+	}
+	
+	/**
+	 * Returns the object used to extract the data from RDF files.
+	 * @return a <code>RdfExtractor</code> object
+	 */
+	public RdfExtractor getExtractor() {
+		return this.extractor;
+	}
+	
+	/**
+	 * Sets a manifest file, so only the RDF files that are new or have changed since the last run are read. The file is created the first time
+	 * the RDF files are read, and it is updated every time they are read again.
+	 * @param manifestFile file where the state of the RDF files is saved, or <i>null</i> for reading all the files
+	 * @throws IllegalArgumentException if the file exists but it is not a valid manifest
+	 * @throws IllegalStateException if the file cannot be read
+	 */
+	public void setManifest(File manifestFile) {
+		this.manifest = (manifestFile != null) ? new RdfManifest(manifestFile) : null;
+	}
+	
+	/**
+	 * Returns the manifest file used to read only new or changed RDF files.
+	 * @return the manifest file, or <i>null</i> if all the files are read
+	 */
+	public File getManifest() {
+		return (this.manifest != null) ? this.manifest.getFile() : null;
+	}
+	
+	/**
+	 * Returns the identifiers of the RDF files that have been deleted since the previous run. A manifest must have been set.
+	 * @return identifiers of the deleted RDF files, sorted, or an empty set if no file has been deleted
+	 */
+	public Set<String> getDeletedIds() {
+		return this.deletedIds;
+	}
+	
+	/**
+	 * Creates a new <code>CatalogRdf</code> object with the same settings and a copy of the files stored in memory. The manifest and the 
+	 * dictionary are shared, so the copy can go on reading only the files changed since this object read them.
+	 * @return the copy
+	 */
+	CatalogRdf copy() {
+		CatalogRdf copy = new CatalogRdf(this.rdfFilesFolder);
+		copy.threads = this.threads;
+		copy.extractor = this.extractor;
+		copy.manifest = this.manifest;
+		copy.manifestSavedOnRead = this.manifestSavedOnRead;
+		copy.lazy = this.lazy;
+		copy.prefetchThreads = this.prefetchThreads;
+		copy.dictionary = this.dictionary;
+		copy.rdfCatalog = new RdfCatalogMap(this.rdfCatalog);
+		return copy;
+	}
+	
+	/**
+	 * Sets an object that receives every book stored in memory by the {@link #readFiles()} method, except in lazy mode. If more than one thread 
+	 * has been set, it is called from several threads at the same time.
+	 * @param bookListener object that receives the books, or <i>null</i>
+	 */
+	void setBookListener(Consumer<Book> bookListener) {
+		this.bookListener = bookListener;
+	}
+	
+	/**
+	 * Returns the dictionary of the authors and languages of the books read. It allows to compare and group books by author or language 
+	 * using <code>int</code> codes.
+	 * @return the dictionary of authors and languages
+	 */
+	public BookDictionary getDictionary() {
+		return this.dictionary;
+	}
+	
 	/**
 	 * Returns the <code>RdfFile</code> objects collection.
-	 * @return a HashMap collection of <code>RdfFile</code> objects 
+	 * @return a Map collection of <code>RdfFile</code> objects 
 	 */
 	public Map<String, RdfFile> getRdfCatalog() {
 		return this.rdfCatalog;
 	}
 	
 	/**
-	 * Sets a HashMap collection of <code>RdfFile</code> objects that make up the Gutenberg catalog.
-	 * @param rdfCatalog a HashMap collection of <code>RdfFile</code> objects 
+	 * Sets a Map collection of <code>RdfFile</code> objects that make up the Gutenberg catalog.
+	 * @param rdfCatalog a Map collection of <code>RdfFile</code> objects 
 	 */
 	public void setRdfCatalog(Map<String, RdfFile> rdfCatalog) {
 		this.rdfCatalog = rdfCatalog;
 	}
 	
+	/**
+	 * Returns the <code>RdfFile</code> objects of several books. Files not stored in memory are read, in parallel if more than one thread has 
+	 * been set. If the files are in an archive, the archive is read only once for all of them. Books whose RDF file doesn't exist or cannot 
+	 * be read are left out.
+	 * @param idFiles RDF file identifiers
+	 * @return the <code>RdfFile</code> objects found, by identifier
+	 * @see #getRdfFile(String)
+	 */
+	public Map<String, RdfFile> getRdfFiles(Collection<String> idFiles) {
+		Map<String, RdfFile> result = new ConcurrentHashMap<>();
+		List<String> missing = new ArrayList<>();
+		for (String id : idFiles) {
+			RdfFile rdfFile = this.rdfCatalog.get(id);
+			if (rdfFile != null) {
+				result.put(id, rdfFile);
+			} else {
+				missing.add(id);
+			}
+		}
+		if (!missing.isEmpty()) {
+			if (this.rdfArchive != null) {
+				Map<String, RdfArchive.Entry> entries = findInArchive(missing);
+				readInParallel(missing, id -> {
+					RdfArchive.Entry entry = entries.get(id);
+					if (entry != null) {
+						result.put(id, createRdfFile(id, entry));
+					} else {
+						log.warn("[WARN] RDF file not found. Id: " + id);
+					}
+				});
+			} else {
+				readInParallel(missing, id -> result.put(id, getRdfFile(id)));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Reads the RDF files of several books, in parallel if more than one thread has been set. Errors reading a file are logged and the file 
+	 * is skipped.
+	 */
+	private void readInParallel(List<String> idFiles, Consumer<String> reader) {
+		Consumer<String> safeReader = id -> {
+			try {
+				reader.accept(id);
+			} catch (IllegalArgumentException e) {
+				log.warn("[WARN] RDF file not found. Id: " + id);
+			} catch (RuntimeException e) {
+				log.warn("[WARN] RDF file not read. Id: " + id + ". " + e.toString());
+			}
+		};
+		if (this.threads > 1 && idFiles.size() > 1) {
+			ForkJoinPool pool = createPool();
+			try {
+				pool.submit(() -> idFiles.parallelStream().forEach(safeReader)).join();
+			} finally {
+				pool.shutdown();
+			}
+		} else {
+			idFiles.forEach(safeReader);
+		}
+	}
+	
 	/**
 	 * Returns a <code>RdfFile</code> object by its identifier.
 	 * @param idFile RDF file identifier
@@ -111,14 +876,92 @@ public class CatalogRdf {
 	public RdfFile getRdfFile(String idFile) {
 		RdfFile rdfFile = this.rdfCatalog.get(idFile);
 		if (rdfFile == null) {
-			rdfFile = new RdfFile(new File(rdfFilesFolder.getAbsolutePath() + System.getProperty("file.separator") + idFile));
+			if (this.rdfArchive != null) {
+				rdfFile = findInArchive(idFile);
+			} else {
+				rdfFile = new RdfFile(this.rdfFilesPath, File.separatorChar, idFile, null, this.extractor);
+			}
+			this.dictionary.intern(rdfFile.getBook());
 		}
 		return rdfFile;
 	}
 	
+	/**
+	 * Looks for a RDF file in the archive. The archive is read until the file is found, unless the archive is known not to contain it.
+	 */
+	private RdfFile findInArchive(String idFile) {
+		RdfArchive.Entry entry = null;
+		try {
+			entry = this.rdfArchive.find(idFile);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading RDF archive: " + e.getMessage());
+		}
+		if (entry == null) {
+			throw new IllegalArgumentException("Wrong rdf file. Id: " + idFile);
+		}
+		return new RdfFile(getArchivePath(entry), '/', idFile, entry.getContent(), this.extractor);
+	}
+	
+	/**
+	 * Looks for several RDF files in the archive, reading it only once. If the archive cannot be read, no file is returned.
+	 */
+	private Map<String, RdfArchive.Entry> findInArchive(Collection<String> idFiles) {
+		Map<String, RdfArchive.Entry> result = Collections.emptyMap();
+		try {
+			result = this.rdfArchive.find(idFiles);
+		} catch (IOException e) {
+			log.error("[ERROR] Error reading RDF archive. " + e.toString());
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates the <code>RdfFile</code> object of a file read from the archive by {@link #findInArchive(Collection)}.
+	 */
+	private RdfFile createRdfFile(String idFile, RdfArchive.Entry entry) {
+		RdfFile rdfFile = new RdfFile(getArchivePath(entry), '/', idFile, entry.getContent(), this.extractor);
+		this.dictionary.intern(rdfFile.getBook());
+		return rdfFile;
+	}
+	
 	private String getCurrentTime() {
 		Date date = new Date();
 		DateFormat hourFormat = new SimpleDateFormat("HH:mm:ss dd/MM/yyyy");
 		return hourFormat.format(date);
 	}
+
+	/**
+	 * Task that reads a range of folders. Large ranges are split in two halves so idle threads can steal work.
+	 */
+	private class ReadFoldersTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -4587163236210594716L;
+
+		private final File[] folders;
+		
+		private final int from;
+		
+		private final int to;
+		
+		private final transient Consumer<RdfFile> consumer;
+		
+		ReadFoldersTask(File[] folders, int from, int to, Consumer<RdfFile> consumer) {
+			this.folders = folders;
+			this.from = from;
+			this.to = to;
+			this.consumer = consumer;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= FOLDERS_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					readFolder(folders[i], consumer);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ReadFoldersTask(folders, from, middle, consumer), new ReadFoldersTask(folders, middle, to, consumer));
+			}
+		}
+	}
 }
@@ -0,0 +1,270 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Binary snapshot of the book catalog. It allows to save the parsed catalog and to query it later without reading the RDF files again.<p>
+ * The snapshot file is memory-mapped, so it is not loaded in memory as a whole and books are decoded only when they are requested. The format is:
+ * <ul>
+ * <li>Header: magic number, version, number of books, number of strings, position of the string table and position of the index</li>
+ * <li>String table: position of each string, followed by the strings encoded as UTF-8. Every different string is stored only once</li>
+ * <li>Index: a record per book, sorted by book identifier, with the position in the string table of its identifier, author, title and language 
+ * (-1 for null values). Books are found by binary search</li>
+ * </ul>
+ * All numbers are stored as big-endian integers.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see Book
+ */
+class CatalogSnapshot {
+
+	/**
+	 * Magic number that identifies snapshot files ("JGCS")
+	 */
+	static final int MAGIC = 0x4A474353;
+	
+	/**
+	 * Version of the snapshot format
+	 */
+	static final int VERSION = 1;
+	
+	private static final int HEADER_SIZE = 24;
+	
+	/**
+	 * Number of integers of each index record
+	 */
+	private static final int RECORD_FIELDS = 4;
+	
+	private static final int NULL_STRING = -1;
+	
+	/**
+	 * Content of the snapshot file
+	 */
+	private final ByteBuffer buffer;
+	
+	private final int books;
+	
+	private final int strings;
+	
+	private final int stringTable;
+	
+	private final int index;
+	
+	
+	private CatalogSnapshot(ByteBuffer buffer) {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Invalid snapshot file.");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("Unsupported snapshot version: " + buffer.getInt(4));
+		}
+		this.buffer = buffer;
+		this.books = buffer.getInt(8);
+		this.strings = buffer.getInt(12);
+		this.stringTable = buffer.getInt(16);
+		this.index = buffer.getInt(20);
+		if (this.books < 0 || this.strings < 0 || this.stringTable < HEADER_SIZE || this.index < this.stringTable
+				|| (long) this.index + (long) this.books * RECORD_FIELDS * Integer.BYTES > buffer.capacity()) {
+			throw new IllegalArgumentException("Invalid snapshot file.");
+		}
+	}
+	
+	/**
+	 * Opens a snapshot file. The file is memory-mapped.
+	 * @param file snapshot file
+	 * @return the snapshot
+	 * @throws IllegalArgumentException if the file is not a valid snapshot
+	 * @throws IllegalStateException if the file cannot be read
+	 */
+	static CatalogSnapshot open(File file) {
+		if (file == null || !file.isFile()) {
+			throw new IllegalArgumentException("Invalid path to snapshot file.");
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading snapshot file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves the books of a catalog as a snapshot file. The file is written to a temporary file first, so a previous snapshot is not lost 
+	 * if the write fails.
+	 * @param rdfCatalog catalog to save
+	 * @param file snapshot file
+	 * @throws IllegalStateException if the file cannot be written
+	 */
+	static void save(Map<String, RdfFile> rdfCatalog, File file) {
+		Map<String, Book> sortedBooks = new TreeMap<>();
+		rdfCatalog.forEach((id, rdfFile) -> sortedBooks.put(id, rdfFile.getBook()));
+		
+		Map<String, Integer> positions = new HashMap<>();
+		List<byte[]> encoded = new ArrayList<>();
+		int[] records = new int[sortedBooks.size() * RECORD_FIELDS];
+		int i = 0;
+		for (Map.Entry<String, Book> entry : sortedBooks.entrySet()) {
+			Book book = entry.getValue();
+			records[i++] = addString(entry.getKey(), positions, encoded);
+			records[i++] = addString(book.getAuthor(), positions, encoded);
+			records[i++] = addString(book.getTitle(), positions, encoded);
+			records[i++] = addString(book.getLanguage(), positions, encoded);
+		}
+		
+		Path path = file.toPath().toAbsolutePath();
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				writeSnapshot(output, sortedBooks.size(), encoded, records);
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error saving snapshot file: " + e.getMessage());
+		}
+	}
+	
+	private static int addString(String value, Map<String, Integer> positions, List<byte[]> encoded) {
+		int result = NULL_STRING;
+		if (value != null) {
+			result = positions.computeIfAbsent(value, v -> {
+				encoded.add(v.getBytes(StandardCharsets.UTF_8));
+				return encoded.size() - 1;
+			});
+		}
+		return result;
+	}
+	
+	private static void writeSnapshot(DataOutputStream output, int books, List<byte[]> encoded, int[] records) throws IOException {
+		long stringBytes = 0;
+		for (byte[] string : encoded) {
+			stringBytes += string.length;
+		}
+		long stringTable = HEADER_SIZE;
+		long index = stringTable + (encoded.size() + 1L) * Integer.BYTES + stringBytes;
+		if (index + (long) records.length * Integer.BYTES > Integer.MAX_VALUE) {
+			throw new IOException("Catalog too large for a snapshot");
+		}
+		
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeInt(books);
+		output.writeInt(encoded.size());
+		output.writeInt((int) stringTable);
+		output.writeInt((int) index);
+		
+		int position = (int) (stringTable + (encoded.size() + 1L) * Integer.BYTES);
+		for (byte[] string : encoded) {
+			output.writeInt(position);
+			position += string.length;
+		}
+		output.writeInt(position);
+		for (byte[] string : encoded) {
+			output.write(string);
+		}
+		for (int record : records) {
+			output.writeInt(record);
+		}
+	}
+	
+	/**
+	 * Returns a book by its identifier.
+	 * @param id book identifier
+	 * @return the book, or <i>null</i> if the book is not in the snapshot
+	 */
+	Book getBook(String id) {
+		Book book = null;
+		if (id != null) {
+			int record = find(id);
+			if (record >= 0) {
+				int position = this.index + record * RECORD_FIELDS * Integer.BYTES;
+				book = new Book();
+				book.setId(id);
+				book.setAuthor(getString(this.buffer.getInt(position + Integer.BYTES)));
+				book.setTitle(getString(this.buffer.getInt(position + 2 * Integer.BYTES)));
+				book.setLanguage(getString(this.buffer.getInt(position + 3 * Integer.BYTES)));
+			}
+		}
+		return book;
+	}
+	
+	/**
+	 * Binary search of a book identifier in the index.
+	 * @return number of the record of the book, or -1 if it is not found
+	 */
+	private int find(String id) {
+		int result = -1;
+		int low = 0;
+		int high = this.books - 1;
+		while (result < 0 && low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = getString(this.buffer.getInt(this.index + middle * RECORD_FIELDS * Integer.BYTES)).compareTo(id);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				result = middle;
+			}
+		}
+		return result;
+	}
+	
+	private String getString(int string) {
+		String result = null;
+		if (string != NULL_STRING) {
+			if (string < 0 || string >= this.strings) {
+				throw new IllegalStateException("Corrupted snapshot file.");
+			}
+			int start = this.buffer.getInt(this.stringTable + string * Integer.BYTES);
+			int end = this.buffer.getInt(this.stringTable + (string + 1) * Integer.BYTES);
+			byte[] bytes = new byte[end - start];
+			ByteBuffer view = this.buffer.duplicate();
+			view.position(start);
+			view.get(bytes);
+			result = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return number of books in the snapshot
+	 */
+	int size() {
+		return this.books;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A <code>Spliterator</code> over an <code>Iterator</code> of unknown size, which is split in batches of a fixed number of elements.<p>
+ * The spliterators of the JDK for iterators split in batches of growing size, starting with 1024 elements, so a stream over a few thousand RDF 
+ * files is processed by one or two threads. Parsing a RDF file is expensive compared to reading its name, so small fixed batches spread the 
+ * work between all the threads of a parallel stream.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @param <T> type of the elements
+ * @see CatalogRdf#streamFiles()
+ */
+class FixedBatchSpliterator<T> implements Spliterator<T> {
+
+	private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+	
+	/**
+	 * Source of the elements
+	 */
+	private final Iterator<T> iterator;
+	
+	/**
+	 * Number of elements of the spliterators returned by <code>trySplit()</code>
+	 */
+	private final int batchSize;
+	
+	
+	/**
+	 * @param iterator source of the elements, it must not return <i>null</i> elements
+	 * @param batchSize number of elements taken from the iterator each time the spliterator is split
+	 * @throws IllegalArgumentException if the batch size is not greater than zero
+	 */
+	FixedBatchSpliterator(Iterator<T> iterator, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be greater than zero.");
+		}
+		this.iterator = iterator;
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Takes the next batch of elements from the iterator.
+	 * @return a spliterator over the batch, or <i>null</i> if there are no elements left
+	 */
+	@Override
+	public Spliterator<T> trySplit() {
+		Spliterator<T> result = null;
+		Object[] batch = new Object[batchSize];
+		int size = 0;
+		while (size < batchSize && iterator.hasNext()) {
+			batch[size++] = iterator.next();
+		}
+		if (size > 0) {
+			result = Spliterators.spliterator(batch, 0, size, CHARACTERISTICS);
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		boolean result = iterator.hasNext();
+		if (result) {
+			action.accept(iterator.next());
+		}
+		return result;
+	}
+	
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		iterator.forEachRemaining(action);
+	}
+	
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+	
+	@Override
+	public int characteristics() {
+		return CHARACTERISTICS;
+	}
+}
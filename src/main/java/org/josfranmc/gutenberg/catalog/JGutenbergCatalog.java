@@ -21,15 +21,39 @@
  */
 package org.josfranmc.gutenberg.catalog;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.josfranmc.gutenberg.db.DbConnection;
 import org.josfranmc.gutenberg.db.DbConnectionBuilder;
 import org.josfranmc.gutenberg.files.PropertiesFile;
+import org.josfranmc.gutenberg.index.FacetIndex;
+import org.josfranmc.gutenberg.index.InvertedIndex;
+import org.josfranmc.gutenberg.index.PrefixIndex;
+import org.josfranmc.gutenberg.index.SearchHit;
+import org.josfranmc.gutenberg.index.TitleMatch;
+import org.josfranmc.gutenberg.index.TrigramIndex;
+import org.josfranmc.gutenberg.server.CatalogServer;
 
 /**
  * It allows to manager the Gutenberg project book catalog.<p>
@@ -37,10 +61,14 @@ import org.josfranmc.gutenberg.files.PropertiesFile;
  * There are a series of folders inside the <i>cache/epub</i> directory, a folder for each book. The name of each folder is the identifier of each book.
  * Inside each folder is the corresponding RDF file whose name is "pg+<i>book_identifier</i>+.rdf".<p>
  * e.g.: For book <i>45238</i> there is a folder called <i>45238</i> and within it a file called <i>pg45238.rdf</i><p>
+ * The RDF files can also be read directly from the downloaded archive (<i>.tar</i>, <i>.tar.zip</i>, <i>.tar.bz2</i> or <i>.tar.gz</i>).<p>
  * You can query the RDF files and you can create a database where to load the data.
  * By default, if no database is specified a HSQL database is created. This database is located in a folder called <i>catalog</i> and its name is <i>gutenberg</i>.
  * Setting data are loaded from a resource file which path is <i>db/DbConnection.properties</i>.<br>
- * Alternativaly, you can specify a setting file to use either a MySQL or a PostgresSQL database.
+ * Alternativaly, you can specify a setting file to use either a MySQL or a PostgresSQL database.<p>
+ * Books can be searched by the words of their title or author through an in-memory inverted index (see {@link #search(String)}), and titles 
+ * and authors can be autocompleted (see {@link #complete(String)}). Books can also be filtered and counted by language and author (see 
+ * {@link #getFacetIndex()}), and books with similar titles can be found (see {@link #findSimilarTitles(String, double, int)}).
  * @author Jose Francisco Mena Ceca
  * @version 2.2
  */
@@ -49,6 +77,16 @@ public class JGutenbergCatalog {
 	private static final Logger log = LogManager.getLogger(JGutenbergCatalog.class);
 	
 	private static final String DB_DEFAULT = "db/DbConnection.properties";
+	
+	/**
+	 * Maximum number of books returned by the {@link #search(String)} method
+	 */
+	public static final int DEFAULT_SEARCH_LIMIT = 10;
+	
+	/**
+	 * Number of book identifiers resolved at once when they are read from the standard input
+	 */
+	private static final int LOOKUP_BATCH_SIZE = 1000;
 
 	/**
 	 * Catalog of RDF files
@@ -64,11 +102,46 @@ public class JGutenbergCatalog {
 	 * Delete previous data in database
 	 */
 	private boolean resetDb;
+	
+	/**
+	 * Load the database while RDF files are read
+	 */
+	private boolean streaming;
+	
+	/**
+	 * Snapshot of a catalog previously read
+	 */
+	private CatalogSnapshot snapshot;
+	
+	/**
+	 * Books recently retrieved
+	 */
+	private BookCache bookCache;
+	
+	/**
+	 * Index of the titles and authors of the books read
+	 */
+	private InvertedIndex searchIndex;
+	
+	/**
+	 * Index of the titles and authors used for autocompletion
+	 */
+	private PrefixIndex prefixIndex;
+	
+	/**
+	 * Index of the books by language and author
+	 */
+	private FacetIndex facetIndex;
+	
+	/**
+	 * Index of the trigrams of the titles, used to find similar titles
+	 */
+	private TrigramIndex trigramIndex;
 
 	
 	/**
 	 * Creates the object for managing the construction of the catalog.
-	 * @param rdfFilesPath path to the folder that store the RDF files
+	 * @param rdfFilesPath path to the folder that store the RDF files, or to the archive that contains them
 	 */
 	public JGutenbergCatalog(String rdfFilesPath) {
 		if (rdfFilesPath == null) {
@@ -80,17 +153,154 @@ public class JGutenbergCatalog {
 		}
 
 		this.catalogRdf = new CatalogRdf(path);
+		this.catalogRdf.setManifestSavedOnRead(false);
 		
-		this.catalogDb = new CatalogDb(getDbConnection(DB_DEFAULT));
+		this.catalogDb = createCatalogDb(DB_DEFAULT);
 		
 		this.resetDb = false;
+		this.streaming = false;
+		this.bookCache = new BookCache(BookCache.DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new version of a catalog, with its settings, its database and a copy of its RDF files. The snapshot is not kept, as it 
+	 * would hide the changes of the RDF files.
+	 */
+	private JGutenbergCatalog(JGutenbergCatalog previous) {
+		this.catalogRdf = previous.catalogRdf.copy();
+		this.catalogDb = previous.catalogDb;
+		this.resetDb = previous.resetDb;
+		this.streaming = previous.streaming;
+		this.bookCache = new BookCache(previous.bookCache.getCapacity());
+	}
+	
+	/**
+	 * Returns a new version of the catalog, with the RDF files read again. The new version has the same settings and database, and starts 
+	 * with a copy of the books of this catalog, so if a manifest has been set only the RDF files new or changed since they were read are 
+	 * parsed, and the deleted ones are removed.<br>
+	 * This object is not modified, so it can go on being used while the new version is built and then be replaced by it.
+	 * @return the new version of the catalog
+	 */
+	public JGutenbergCatalog reload() {
+		JGutenbergCatalog next = new JGutenbergCatalog(this);
+		next.readRdfFiles();
+		return next;
 	}
 	
 	/**
 	 * It reads the book catalog, which is in the form of RDF files. The data is stored in memory.<br>
+	 * The books are added to the search index, unless the lazy mode is set. In that case the index is built by the first search.<br>
+	 * If a manifest has been set and the index by language and author has already been built, it is updated with the books read and the books 
+	 * deleted. The changes of the RDF files are commited to the manifest kept in memory, but the manifest file is only saved by {@link #loadDb()}, 
+	 * once the books have been commited to the database.
 	 */
 	public void readRdfFiles() {
-		this.catalogRdf.readFiles();
+		FacetIndex facets = (this.catalogRdf.getManifest() != null && !this.catalogRdf.isLazy()) ? this.facetIndex : null;
+		if (facets != null) {
+			this.catalogRdf.setBookListener(facets::add);
+		}
+		try {
+			this.catalogRdf.readFiles();
+		} finally {
+			this.catalogRdf.setBookListener(null);
+		}
+		this.catalogRdf.commitManifest();
+		if (facets != null) {
+			for (String id : this.catalogRdf.getDeletedIds()) {
+				facets.remove(id);
+			}
+		}
+		this.facetIndex = facets;
+		this.bookCache.clear();
+		this.searchIndex = null;
+		this.prefixIndex = null;
+		this.trigramIndex = null;
+		if (!this.catalogRdf.isLazy()) {
+			this.searchIndex = createSearchIndex();
+		}
+	}
+	
+	/**
+	 * Sets the number of threads used to read the RDF files. By default only one thread is used.
+	 * @param threads number of threads
+	 * @throws IllegalArgumentException if the number of threads is less than one
+	 */
+	public void setThreads(int threads) {
+		this.catalogRdf.setThreads(threads);
+	}
+	
+	/**
+	 * Sets the object used to extract the data from RDF files. By default a streaming StAX extractor is used.
+	 * @param extractor object used to extract the data from RDF files
+	 * @see RdfExtractor
+	 */
+	public void setExtractor(RdfExtractor extractor) {
+		this.catalogRdf.setExtractor(extractor);
+	}
+	
+	/**
+	 * Returns the dictionary of the authors and languages of the books read, which allows to compare and group books by author or language.
+	 * @return the dictionary of authors and languages
+	 */
+	public BookDictionary getDictionary() {
+		return this.catalogRdf.getDictionary();
+	}
+	
+	/**
+	 * Sets a manifest file, so only the RDF files that are new or have changed since the last run are read, and therefore loaded in the database.
+	 * The file is saved by the {@link #loadDb()} method once the books read have been commited to the database, so if the load fails the same 
+	 * files are read again in the next run. Reading the RDF files without loading them in the database doesn't save the file.
+	 * @param manifestPath path to the manifest file, or <i>null</i> for reading all the files
+	 * @throws IllegalArgumentException if the file exists but it is not a valid manifest
+	 */
+	public void setManifest(String manifestPath) {
+		this.catalogRdf.setManifest((manifestPath != null) ? new File(manifestPath) : null);
+	}
+	
+	/**
+	 * Returns a stream of the books of the catalog, read from the RDF files as the stream is consumed. The stream can be made parallel and 
+	 * must be closed after use.
+	 * @return a stream of the books of the catalog
+	 * @throws IllegalStateException if the RDF files cannot be read
+	 * @see CatalogRdf#streamBooks()
+	 */
+	public Stream<Book> streamBooks() {
+		return this.catalogRdf.streamBooks();
+	}
+	
+	/**
+	 * Returns a publisher of the books of the catalog, which reads the RDF files only as fast as its subscribers request books. 
+	 * Every subscriber reads the whole catalog and can cancel its subscription at any time.
+	 * @return a publisher of the books of the catalog
+	 * @see CatalogRdf#publishBooks()
+	 */
+	public Flow.Publisher<Book> publishBooks() {
+		return this.catalogRdf.publishBooks();
+	}
+	
+	/**
+	 * Sets the lazy mode, in which RDF files are only indexed when they are read and each one is parsed when its book is requested.
+	 * @param lazy <i>true</i> for parsing RDF files when their books are requested, <i>false</i> for parsing them when they are read
+	 */
+	public void setLazy(boolean lazy) {
+		this.catalogRdf.setLazy(lazy);
+	}
+	
+	/**
+	 * Sets the number of threads used to parse the RDF files in the background in lazy mode.
+	 * @param prefetchThreads number of threads, zero for not parsing files in the background
+	 * @throws IllegalArgumentException if the number of threads is negative
+	 */
+	public void setPrefetchThreads(int prefetchThreads) {
+		this.catalogRdf.setPrefetchThreads(prefetchThreads);
+	}
+	
+	/**
+	 * Returns the identifiers of the books whose RDF files have been deleted since the previous run. A manifest file must have been set.
+	 * @return identifiers of the deleted books
+	 */
+	public Set<String> getDeletedBooks() {
+		return this.catalogRdf.getDeletedIds();
 	}
 	
 	/**
@@ -102,7 +312,14 @@ public class JGutenbergCatalog {
 	}
 
 	/**
-	 * Sets the database setting to use for load data.
+	 * Sets the database setting to use for load data.<br>
+	 * Besides the connection data, the setting file may contain the following optional properties:
+	 * <ul>
+	 * <li>BatchSize: number of books inserted in each batch (default 1)</li>
+	 * <li>CommitInterval: number of books saved between commits, 0 for commiting only at the end of the load (default 0)</li>
+	 * <li>ExistenceCheck: how to check if a book is already in the database, QUERY or PRELOAD (default QUERY)</li>
+	 * <li>LoadMode: how to save books, INSERT, UPSERT or COPY (default INSERT). COPY is only available for PostgreSQL databases</li>
+	 * </ul>
 	 * @param dbConfigFile database setting file
 	 */
 	public void setDatabase(String dbConfigFile) {
@@ -110,7 +327,8 @@ public class JGutenbergCatalog {
 			throw new IllegalArgumentException("Invalid null value for database setting file");
 		}
 		
-		this.catalogDb = new CatalogDb(getDbConnection(dbConfigFile));
+		this.catalogDb = createCatalogDb(dbConfigFile);
+		this.bookCache.clear();
 	}
 	
 	/**
@@ -121,29 +339,381 @@ public class JGutenbergCatalog {
 		this.resetDb = resetDb;
 	}
 	
+	/**
+	 * Sets if the database is loaded while the RDF files are read. In this mode the RDF files are not kept in memory: books are passed 
+	 * from the parsers to the database through a bounded queue, so memory usage doesn't depend on the size of the catalog.<br>
+	 * It is only applied if the RDF files have not been read before.
+	 * @param streaming <i>true</i> for loading the database while the RDF files are read, <i>false</i> otherwise
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+	
 	/**
 	 * It loads the book catalog in a database.<br>
 	 * If it hasn't done it before, the RDF files are read.<br>
-	 * It only loads new information. RDF files already loaded are ignored.
+	 * Books already in the database are ignored, unless the setting file selects <i>LoadMode UPSERT</i>: then they are updated with the 
+	 * information read (see {@link CatalogDb#load(boolean)}).
 	 */
 	public void loadDb() {
-		if (catalogRdf.getRdfCatalog().isEmpty()) {
-			catalogRdf.readFiles();
+		if (this.streaming && catalogRdf.getRdfCatalog().isEmpty()) {
+			InvertedIndex index = new InvertedIndex();
+			CatalogPipeline pipeline = new CatalogPipeline(catalogRdf, catalogDb, CatalogPipeline.DEFAULT_QUEUE_CAPACITY);
+			pipeline.setListener(index::add);
+			pipeline.run(this.resetDb);
+			index.compact();
+			this.searchIndex = index;
+			this.prefixIndex = null;
+			this.trigramIndex = null;
+			this.facetIndex = null;
+		} else {
+			if (catalogRdf.getRdfCatalog().isEmpty()) {
+				catalogRdf.readFiles();
+				this.searchIndex = createSearchIndex();
+				this.prefixIndex = null;
+				this.trigramIndex = null;
+				this.facetIndex = null;
+			}
+			catalogDb.setRdfCatalog(catalogRdf.getRdfCatalog());
+			if (catalogDb.load(this.resetDb)) {
+				catalogRdf.saveManifest();
+			} else {
+				log.error("[ERROR] Catalog not commited to DB. The manifest has not been saved.");
+			}
 		}
-		catalogDb.setRdfCatalog(catalogRdf.getRdfCatalog());
-		catalogDb.load(this.resetDb);
+		this.bookCache.clear();
 	}
 	
 	/**
-	 * Returns a <code>Book</code> object .
+	 * Returns a <code>Book</code> object. The book is looked for in the following order:
+	 * <ol>
+	 * <li>The cache of books recently retrieved</li>
+	 * <li>The snapshot, if one has been loaded</li>
+	 * <li>The RDF files read in memory</li>
+	 * <li>The database</li>
+	 * <li>The RDF file of the book, which is read</li>
+	 * </ol>
+	 * Books not found in the cache are added to it.
 	 * @param id book identifier
 	 * @return the book acording to the identifier that is passed
+	 * @see #getBookCache()
 	 */
 	public Book getBook(String id) {
-		return catalogRdf.getRdfFile(id).getBook();
+		Book book = this.bookCache.get(id);
+		if (book == null) {
+			book = findBook(id);
+			this.bookCache.put(book);
+		}
+		return book;
+	}
+	
+	private Book findBook(String id) {
+		Book book = findLoadedBook(id);
+		if (book == null) {
+			book = catalogDb.findBook(id);
+		}
+		if (book == null) {
+			book = catalogRdf.getRdfFile(id).getBook();
+		}
+		return book;
+	}
+	
+	/**
+	 * Looks for a book in the snapshot and in the RDF files read in memory.
+	 */
+	private Book findLoadedBook(String id) {
+		Book book = (this.snapshot != null) ? this.snapshot.getBook(id) : null;
+		if (book == null) {
+			RdfFile rdfFile = catalogRdf.getRdfCatalog().get(id);
+			if (rdfFile != null) {
+				book = rdfFile.getBook();
+			}
+		}
+		return book;
+	}
+	
+	/**
+	 * Returns several books by their identifiers. Books are looked for in the same places as by the {@link #getBook(String)} method, 
+	 * but a step at a time for all of them:
+	 * <ol>
+	 * <li>The cache, the snapshot and the RDF files read in memory</li>
+	 * <li>The database, with a single query per chunk of identifiers</li>
+	 * <li>The RDF files of the remaining books, which are read in parallel if more than one thread has been set</li>
+	 * </ol>
+	 * Books not found in the cache are added to it.
+	 * @param ids book identifiers
+	 * @return the books, in the same order as their identifiers, with <i>null</i> for the books that have not been found
+	 * @throws IllegalArgumentException if the collection of identifiers is <i>null</i>
+	 */
+	public List<Book> getBooks(Collection<String> ids) {
+		if (ids == null) {
+			throw new IllegalArgumentException("Invalid null value for book identifiers");
+		}
+		Map<String, Book> books = new HashMap<>();
+		Map<String, Book> found = new HashMap<>();
+		Set<String> missing = new LinkedHashSet<>();
+		for (String id : ids) {
+			if (id != null && !books.containsKey(id) && !found.containsKey(id) && !missing.contains(id)) {
+				Book book = this.bookCache.get(id);
+				if (book != null) {
+					books.put(id, book);
+				} else {
+					book = findLoadedBook(id);
+					if (book != null) {
+						found.put(id, book);
+					} else {
+						missing.add(id);
+					}
+				}
+			}
+		}
+		if (!missing.isEmpty()) {
+			Map<String, Book> fromDb = catalogDb.findBooks(missing);
+			found.putAll(fromDb);
+			missing.removeAll(fromDb.keySet());
+			for (RdfFile rdfFile : catalogRdf.getRdfFiles(missing).values()) {
+				found.put(rdfFile.getId(), rdfFile.getBook());
+			}
+		}
+		for (Book book : found.values()) {
+			this.bookCache.put(book);
+		}
+		books.putAll(found);
+		List<Book> result = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			result.add((id != null) ? books.get(id) : null);
+		}
+		return result;
+	}
+	
+	/**
+	 * Searches the books that contain all the words of a query in their title or author. Words are compared ignoring case and accents.
+	 * @param query the words to search
+	 * @return the {@value #DEFAULT_SEARCH_LIMIT} most relevant books found, from the most relevant to the least relevant
+	 * @see #search(String, InvertedIndex.Operator, int)
+	 */
+	public List<SearchHit> search(String query) {
+		return search(query, InvertedIndex.Operator.AND, DEFAULT_SEARCH_LIMIT);
 	}
 	
-	private DbConnection getDbConnection(String dbConfigFile) {
+	/**
+	 * Searches the books that contain the words of a query in their title or author.<br>
+	 * The index is built when the RDF files are read or the database is loaded. If it has not been built yet, it is built now from the books 
+	 * in memory or, if there are none, by reading the RDF files. If a manifest has been set, only the books read in this run are indexed.
+	 * @param query the words to search
+	 * @param operator whether books must contain all the words or any of them
+	 * @param limit maximum number of books returned
+	 * @return the books found, from the most relevant to the least relevant
+	 * @throws IllegalArgumentException if the operator is <i>null</i> or the limit is less than one
+	 */
+	public List<SearchHit> search(String query, InvertedIndex.Operator operator, int limit) {
+		return getSearchIndex().search(query, operator, limit);
+	}
+	
+	/**
+	 * Returns the index used to search books, building it if needed.
+	 * @return the search index
+	 */
+	public synchronized InvertedIndex getSearchIndex() {
+		if (this.searchIndex == null) {
+			this.searchIndex = createSearchIndex();
+		}
+		return this.searchIndex;
+	}
+	
+	private InvertedIndex createSearchIndex() {
+		InvertedIndex index = new InvertedIndex();
+		forEachBook(index::add);
+		index.compact();
+		log.info("[INFO] Books indexed for search: " + index.size());
+		return index;
+	}
+	
+	/**
+	 * Passes every book to a consumer: the books in memory or, if there are none, the books read from the RDF files.
+	 */
+	private void forEachBook(Consumer<Book> consumer) {
+		if (catalogRdf.getRdfCatalog().isEmpty()) {
+			try (Stream<Book> books = catalogRdf.streamBooks()) {
+				books.forEach(consumer);
+			}
+		} else {
+			for (RdfFile rdfFile : catalogRdf.getRdfCatalog().values()) {
+				consumer.accept(rdfFile.getBook());
+			}
+		}
+	}
+	
+	/**
+	 * Returns the titles and authors that begin with a prefix, ignoring case, accents and punctuation.
+	 * @param prefix the beginning of a title or author
+	 * @return the {@value #DEFAULT_SEARCH_LIMIT} titles and authors with more books that begin with the prefix
+	 * @see #complete(String, int)
+	 */
+	public List<PrefixIndex.Completion> complete(String prefix) {
+		return complete(prefix, DEFAULT_SEARCH_LIMIT);
+	}
+	
+	/**
+	 * Returns the titles and authors that begin with a prefix, ignoring case, accents and punctuation.<br>
+	 * The index used is built the first time it is needed, from the books in memory or, if there are none, by reading the RDF files, unless 
+	 * it has been loaded from a file (see {@link #loadPrefixIndex(String)}).
+	 * @param prefix the beginning of a title or author
+	 * @param limit maximum number of titles and authors returned
+	 * @return the titles and authors that begin with the prefix, from the one with more books to the one with less books
+	 * @throws IllegalArgumentException if the limit is less than one
+	 */
+	public List<PrefixIndex.Completion> complete(String prefix, int limit) {
+		return getPrefixIndex().complete(prefix, limit);
+	}
+	
+	/**
+	 * Returns the index used for autocompletion, building it if needed.
+	 * @return the prefix index
+	 */
+	public synchronized PrefixIndex getPrefixIndex() {
+		if (this.prefixIndex == null) {
+			PrefixIndex.Builder builder = new PrefixIndex.Builder();
+			forEachBook(builder::add);
+			this.prefixIndex = builder.build();
+			log.info("[INFO] Titles and authors indexed for autocompletion: " + this.prefixIndex.size());
+		}
+		return this.prefixIndex;
+	}
+	
+	/**
+	 * Returns the index of the books by language and author, building it if needed from the books in memory or, if there are none, by reading 
+	 * the RDF files. It allows to filter books and count them by language or author.
+	 * @return the index of the books by language and author
+	 */
+	public synchronized FacetIndex getFacetIndex() {
+		if (this.facetIndex == null) {
+			FacetIndex index = new FacetIndex();
+			forEachBook(index::add);
+			this.facetIndex = index;
+			log.info("[INFO] Books indexed by language and author: " + index.size());
+		}
+		return this.facetIndex;
+	}
+	
+	/**
+	 * Finds the books whose title is similar to a given title, ignoring case, accents, punctuation and line breaks. Candidates are selected 
+	 * through an index of the trigrams of the titles, and only they are compared with the edit distance.
+	 * @param title the title searched
+	 * @param minSimilarity minimum similarity of the titles found, from 0 to 1 (1 for titles that only differ in case, accents or punctuation)
+	 * @param limit maximum number of books returned
+	 * @return the books found, from the most similar to the least similar
+	 * @throws IllegalArgumentException if the similarity is not between 0 and 1 or the limit is less than one
+	 * @see TrigramIndex#find(String, double, int)
+	 */
+	public List<TitleMatch> findSimilarTitles(String title, double minSimilarity, int limit) {
+		return getTrigramIndex().find(title, minSimilarity, limit);
+	}
+	
+	/**
+	 * Returns the index of the trigrams of the titles, building it if needed from the books in memory or, if there are none, by reading the 
+	 * RDF files.
+	 * @return the index of the trigrams of the titles
+	 */
+	public synchronized TrigramIndex getTrigramIndex() {
+		if (this.trigramIndex == null) {
+			TrigramIndex index = new TrigramIndex();
+			forEachBook(index::add);
+			index.compact();
+			this.trigramIndex = index;
+			log.info("[INFO] Titles indexed by trigrams: " + index.size());
+		}
+		return this.trigramIndex;
+	}
+	
+	/**
+	 * Saves the index used for autocompletion, so it can be loaded later without reading the books (see {@link #loadPrefixIndex(String)}).
+	 * @param prefixIndexPath path to the file
+	 * @throws IllegalStateException if the file cannot be written
+	 */
+	public void savePrefixIndex(String prefixIndexPath) {
+		if (prefixIndexPath == null) {
+			throw new IllegalArgumentException("Invalid null value for path to prefix index file");
+		}
+		getPrefixIndex().save(new File(prefixIndexPath));
+		log.info("[INFO] Prefix index saved: " + prefixIndexPath);
+	}
+	
+	/**
+	 * Loads the index used for autocompletion from a file saved with the {@link #savePrefixIndex(String)} method.
+	 * @param prefixIndexPath path to the file
+	 * @throws IllegalArgumentException if the file is not a valid prefix index
+	 * @throws IllegalStateException if the file cannot be read
+	 */
+	public synchronized void loadPrefixIndex(String prefixIndexPath) {
+		if (prefixIndexPath == null) {
+			throw new IllegalArgumentException("Invalid null value for path to prefix index file");
+		}
+		this.prefixIndex = PrefixIndex.load(new File(prefixIndexPath));
+	}
+	
+	/**
+	 * Sets the maximum number of books kept in the cache used by the {@link #getBook(String)} method. The books already cached are discarded.
+	 * @param cacheSize maximum number of books cached, zero for not caching books
+	 * @throws IllegalArgumentException if the size is negative
+	 */
+	public void setCacheSize(int cacheSize) {
+		this.bookCache = new BookCache(cacheSize);
+	}
+	
+	/**
+	 * Returns the cache used by the {@link #getBook(String)} method, which allows to know its hits and misses.
+	 * @return the cache of books
+	 */
+	public BookCache getBookCache() {
+		return this.bookCache;
+	}
+	
+	/**
+	 * Saves the book catalog as a binary snapshot file. If the RDF files have not been read yet, they are read first.<br>
+	 * The snapshot can be loaded later with the {@link #loadSnapshot(String)} method, without reading the RDF files again.
+	 * @param snapshotPath path to the snapshot file
+	 * @throws IllegalStateException if the file cannot be written
+	 */
+	public void saveSnapshot(String snapshotPath) {
+		if (snapshotPath == null) {
+			throw new IllegalArgumentException("Invalid null value for path to snapshot file");
+		}
+		if (catalogRdf.getRdfCatalog().isEmpty()) {
+			catalogRdf.readFiles();
+		}
+		CatalogSnapshot.save(catalogRdf.getRdfCatalog(), new File(snapshotPath));
+		log.info("[INFO] Snapshot saved: " + snapshotPath);
+	}
+	
+	/**
+	 * Loads a snapshot file saved with the {@link #saveSnapshot(String)} method. The file is memory-mapped, so books are retrieved from it 
+	 * by the {@link #getBook(String)} method as soon as it is loaded. Books not found in the snapshot are read from the RDF files.
+	 * @param snapshotPath path to the snapshot file
+	 * @throws IllegalArgumentException if the file is not a valid snapshot
+	 * @throws IllegalStateException if the file cannot be read
+	 */
+	public void loadSnapshot(String snapshotPath) {
+		if (snapshotPath == null) {
+			throw new IllegalArgumentException("Invalid null value for path to snapshot file");
+		}
+		this.snapshot = CatalogSnapshot.open(new File(snapshotPath));
+		this.bookCache.clear();
+	}
+	
+	private CatalogDb createCatalogDb(String dbConfigFile) {
+		Properties properties = getDbSetting(dbConfigFile);
+		DbConnection dbConnection = new DbConnectionBuilder().setSettingProperties(properties).build();
+		
+		CatalogDb db = new CatalogDb(dbConnection);
+		db.setBatchSize(getIntSetting(properties, "BatchSize", 1));
+		db.setCommitInterval(getIntSetting(properties, "CommitInterval", 0));
+		db.setExistenceCheck(getEnumSetting(properties, "ExistenceCheck", CatalogDb.ExistenceCheck.QUERY));
+		db.setLoadMode(getEnumSetting(properties, "LoadMode", CatalogDb.LoadMode.INSERT));
+		return db;
+	}
+	
+	private Properties getDbSetting(String dbConfigFile) {
 		Properties properties = null;
 		if (dbConfigFile.equals(DB_DEFAULT)) {
 			properties = PropertiesFile.loadPropertiesFromResource(DB_DEFAULT);
@@ -154,7 +724,33 @@ public class JGutenbergCatalog {
 			}
 			properties = PropertiesFile.loadPropertiesFromFileSystem(dbConfigFile);
 		}
-		return new DbConnectionBuilder().setSettingProperties(properties).build();
+		return properties;
+	}
+	
+	private int getIntSetting(Properties properties, String key, int defaultValue) {
+		int result = defaultValue;
+		String value = properties.getProperty(key);
+		if (value != null && !value.trim().isEmpty()) {
+			try {
+				result = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid value for database setting " + key);
+			}
+		}
+		return result;
+	}
+	
+	private <E extends Enum<E>> E getEnumSetting(Properties properties, String key, E defaultValue) {
+		E result = defaultValue;
+		String value = properties.getProperty(key);
+		if (value != null && !value.trim().isEmpty()) {
+			try {
+				result = Enum.valueOf(defaultValue.getDeclaringClass(), value.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid value for database setting " + key);
+			}
+		}
+		return result;
 	}
 	
 	/**
@@ -168,6 +764,13 @@ public class JGutenbergCatalog {
 			String rdfFolder = null;
 			String dbFile = null;
 			boolean resetDb = false;
+			int threads = 1;
+			RdfExtractor extractor = null;
+			boolean streaming = false;
+			String manifest = null;
+			int port = -1;
+			boolean loadBeforeServing = false;
+			boolean lookup = false;
 			
 			int i = 0;
 			int step = 0;
@@ -182,10 +785,31 @@ public class JGutenbergCatalog {
 					} else if (args[i].equals("-d")) {
 						resetDb = true;
 						step = 1;		
+					} else if (args[i].equals("-t")) {
+						threads = Integer.parseInt(args[i+1]);
+						step = 2;
+					} else if (args[i].equals("-s")) {
+						streaming = true;
+						step = 1;
+					} else if (args[i].equals("-e")) {
+						extractor = getExtractor(args[i+1]);
+						step = 2;
+					} else if (args[i].equals("-m")) {
+						manifest = args[i+1];
+						step = 2;
+					} else if (args[i].equals("-p")) {
+						port = Integer.parseInt(args[i+1]);
+						step = 2;
+					} else if (args[i].equals("-l")) {
+						loadBeforeServing = true;
+						step = 1;
+					} else if (args[i].equals("-i")) {
+						lookup = true;
+						step = 1;
 					} else {
 						throw new IllegalArgumentException("Parameter " + args[i]);
 					}
-				} catch (ArrayIndexOutOfBoundsException a) {
+				} catch (ArrayIndexOutOfBoundsException | NumberFormatException a) {
 					throw new IllegalArgumentException("Parameter " + args[i]);
 				}
 				i+=step;
@@ -193,21 +817,101 @@ public class JGutenbergCatalog {
 
 			JGutenbergCatalog jg = new JGutenbergCatalog(rdfFolder);
 			jg.setResetDb(resetDb);
+			jg.setThreads(threads);
+			jg.setStreaming(streaming);
+			jg.setManifest(manifest);
+			if (extractor != null) {
+				jg.setExtractor(extractor);
+			}
 			if (dbFile != null) {
 				jg.setDatabase(dbFile);
 			}
 			jg.setResetDb(resetDb);
-			jg.loadDb();
+			if (lookup) {
+				jg.writeBooks(System.in, System.out);
+			} else if (port < 0) {
+				jg.loadDb();
+			} else {
+				jg.readRdfFiles();
+				if (loadBeforeServing) {
+					jg.loadDb();
+				}
+				CatalogServer server = new CatalogServer(jg, port);
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+				server.start();
+			}
+		}
+	}
+	
+	/**
+	 * Reads book identifiers, one per line, and writes the identifier, title, author and language of each book, separated by tabs. 
+	 * Identifiers are resolved in batches of {@value #LOOKUP_BATCH_SIZE} with the {@link #getBooks(Collection)} method, and every batch is 
+	 * written as soon as it is resolved, so the input can be a stream of any length. Books not found are reported as warnings.
+	 */
+	private void writeBooks(InputStream input, OutputStream output) {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		List<String> ids = new ArrayList<>(LOOKUP_BATCH_SIZE);
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.trim().isEmpty()) {
+					ids.add(line.trim());
+				}
+				if (ids.size() == LOOKUP_BATCH_SIZE) {
+					writeBooks(ids, writer);
+				}
+			}
+			writeBooks(ids, writer);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading book identifiers: " + e.getMessage());
+		}
+	}
+	
+	private void writeBooks(List<String> ids, PrintWriter writer) {
+		List<Book> books = getBooks(ids);
+		for (int i = 0; i < ids.size(); i++) {
+			Book book = books.get(i);
+			if (book != null) {
+				writer.println(book.getId() + "\t" + toField(book.getTitle()) + "\t" + toField(book.getAuthor()) + "\t" + toField(book.getLanguage()));
+			} else {
+				log.warn("[WARN] Book not found: " + ids.get(i));
+			}
+		}
+		writer.flush();
+		ids.clear();
+	}
+	
+	private static String toField(String value) {
+		return (value != null) ? value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ') : "";
+	}
+	
+	private static RdfExtractor getExtractor(String name) {
+		RdfExtractor extractor = null;
+		if (name.equalsIgnoreCase("stax")) {
+			extractor = new StaxRdfExtractor();
+		} else if (name.equalsIgnoreCase("jena")) {
+			extractor = new JenaRdfExtractor();
+		} else {
+			throw new IllegalArgumentException("Unknown RDF extractor " + name);
 		}
+		return extractor;
 	}
 	
 	private static void showHelp() {
 		log.info("");
 		log.info("Usage: java -jar JGutenbergCatalog [options]");
 		log.info("Options:");
-		log.info("   -r xxx (xxx path to the RDF files folder)");
+		log.info("   -r xxx (xxx path to the RDF files folder or archive)");
 		log.info("   -b xxx (xxx  path to the database setting file)");
 		log.info("   -d (delete previous data)");
+		log.info("   -t n (n number of threads used to read the RDF files)");
+		log.info("   -e xxx (xxx RDF extractor: stax (default) or jena)");
+		log.info("   -s (load the database while the RDF files are read)");
+		log.info("   -m xxx (xxx path to the manifest file, for reading only new or changed RDF files)");
+		log.info("   -p n (n port of the HTTP server that serves the catalog)");
+		log.info("   -l (load the database before starting the HTTP server)");
+		log.info("   -i (read book identifiers from the standard input and write the books to the standard output)");
 		log.info("");
 		log.info("(only -h to show options list)");
 		log.info("");
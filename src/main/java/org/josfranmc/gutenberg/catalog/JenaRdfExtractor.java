@@ -0,0 +1,95 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>.
+ *    
+ *  This file includes software developed at
+ *  The Apache Software Foundation (http://www.apache.org/). 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.InputStream;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+
+/**
+ * Extracts the data about a book by loading the whole RDF file in a Jena <code>Model</code> and querying it with SPARQL.<br>
+ * It is slower than {@link StaxRdfExtractor}, but it understands any valid RDF/XML document. It is used as fallback and for verification.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see RdfExtractor
+ */
+public class JenaRdfExtractor implements RdfExtractor {
+
+	private static final String BASE_URI = "http://www.gutenberg.org/";
+
+	/**
+	 * Query the RDF content using SPARQL. The data retrivied are asigned to the <code>Book</code> object.
+	 */
+	@Override
+	public void extract(InputStream input, Book book) {
+		Model model = ModelFactory.createDefaultModel();
+		model.read(input, BASE_URI, "RDF/XML");
+		
+		Query query = QueryFactory.create(getQueryStatement());
+		try (QueryExecution qexec = QueryExecutionFactory.create(query, model)) {
+
+			ResultSet results = qexec.execSelect();
+			while (results.hasNext()) {
+				QuerySolution qsol = results.nextSolution();
+				
+				book.setTitle(getFieldValue(qsol, "title"));
+				book.setAuthor(getFieldValue(qsol, "author"));
+				book.setLanguage(getFieldValue(qsol, "language"));
+			}
+		}
+	}
+	
+	private String getFieldValue(QuerySolution qsol, String field) {
+		String value = null;
+		Literal literal = qsol.getLiteral(field);
+		if (literal != null) {
+			value = literal.getString();
+		}
+		return value;
+	}
+	
+	private String getQueryStatement() {
+		String queryString = "PREFIX dcterms: <http://purl.org/dc/terms/> \n";
+		queryString +=       "PREFIX pgterms: <http://www.gutenberg.org/2009/pgterms/> \n";
+	    queryString +=       "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> \n\n";			
+
+	    queryString += "SELECT ?title ?author (str(?lan) as ?language) \n";
+	    queryString += " WHERE { ?s dcterms:title ?title .  \n";
+	   
+	    queryString += "        OPTIONAL { ?u dcterms:creator ?c .      \n";
+	    queryString += "                   ?c pgterms:name ?author . }  \n";
+	    
+	    queryString += "        OPTIONAL { ?b dcterms:language ?l .    \n";
+	    queryString += "                   ?l rdf:value ?lan .      }  \n";
+	    queryString += "       } \n";
+	    
+	    return queryString;		
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.LogManager;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * It loads books in a PostgreSQL database using the <i>COPY ... FROM STDIN</i> command of the PostgreSQL driver.<p>
+ * Books are streamed to a temporary staging table as they are received. When the load ends, the staging table is merged into the <i>books</i> 
+ * table, ignoring the books that are already there. This way only new books are loaded, without checking books one by one.<br>
+ * The copy is done in a single command, so if a book cannot be copied (e.g. a value is too long) no book is loaded.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogDb
+ */
+class PostgresCopyWriter {
+
+	private static final Logger log = LogManager.getLogger(PostgresCopyWriter.class);
+	
+	/**
+	 * Number of characters buffered before sending them to the database
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private static final String STAGING_TABLE = "books_staging";
+	
+	private final Connection connection;
+	
+	private final CopyManager copyManager;
+	
+	private CopyIn copyIn;
+	
+	private final StringBuilder buffer;
+	
+	private long booksCopied;
+	
+	
+	/**
+	 * @param connection connection to a PostgreSQL database
+	 * @throws SQLException if the connection is not a PostgreSQL connection
+	 */
+	PostgresCopyWriter(Connection connection) throws SQLException {
+		this.connection = connection;
+		this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+		this.buffer = new StringBuilder(BUFFER_SIZE + 1024);
+	}
+	
+	/**
+	 * Checks if a connection is a PostgreSQL connection, so it can be used with this class.
+	 * @param connection database connection
+	 * @return <i>true</i> if the connection supports the COPY command, <i>false</i> otherwise
+	 */
+	static boolean isSupported(Connection connection) {
+		boolean result = false;
+		try {
+			result = connection.isWrapperFor(PGConnection.class);
+		} catch (SQLException e) {
+			log.debug(e);
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates the staging table and starts the copy.
+	 * @throws SQLException if the copy cannot be started
+	 */
+	void begin() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("CREATE TEMP TABLE IF NOT EXISTS " + STAGING_TABLE + " (LIKE books)");
+			statement.executeUpdate("TRUNCATE " + STAGING_TABLE);
+		}
+		copyIn = copyManager.copyIn("COPY " + STAGING_TABLE + " (id, author, title, language) FROM STDIN");
+		booksCopied = 0;
+	}
+	
+	/**
+	 * Adds a book to the copy.
+	 * @param book the book to copy
+	 * @throws SQLException if the data cannot be sent to the database
+	 */
+	void write(Book book) throws SQLException {
+		appendRow(buffer, book);
+		booksCopied++;
+		if (buffer.length() >= BUFFER_SIZE) {
+			flush();
+		}
+	}
+	
+	/**
+	 * Ends the copy and merges the staging table into the <i>books</i> table.
+	 * @return number of new books loaded
+	 * @throws SQLException if the copy or the merge fail
+	 */
+	long end() throws SQLException {
+		long inserted = 0;
+		try {
+			flush();
+			copyIn.endCopy();
+			try (Statement statement = connection.createStatement()) {
+				inserted = statement.executeUpdate("INSERT INTO books (id, author, title, language) " 
+						+ "SELECT DISTINCT ON (id) id, author, title, language FROM " + STAGING_TABLE + " "
+						+ "ON CONFLICT (id) DO NOTHING");
+				statement.executeUpdate("DROP TABLE " + STAGING_TABLE);
+			}
+			log.info("[INFO] Books copied: " + booksCopied + ". New books: " + inserted);
+		} finally {
+			if (copyIn.isActive()) {
+				copyIn.cancelCopy();
+			}
+		}
+		return inserted;
+	}
+	
+	private void flush() throws SQLException {
+		if (buffer.length() > 0) {
+			byte[] data = buffer.toString().getBytes(StandardCharsets.UTF_8);
+			copyIn.writeToCopy(data, 0, data.length);
+			buffer.setLength(0);
+		}
+	}
+	
+	/**
+	 * Appends a book as a row in the text format of the COPY command: values separated by tabs and special characters escaped.
+	 * @param row where to append the row
+	 * @param book the book
+	 */
+	static void appendRow(StringBuilder row, Book book) {
+		appendValue(row, book.getId());
+		row.append('\t');
+		appendValue(row, book.getAuthor());
+		row.append('\t');
+		appendValue(row, book.getTitle());
+		row.append('\t');
+		appendValue(row, book.getLanguage());
+		row.append('\n');
+	}
+	
+	private static void appendValue(StringBuilder row, String value) {
+		if (value == null) {
+			row.append("\\N");
+		} else {
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				switch (c) {
+				case '\\':
+					row.append("\\\\");
+					break;
+				case '\n':
+					row.append("\\n");
+					break;
+				case '\r':
+					row.append("\\r");
+					break;
+				case '\t':
+					row.append("\\t");
+					break;
+				default:
+					row.append(c);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>.
+ *    
+ *  This file includes software developed at
+ *  The Apache Software Foundation (http://www.apache.org/). 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+/**
+ * It allows to read the RDF files of the Gutenberg catalog directly from the archive that can be downloaded from the Gutenberg project, 
+ * without extracting it.<p>
+ * Supported formats are <i>.tar</i>, <i>.tar.zip</i>, <i>.tar.bz2</i> and <i>.tar.gz</i>. The archive is read in a single sequential pass and 
+ * no temporary files are written. Each RDF file is returned as an <code>Entry</code> object with its content in memory.<p>
+ * The identifiers of the books contained in the archive are kept once the archive has been read as a whole, so looking for a book that is not 
+ * in the archive doesn't read it again. They are read again if the archive file changes.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogRdf
+ */
+class RdfArchive {
+
+	private static final String[] EXTENSIONS = {".tar", ".tar.zip", ".tar.bz2", ".tar.gz", ".tgz"};
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * The archive file
+	 */
+	private final File file;
+	
+	/**
+	 * Identifiers of the books contained in the archive, or <i>null</i> if they are not known yet
+	 */
+	private Set<String> ids;
+	
+	/**
+	 * Modification time of the archive file when the identifiers were read
+	 */
+	private long idsLastModified;
+	
+	
+	/**
+	 * @param file the archive file
+	 */
+	RdfArchive(File file) {
+		if (file == null || !isArchive(file)) {
+			throw new IllegalArgumentException("Invalid RDF archive.");
+		}
+		this.file = file;
+	}
+	
+	/**
+	 * Checks if a file is a RDF archive according to its extension.
+	 * @param file file to check
+	 * @return <i>true</i> if the file is an archive in a supported format, <i>false</i> otherwise
+	 */
+	static boolean isArchive(File file) {
+		boolean result = false;
+		if (file.isFile()) {
+			String name = file.getName().toLowerCase();
+			for (String extension : EXTENSIONS) {
+				if (name.endsWith(extension)) {
+					result = true;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Reads the archive. Every RDF file found is passed to the handler, in the order they are stored in the archive.
+	 * @param handler object that receives the RDF files
+	 * @throws IOException if there is any error reading the archive
+	 */
+	void read(Consumer<Entry> handler) throws IOException {
+		long lastModified = file.lastModified();
+		Set<String> found = new HashSet<>();
+		try (EntryReader reader = reader()) {
+			Entry entry = reader.nextEntry();
+			while (entry != null) {
+				if (isRdfFile(entry.getName())) {
+					found.add(entry.getFolderName());
+				}
+				handler.accept(entry);
+				entry = reader.nextEntry();
+			}
+		}
+		setIds(found, lastModified);
+	}
+	
+	/**
+	 * Opens the archive for reading its RDF files one by one, in the order they are stored in the archive. The reader must be closed.
+	 * @return a reader positioned at the beginning of the archive
+	 * @throws IOException if the archive cannot be opened
+	 */
+	EntryReader reader() throws IOException {
+		return new EntryReader(new TarArchiveInputStream(open()));
+	}
+	
+	/**
+	 * Reads the archive looking for the RDF file of a book. The reading stops when the file is found.
+	 * @param id book identifier
+	 * @return the RDF file found, or <i>null</i> if the archive doesn't contain the book
+	 * @throws IOException if there is any error reading the archive
+	 */
+	Entry find(String id) throws IOException {
+		return find(Collections.singleton(id)).get(id);
+	}
+	
+	/**
+	 * Reads the archive once looking for the RDF files of several books. The reading stops when all the files have been found.
+	 * @param ids book identifiers
+	 * @return the RDF files found, by book identifier. Books not contained in the archive are left out
+	 * @throws IOException if there is any error reading the archive
+	 */
+	Map<String, Entry> find(Collection<String> ids) throws IOException {
+		Set<String> pending = new HashSet<>(ids);
+		pending.retainAll(getIds());
+		Map<String, Entry> result = new HashMap<>();
+		if (!pending.isEmpty()) {
+			try (TarArchiveInputStream tar = new TarArchiveInputStream(open())) {
+				TarArchiveEntry tarEntry = tar.getNextEntry();
+				while (tarEntry != null && !pending.isEmpty()) {
+					String id = getFolderName(tarEntry.getName());
+					if (tarEntry.isFile() && pending.contains(id) && isRdfFile(tarEntry.getName())) {
+						result.put(id, new Entry(tarEntry.getName(), tar.readAllBytes(), tarEntry.getLastModifiedDate().getTime()));
+						pending.remove(id);
+					}
+					tarEntry = tar.getNextEntry();
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks if the archive contains the RDF file of a book. The identifiers of the books are read the first time, without reading the content 
+	 * of the files, and then kept until the archive file changes.
+	 * @param id book identifier
+	 * @return <i>true</i> if the archive contains the book, <i>false</i> otherwise
+	 * @throws IOException if there is any error reading the archive
+	 */
+	boolean contains(String id) throws IOException {
+		return getIds().contains(id);
+	}
+	
+	private synchronized Set<String> getIds() throws IOException {
+		if (this.ids == null || this.idsLastModified != file.lastModified()) {
+			long lastModified = file.lastModified();
+			Set<String> found = new HashSet<>();
+			try (TarArchiveInputStream tar = new TarArchiveInputStream(open())) {
+				TarArchiveEntry tarEntry = tar.getNextEntry();
+				while (tarEntry != null) {
+					if (tarEntry.isFile() && isRdfFile(tarEntry.getName())) {
+						found.add(getFolderName(tarEntry.getName()));
+					}
+					tarEntry = tar.getNextEntry();
+				}
+			}
+			setIds(found, lastModified);
+		}
+		return this.ids;
+	}
+	
+	private synchronized void setIds(Set<String> ids, long lastModified) {
+		this.ids = Collections.unmodifiableSet(ids);
+		this.idsLastModified = lastModified;
+	}
+	
+	/**
+	 * Checks if a file of the archive is the RDF file of a book, i.e. <i>.../{id}/pg{id}.rdf</i>.
+	 */
+	private static boolean isRdfFile(String name) {
+		String id = getFolderName(name);
+		return !id.isEmpty() && name.endsWith("/" + id + "/" + RdfFile.FILE_PREFIX + id + RdfFile.FILE_EXTENSION);
+	}
+	
+	/**
+	 * Returns the name of the folder that contains a file of the archive.
+	 */
+	private static String getFolderName(String name) {
+		int end = name.lastIndexOf('/');
+		return (end > 0) ? name.substring(name.lastIndexOf('/', end - 1) + 1, end) : "";
+	}
+	
+	/**
+	 * Returns the path of the archive.
+	 * @return the absolute path of the archive
+	 */
+	String getPath() {
+		return file.getAbsolutePath();
+	}
+	
+	/**
+	 * Opens the archive and returns the tar stream it contains, decompressing it if needed.
+	 */
+	private InputStream open() throws IOException {
+		String name = file.getName().toLowerCase();
+		InputStream input = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try {
+			if (name.endsWith(".bz2")) {
+				input = new BZip2CompressorInputStream(input, true);
+			} else if (name.endsWith(".gz") || name.endsWith(".tgz")) {
+				input = new GzipCompressorInputStream(input, true);
+			} else if (name.endsWith(".zip")) {
+				input = openTarInZip(new ZipInputStream(input));
+			}
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+		return input;
+	}
+	
+	private InputStream openTarInZip(ZipInputStream zip) throws IOException {
+		ZipEntry zipEntry = zip.getNextEntry();
+		while (zipEntry != null && !zipEntry.getName().toLowerCase().endsWith(".tar")) {
+			zipEntry = zip.getNextEntry();
+		}
+		if (zipEntry == null) {
+			throw new IOException("No tar file found in " + file.getName());
+		}
+		return zip;
+	}
+	
+	/**
+	 * Reads the RDF files of the archive on demand. As an <code>Iterator</code>, reading errors are thrown as <code>UncheckedIOException</code>.
+	 */
+	static final class EntryReader implements Iterator<Entry>, Closeable {
+		
+		private final TarArchiveInputStream tar;
+		
+		/**
+		 * Next entry returned by the iterator, read in advance by <code>hasNext()</code>
+		 */
+		private Entry next;
+		
+		EntryReader(TarArchiveInputStream tar) {
+			this.tar = tar;
+		}
+		
+		/**
+		 * Reads the next RDF file of the archive.
+		 * @return the next RDF file, or <i>null</i> if the end of the archive has been reached
+		 * @throws IOException if there is any error reading the archive
+		 */
+		Entry nextEntry() throws IOException {
+			Entry entry = null;
+			TarArchiveEntry tarEntry = tar.getNextEntry();
+			while (tarEntry != null && entry == null) {
+				if (tarEntry.isFile() && tarEntry.getName().endsWith(RdfFile.FILE_EXTENSION)) {
+					entry = new Entry(tarEntry.getName(), tar.readAllBytes(), tarEntry.getLastModifiedDate().getTime());
+				} else {
+					tarEntry = tar.getNextEntry();
+				}
+			}
+			return entry;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if (next == null) {
+				try {
+					next = nextEntry();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return next != null;
+		}
+		
+		@Override
+		public Entry next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Entry entry = next;
+			next = null;
+			return entry;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			tar.close();
+		}
+	}
+	
+	/**
+	 * A RDF file read from the archive.
+	 */
+	static final class Entry {
+
+		private final String name;
+		
+		private final byte[] content;
+		
+		private final long lastModified;
+		
+		Entry(String name, byte[] content, long lastModified) {
+			this.name = name;
+			this.content = content;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * @return the path of the file inside the archive, e.g. <i>cache/epub/10/pg10.rdf</i>
+		 */
+		String getName() {
+			return name;
+		}
+		
+		/**
+		 * @return the name of the folder that contains the file, which is the book identifier
+		 */
+		String getFolderName() {
+			String[] parts = name.split("/");
+			return (parts.length > 1) ? parts[parts.length - 2] : "";
+		}
+		
+		/**
+		 * @return the path of the folder that contains the folder of the file, e.g. <i>cache/epub</i>, or an empty string if there is none
+		 */
+		String getCatalogPath() {
+			int fileSlash = name.lastIndexOf('/');
+			int folderSlash = (fileSlash > 0) ? name.lastIndexOf('/', fileSlash - 1) : -1;
+			return (folderSlash > 0) ? name.substring(0, folderSlash) : "";
+		}
+		
+		/**
+		 * @return the name of the file, without folders
+		 */
+		String getFileName() {
+			return name.substring(name.lastIndexOf('/') + 1);
+		}
+
+		/**
+		 * @return the content of the file
+		 */
+		byte[] getContent() {
+			return content;
+		}
+		
+		/**
+		 * @return last modification time of the file, in milliseconds
+		 */
+		long getLastModified() {
+			return lastModified;
+		}
+	}
+}
@@ -0,0 +1,427 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Map of <code>RdfFile</code> objects keyed by book identifier, designed to hold the whole Gutenberg catalog with little memory.<p>
+ * Book identifiers are numbers, so they are stored as primitive <code>int</code> values in a flat array, using open addressing with linear 
+ * probing. The <code>RdfFile</code> objects are stored in a parallel array, so no entry object is created per book. Identifiers that are not 
+ * canonical numbers (see {@link BookIdSet}) are stored in an ordinary <code>HashMap</code>.<p>
+ * All the operations are synchronized, so the map can be filled by several threads at the same time. Iterators and <code>forEach</code> 
+ * work on a copy of the entries taken when they start, so the map can be modified while iterating: they never throw 
+ * <code>ConcurrentModificationException</code> and they don't reflect the changes made after their start. <code>forEach</code> runs the 
+ * action outside the lock, so other threads are not blocked by slow actions.<p>
+ * The copy holds an <code>int</code> and a reference for each numeric identifier (less than 1 MB for the whole Gutenberg catalog), and it 
+ * is also made by the methods inherited from <code>AbstractMap</code> that iterate the entries, like <code>equals</code>, 
+ * <code>hashCode</code> or <code>toString</code>. Lookups should use <code>get</code> instead. Null keys and values are not allowed.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogRdf
+ */
+class RdfCatalogMap extends AbstractMap<String, RdfFile> implements ConcurrentMap<String, RdfFile> {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	
+	/**
+	 * Slot never used
+	 */
+	private static final int FREE = -1;
+	
+	/**
+	 * Slot whose entry has been removed
+	 */
+	private static final int REMOVED = -2;
+	
+	/**
+	 * Numeric identifiers, or FREE or REMOVED
+	 */
+	private int[] keys;
+	
+	private RdfFile[] values;
+	
+	/**
+	 * Number of numeric identifiers stored
+	 */
+	private int numericSize;
+	
+	/**
+	 * Number of slots not free, including the removed ones
+	 */
+	private int usedSlots;
+	
+	/**
+	 * Entries whose identifier is not a canonical number
+	 */
+	private final Map<String, RdfFile> others;
+	
+	private Set<Map.Entry<String, RdfFile>> entrySet;
+	
+	
+	RdfCatalogMap() {
+		this(DEFAULT_CAPACITY / 2);
+	}
+	
+	/**
+	 * @param expectedSize number of books expected
+	 */
+	RdfCatalogMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+		this.keys = new int[capacity];
+		Arrays.fill(this.keys, FREE);
+		this.values = new RdfFile[capacity];
+		this.others = new HashMap<>();
+	}
+	
+	/**
+	 * Creates a map with the same entries as another map.
+	 * @param map map whose entries are copied
+	 */
+	RdfCatalogMap(Map<String, RdfFile> map) {
+		this(map.size());
+		putAll(map);
+	}
+	
+	@Override
+	public synchronized RdfFile get(Object key) {
+		RdfFile result = null;
+		if (key instanceof String) {
+			int number = BookIdSet.toNumber((String) key);
+			if (number >= 0) {
+				int slot = findSlot(number);
+				result = (slot >= 0) ? this.values[slot] : null;
+			} else {
+				result = this.others.get(key);
+			}
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+	
+	@Override
+	public synchronized RdfFile put(String key, RdfFile value) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+		RdfFile previous;
+		int number = BookIdSet.toNumber(key);
+		if (number >= 0) {
+			previous = putNumber(number, value);
+		} else {
+			previous = this.others.put(key, value);
+		}
+		return previous;
+	}
+	
+	private RdfFile putNumber(int number, RdfFile value) {
+		RdfFile previous = null;
+		int slot = findSlot(number);
+		if (slot >= 0) {
+			previous = this.values[slot];
+			this.values[slot] = value;
+		} else {
+			if (this.usedSlots + 1 > this.keys.length - (this.keys.length >>> 2)) {
+				rehash((this.numericSize + 1 > this.keys.length >>> 2) ? this.keys.length << 1 : this.keys.length);
+			}
+			slot = findInsertSlot(number);
+			if (this.keys[slot] == FREE) {
+				this.usedSlots++;
+			}
+			this.values[slot] = value;
+			this.keys[slot] = number;
+			this.numericSize++;
+		}
+		return previous;
+	}
+	
+	@Override
+	public synchronized RdfFile remove(Object key) {
+		RdfFile previous = null;
+		if (key instanceof String) {
+			int number = BookIdSet.toNumber((String) key);
+			if (number >= 0) {
+				int slot = findSlot(number);
+				if (slot >= 0) {
+					previous = this.values[slot];
+					this.keys[slot] = REMOVED;
+					this.values[slot] = null;
+					this.numericSize--;
+				}
+			} else {
+				previous = this.others.remove(key);
+			}
+		}
+		return previous;
+	}
+	
+	@Override
+	public synchronized int size() {
+		return this.numericSize + this.others.size();
+	}
+	
+	@Override
+	public synchronized void clear() {
+		Arrays.fill(this.keys, FREE);
+		Arrays.fill(this.values, null);
+		this.numericSize = 0;
+		this.usedSlots = 0;
+		this.others.clear();
+	}
+	
+	@Override
+	public void forEach(BiConsumer<? super String, ? super RdfFile> action) {
+		Snapshot snapshot = snapshot();
+		for (int i = 0; i < snapshot.numericKeys.length; i++) {
+			action.accept(String.valueOf(snapshot.numericKeys[i]), snapshot.numericValues[i]);
+		}
+		snapshot.others.forEach(action);
+	}
+	
+	@Override
+	public synchronized RdfFile putIfAbsent(String key, RdfFile value) {
+		RdfFile current = get(key);
+		if (current == null) {
+			put(key, value);
+		}
+		return current;
+	}
+	
+	@Override
+	public synchronized boolean remove(Object key, Object value) {
+		boolean result = false;
+		RdfFile current = get(key);
+		if (current != null && current.equals(value)) {
+			remove(key);
+			result = true;
+		}
+		return result;
+	}
+	
+	@Override
+	public synchronized boolean replace(String key, RdfFile oldValue, RdfFile newValue) {
+		boolean result = false;
+		RdfFile current = get(key);
+		if (current != null && current.equals(oldValue)) {
+			put(key, newValue);
+			result = true;
+		}
+		return result;
+	}
+	
+	@Override
+	public synchronized RdfFile replace(String key, RdfFile value) {
+		RdfFile current = get(key);
+		if (current != null) {
+			put(key, value);
+		}
+		return current;
+	}
+	
+	@Override
+	public Set<Map.Entry<String, RdfFile>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+	
+	/**
+	 * @return slot of an identifier, or -1 if it is not in the map
+	 */
+	private int findSlot(int number) {
+		int result = -1;
+		int mask = this.keys.length - 1;
+		int slot = hash(number) & mask;
+		while (result < 0 && this.keys[slot] != FREE) {
+			if (this.keys[slot] == number) {
+				result = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return first free or removed slot for an identifier which is not in the map
+	 */
+	private int findInsertSlot(int number) {
+		int mask = this.keys.length - 1;
+		int slot = hash(number) & mask;
+		while (this.keys[slot] >= 0) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Moves the entries to new arrays, discarding the removed slots.
+	 */
+	private void rehash(int capacity) {
+		int[] oldKeys = this.keys;
+		RdfFile[] oldValues = this.values;
+		this.keys = new int[capacity];
+		Arrays.fill(this.keys, FREE);
+		this.values = new RdfFile[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] >= 0) {
+				int slot = findInsertSlot(oldKeys[i]);
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+		this.usedSlots = this.numericSize;
+	}
+	
+	private static int hash(int number) {
+		int h = number * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * Copies the entries in use to arrays with no free slots.
+	 */
+	private synchronized Snapshot snapshot() {
+		int[] numericKeys = new int[this.numericSize];
+		RdfFile[] numericValues = new RdfFile[this.numericSize];
+		int count = 0;
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] >= 0) {
+				numericKeys[count] = this.keys[i];
+				numericValues[count] = this.values[i];
+				count++;
+			}
+		}
+		return new Snapshot(numericKeys, numericValues, new HashMap<>(this.others));
+	}
+	
+	/**
+	 * Entries of the map at a given time
+	 */
+	private static class Snapshot {
+		
+		private final int[] numericKeys;
+		
+		private final RdfFile[] numericValues;
+		
+		private final Map<String, RdfFile> others;
+		
+		Snapshot(int[] numericKeys, RdfFile[] numericValues, Map<String, RdfFile> others) {
+			this.numericKeys = numericKeys;
+			this.numericValues = numericValues;
+			this.others = others;
+		}
+	}
+	
+	private class EntrySet extends AbstractSet<Map.Entry<String, RdfFile>> {
+
+		@Override
+		public Iterator<Map.Entry<String, RdfFile>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return RdfCatalogMap.this.size();
+		}
+		
+		@Override
+		public void clear() {
+			RdfCatalogMap.this.clear();
+		}
+	}
+	
+	/**
+	 * Iterates over the numeric identifiers first and then over the other ones, using a snapshot taken when the iterator is created.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<String, RdfFile>> {
+		
+		private final Snapshot snapshot;
+		
+		private final Iterator<Map.Entry<String, RdfFile>> othersIterator;
+		
+		private int next;
+		
+		private Map.Entry<String, RdfFile> last;
+		
+		EntryIterator() {
+			this.snapshot = snapshot();
+			this.othersIterator = this.snapshot.others.entrySet().iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next < this.snapshot.numericKeys.length || this.othersIterator.hasNext();
+		}
+
+		@Override
+		public Map.Entry<String, RdfFile> next() {
+			if (this.next < this.snapshot.numericKeys.length) {
+				this.last = new CatalogEntry(String.valueOf(this.snapshot.numericKeys[this.next]), this.snapshot.numericValues[this.next]);
+				this.next++;
+			} else if (this.othersIterator.hasNext()) {
+				Map.Entry<String, RdfFile> other = this.othersIterator.next();
+				this.last = new CatalogEntry(other.getKey(), other.getValue());
+			} else {
+				throw new NoSuchElementException();
+			}
+			return this.last;
+		}
+		
+		@Override
+		public void remove() {
+			if (this.last == null) {
+				throw new IllegalStateException();
+			}
+			RdfCatalogMap.this.remove(this.last.getKey());
+			this.last = null;
+		}
+	}
+	
+	/**
+	 * Entry returned by the iterators. Changes of the value are written to the map.
+	 */
+	private class CatalogEntry extends AbstractMap.SimpleEntry<String, RdfFile> {
+		
+		private static final long serialVersionUID = -2385208391925830613L;
+
+		CatalogEntry(String key, RdfFile value) {
+			super(key, value);
+		}
+		
+		@Override
+		public RdfFile setValue(RdfFile value) {
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+	}
+}
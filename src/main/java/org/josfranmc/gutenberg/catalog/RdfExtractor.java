@@ -0,0 +1,43 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Strategy for extracting the data about a book from the content of a RDF file.<br>
+ * The data extracted are the title, the author and the language of the book. Implementations must be thread-safe, since the same object may be used
+ * by several threads at the same time.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see StaxRdfExtractor
+ * @see JenaRdfExtractor
+ */
+public interface RdfExtractor {
+
+	/**
+	 * Reads the content of a RDF file and assigns the data found to a <code>Book</code> object.<br>
+	 * The title is required: if no title is found, the book is not modified.
+	 * @param input RDF content to read
+	 * @param book <code>Book</code> object where to assign the data
+	 * @throws IOException if the content cannot be read or it is not valid
+	 */
+	void extract(InputStream input, Book book) throws IOException;
+}
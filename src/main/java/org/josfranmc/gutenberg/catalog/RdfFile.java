@@ -21,25 +21,24 @@
  */
 package org.josfranmc.gutenberg.catalog;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
-import org.apache.jena.query.QueryFactory;
-import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
-import org.apache.jena.rdf.model.Literal;
-import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.riot.RDFDataMgr;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 /**
  * It represents a RDF file about a book and allows to obtain its data.<br>
- * It uses Apache Jena for quering data.
+ * Data are extracted with a <code>RdfExtractor</code> object. By default a streaming StAX extractor is used. If it fails, the file is read again
+ * using Apache Jena.<p>
+ * Lazy objects (see {@link #createLazy(String, char, String, byte[], RdfExtractor, Consumer)}) don't read the file until the book is requested 
+ * for the first time. The file is read only once, even if several threads request the book at the same time.
  * @author Jose Francisco Mena Ceca
  * @version 2.2
  */
@@ -47,18 +46,50 @@ public class RdfFile {
 
 	private static final Logger log = LogManager.getLogger(RdfFile.class);
 	
-	private static final String FILE_SEPARATOR = System.getProperty("file.separator");
-	
 	public static final String FILE_PREFIX = "pg";
 	
 	public static final String FILE_EXTENSION = ".rdf";
 	
 	/**
-	 * The absolute path to the RDF file
+	 * Extractor used when no other is specified
+	 */
+	static final RdfExtractor DEFAULT_EXTRACTOR = new StaxRdfExtractor();
+	
+	private static final RdfExtractor FALLBACK_EXTRACTOR = new JenaRdfExtractor();
+	
+	private static final Pattern LINE_BREAKS = Pattern.compile("[\n\r]");
+	
+	/**
+	 * The absolute path to the folder that contains the folders of all the RDF files. It is shared by all the files of a catalog
+	 */
+	private final String catalogPath;
+	
+	/**
+	 * Separator used to build the path to the RDF file
 	 */
-	private String filePath;
+	private final char separator;
 	
-	private Book book;
+	private final Book book;
+	
+	/**
+	 * Indicates that the data of the book have been extracted from the file
+	 */
+	private volatile boolean parsed;
+	
+	/**
+	 * Object used to extract the data, until the file is read
+	 */
+	private RdfExtractor pendingExtractor;
+	
+	/**
+	 * Content of the file, if it has not been read from disk, until the file is read
+	 */
+	private byte[] pendingContent;
+	
+	/**
+	 * Object that receives the book once the file is read
+	 */
+	private Consumer<Book> parseListener;
 
 
 	/**
@@ -66,91 +97,157 @@ public class RdfFile {
 	 * @param folder folder path as a <code>File</code> object
 	 */
 	RdfFile(File folder) {
+		this(folder, DEFAULT_EXTRACTOR);
+	}
+	
+	/**
+	 * Initializes the object with the folder path that contains the RDF file about a book.
+	 * @param folder folder path as a <code>File</code> object
+	 * @param extractor object used to extract the data from the RDF file
+	 */
+	RdfFile(File folder, RdfExtractor extractor) {
+		this(getCatalogPath(folder), File.separatorChar, folder.getName(), null, extractor);
+	}
+	
+	/**
+	 * Initializes the object with the identifier of a book and the path to the folder of the catalog. The path to the RDF file is 
+	 * <i>catalogPath/id/pgid.rdf</i>, and it is built only when it is requested, so the path to the catalog can be shared by all its files.
+	 * @param catalogPath path to the folder that contains the folders of the RDF files
+	 * @param separator separator used to build the path to the RDF file
+	 * @param id book identifier
+	 * @param content content of the RDF file, or <i>null</i> to read it from disk
+	 * @param extractor object used to extract the data from the RDF file
+	 */
+	RdfFile(String catalogPath, char separator, String id, byte[] content, RdfExtractor extractor) {
+		this(catalogPath, separator, id, content, extractor, false, null);
+	}
+	
+	private RdfFile(String catalogPath, char separator, String id, byte[] content, RdfExtractor extractor, boolean lazy, Consumer<Book> parseListener) {
+		if (catalogPath == null || id == null) {
+			throw new IllegalArgumentException("Invalid RDF file.");
+		}
+		this.catalogPath = catalogPath;
+		this.separator = separator;
+		this.book = new Book();
+		this.book.setId(id);
+		if (content == null && !new File(getFilePath()).isFile()) {
+			throw new IllegalArgumentException("Wrong rdf file. Id: " + id);
+		}
+		if (lazy) {
+			this.pendingExtractor = extractor;
+			this.pendingContent = content;
+			this.parseListener = parseListener;
+		} else {
+			queryFile(extractor, content);
+			this.parsed = true;
+		}
+	}
+	
+	/**
+	 * Creates an object that doesn't read the RDF file until the book is requested. Only the existence of the file is checked.
+	 * @param catalogPath path to the folder that contains the folders of the RDF files
+	 * @param separator separator used to build the path to the RDF file
+	 * @param id book identifier
+	 * @param content content of the RDF file, which is kept until it is read, or <i>null</i> to read it from disk
+	 * @param extractor object used to extract the data from the RDF file
+	 * @param parseListener object that receives the book once the file is read, or <i>null</i>
+	 * @return the <code>RdfFile</code> object
+	 */
+	static RdfFile createLazy(String catalogPath, char separator, String id, byte[] content, RdfExtractor extractor, Consumer<Book> parseListener) {
+		return new RdfFile(catalogPath, separator, id, content, extractor, true, parseListener);
+	}
+	
+	private static String getCatalogPath(File folder) {
 		if (folder == null) {
 			throw new IllegalArgumentException("Invalid path to RDF file.");
 		}
-		String pathtoFile = folder.getAbsolutePath() + FILE_SEPARATOR + FILE_PREFIX + folder.getName() + FILE_EXTENSION;
-		File file = new File(pathtoFile);
-		if (!file.exists()) {
-			throw new IllegalArgumentException("Wrong rdf file. Id: " + folder.getName());
-		} 
-		this.filePath = pathtoFile;
-		
-		this.book = new Book();
-		this.book.setId(folder.getName());
-		queryFile();
-	}
-	
-	/**
-	 * Query the RDF file using SPARQL. The data retrivied are asigned to the <code>Book</code> object.
-	 */
-	private void queryFile() {
-		try (InputStream is = RDFDataMgr.open(getFilePath())) {
-			Model model = ModelFactory.createDefaultModel();
-			model.read(is, "http://www.gutenberg.org/", "RDF/XML");
-			
-			Query query = QueryFactory.create(getQueryStatement());
-			try (QueryExecution qexec = QueryExecutionFactory.create(query, model)) {
-	
-				ResultSet results = qexec.execSelect();
-				while (results.hasNext()) {
-					QuerySolution qsol = results.nextSolution();
-					
-					String title = getFieldValue(qsol, "title");
-					if (title != null) {
-						book.setTitle(title.replaceAll("[\n\r]", ""));
-					}
-					book.setAuthor(getFieldValue(qsol, "author"));
-					book.setLanguage(getFieldValue(qsol, "language"));
+		String parent = folder.getAbsoluteFile().getParent();
+		return (parent != null) ? parent : "";
+	}
+	
+	/**
+	 * Reads the RDF file. The data retrivied are asigned to the <code>Book</code> object.<br>
+	 * If the extractor fails, Jena is used to read the file.
+	 * @param extractor object used to extract the data from the RDF file
+	 * @param content content of the RDF file, or <i>null</i> to read it from disk
+	 */
+	private void queryFile(RdfExtractor extractor, byte[] content) {
+		try {
+			extract(extractor, content);
+		} catch (Exception e) {
+			if (extractor instanceof JenaRdfExtractor) {
+				log.error(e);
+			} else {
+				log.warn("[WARN] File " + getId() + " could not be read by " + extractor.getClass().getSimpleName() + ". Using Jena.");
+				try {
+					extract(FALLBACK_EXTRACTOR, content);
+				} catch (Exception j) {
+					log.error(j);
 				}
 			}
-		} catch (Exception e) {
-			log.error(e);
 		}
 	}
 	
+	private void extract(RdfExtractor extractor, byte[] content) throws Exception {
+		try (InputStream is = openContent(content)) {
+			extractor.extract(is, book);
+		}
+		String title = book.getTitle();
+		if (title != null) {
+			book.setTitle(LINE_BREAKS.matcher(title).replaceAll(""));
+		}
+	}
+	
+	private InputStream openContent(byte[] content) throws IOException {
+		InputStream input;
+		if (content != null) {
+			input = new ByteArrayInputStream(content);
+		} else {
+			input = new BufferedInputStream(new FileInputStream(getFilePath()));
+		}
+		return input;
+	}
+	
 	/**
 	 * Returns a <code>Book</code> object according to the RDF file this object represent.
 	 * @return a <code>Book</code> object
 	 * @see Book
 	 */
 	public Book getBook() {
+		if (!this.parsed) {
+			parse();
+		}
 		return this.book;
 	}
 	
-	private String getFieldValue(QuerySolution qsol, String field) {
-		String value = null;
-		Literal literal = qsol.getLiteral(field);
-		if (literal != null) {
-			value = literal.getString();
+	private synchronized void parse() {
+		if (!this.parsed) {
+			queryFile(this.pendingExtractor, this.pendingContent);
+			if (this.parseListener != null) {
+				this.parseListener.accept(this.book);
+			}
+			this.pendingExtractor = null;
+			this.pendingContent = null;
+			this.parseListener = null;
+			this.parsed = true;
 		}
-		return value;
 	}
 	
-	private String getQueryStatement() {
-		String queryString = "PREFIX dcterms: <http://purl.org/dc/terms/> \n";
-		queryString +=       "PREFIX pgterms: <http://www.gutenberg.org/2009/pgterms/> \n";
-	    queryString +=       "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> \n\n";			
-
-	    queryString += "SELECT ?title ?author (str(?lan) as ?language) \n";
-	    queryString += " WHERE { ?s dcterms:title ?title .  \n";
-	   
-	    queryString += "        OPTIONAL { ?u dcterms:creator ?c .      \n";
-	    queryString += "                   ?c pgterms:name ?author . }  \n";
-	    
-	    queryString += "        OPTIONAL { ?b dcterms:language ?l .    \n";
-	    queryString += "                   ?l rdf:value ?lan .      }  \n";
-	    queryString += "       } \n";
-	    
-	    return queryString;		
+	/**
+	 * Checks if the data of the book have already been extracted from the RDF file.
+	 * @return <i>true</i> if the file has been read, <i>false</i> if it will be read when the book is requested
+	 */
+	public boolean isParsed() {
+		return this.parsed;
 	}
-
+	
 	/**
 	 * Returns the path of the RDF file this object represent.
 	 * @return the path of the RDF file
 	 */
 	public String getFilePath() {
-		return filePath;
+		String id = getId();
+		return this.catalogPath + this.separator + id + this.separator + FILE_PREFIX + id + FILE_EXTENSION;
 	}
 
 	/**
@@ -165,7 +262,8 @@ public class RdfFile {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((filePath == null) ? 0 : filePath.hashCode());
+		result = prime * result + catalogPath.hashCode();
+		result = prime * result + getId().hashCode();
 		return result;
 	}
 
@@ -178,14 +276,6 @@ public class RdfFile {
 		if (getClass() != obj.getClass())
 			return false;
 		RdfFile other = (RdfFile) obj;
-		if (filePath == null) {
-			if (other.filePath != null)
-				return false;
-		} else {
-			if (!filePath.equals(other.filePath)) {
-				return false;
-			}
-		}
-		return true;
+		return getFilePath().equals(other.getFilePath());
 	}
 }
\ No newline at end of file
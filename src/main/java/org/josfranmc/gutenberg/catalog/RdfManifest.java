@@ -0,0 +1,256 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * It keeps the state of the RDF files read in a previous run: last modification time, size and a hash of the content of each file.<p>
+ * It allows to read only the RDF files that are new or have changed since the last run. A file is considered unchanged if its modification time 
+ * and size have not changed, or if they have changed but its content has the same hash. The files that are no longer in the catalog are reported
+ * as deleted.<p>
+ * The changes found in a run are kept apart until {@link #commit()} is called, e.g. once the books read have been loaded in the database. If the 
+ * run fails, they are discarded by the next run, so the files changed are read again.<p>
+ * The manifest is saved as a text file, with a line per file: identifier, modification time, size and hash (CRC32C), separated by tabs.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CatalogRdf
+ */
+class RdfManifest {
+
+	private static final String HEADER = "# JGutenbergCatalog RDF manifest";
+	
+	/**
+	 * File where the manifest is saved
+	 */
+	private final File file;
+	
+	/**
+	 * State of each file, with key the file identifier
+	 */
+	private final Map<String, FileState> states;
+	
+	/**
+	 * Identifiers of the files found in the current run
+	 */
+	private final Set<String> seen;
+	
+	/**
+	 * States of the files read in the current run, not commited yet
+	 */
+	private final Map<String, FileState> pending;
+	
+	/**
+	 * Identifiers of the files deleted in the current run, not commited yet
+	 */
+	private final Set<String> removed;
+	
+	
+	/**
+	 * Initializes the manifest, loading it from a file if the file exists.
+	 * @param file file where the manifest is saved
+	 * @throws IllegalArgumentException if the file is not a valid manifest
+	 * @throws IllegalStateException if the file cannot be read
+	 */
+	RdfManifest(File file) {
+		if (file == null) {
+			throw new IllegalArgumentException("Manifest file can not be null.");
+		}
+		this.file = file;
+		this.states = new ConcurrentHashMap<>();
+		this.seen = ConcurrentHashMap.newKeySet();
+		this.pending = new ConcurrentHashMap<>();
+		this.removed = ConcurrentHashMap.newKeySet();
+		if (file.exists()) {
+			load();
+		}
+	}
+	
+	private void load() {
+		try (BufferedReader reader = Files.newBufferedReader(this.file.toPath(), StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			if (!HEADER.equals(line)) {
+				throw new IllegalArgumentException("Invalid manifest file: " + this.file.getPath());
+			}
+			line = reader.readLine();
+			while (line != null) {
+				String[] fields = line.split("\t");
+				if (fields.length != 4) {
+					throw new IllegalArgumentException("Invalid manifest file: " + this.file.getPath());
+				}
+				try {
+					this.states.put(fields[0], new FileState(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3], 16)));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid manifest file: " + this.file.getPath());
+				}
+				line = reader.readLine();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading manifest file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves the manifest, without the changes not commited. It is written to a temporary file first, so a previous manifest is not lost if the write fails.
+	 * @throws IllegalStateException if the manifest cannot be saved
+	 */
+	void save() {
+		Path path = this.file.toPath().toAbsolutePath();
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				writer.write(HEADER);
+				writer.newLine();
+				for (Map.Entry<String, FileState> entry : new TreeMap<>(this.states).entrySet()) {
+					FileState state = entry.getValue();
+					writer.write(entry.getKey() + "\t" + state.lastModified + "\t" + state.size + "\t" + Long.toHexString(state.hash));
+					writer.newLine();
+				}
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error saving manifest file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Starts a new run. No file has been found yet, and the changes of a previous run not commited are discarded.
+	 */
+	void beginScan() {
+		this.seen.clear();
+		this.pending.clear();
+		this.removed.clear();
+	}
+	
+	/**
+	 * Ends the run. The files that have not been found will be removed from the manifest when the changes are commited.
+	 * @return identifiers of the files deleted since the last run, sorted
+	 */
+	Set<String> endScan() {
+		Set<String> deleted = new TreeSet<>(this.states.keySet());
+		deleted.removeAll(this.seen);
+		this.removed.addAll(deleted);
+		return deleted;
+	}
+	
+	/**
+	 * Applies the changes of the current run: the states of the files read are registered and the files deleted are removed.
+	 */
+	void commit() {
+		this.states.putAll(this.pending);
+		this.removed.forEach(this.states::remove);
+		this.pending.clear();
+		this.removed.clear();
+	}
+	
+	/**
+	 * Checks if a file has the same modification time and size as in the last run. The file is registered as found in the current run.
+	 * @param id file identifier
+	 * @param lastModified last modification time of the file
+	 * @param size size of the file
+	 * @return <i>true</i> if the file has not changed, <i>false</i> if it is new or its modification time or size have changed
+	 */
+	boolean isUnchanged(String id, long lastModified, long size) {
+		this.seen.add(id);
+		FileState state = this.states.get(id);
+		return state != null && state.lastModified == lastModified && state.size == size;
+	}
+	
+	/**
+	 * Checks if the content of a file has the same hash as in the last run. If so, the new modification time is kept once the changes are 
+	 * commited, so the content is not checked again in the next run.
+	 * @param id file identifier
+	 * @param lastModified last modification time of the file
+	 * @param content content of the file
+	 * @return <i>true</i> if the content has not changed, <i>false</i> if the file is new or its content has changed
+	 */
+	boolean hasSameContent(String id, long lastModified, byte[] content) {
+		boolean result = false;
+		FileState state = this.states.get(id);
+		if (state != null && state.size == content.length && state.hash == hash(content)) {
+			this.pending.put(id, new FileState(lastModified, content.length, state.hash));
+			result = true;
+		}
+		return result;
+	}
+	
+	/**
+	 * Registers the current state of a file, once it has been read. The state is kept when the changes are commited.
+	 * @param id file identifier
+	 * @param lastModified last modification time of the file
+	 * @param content content of the file
+	 */
+	void update(String id, long lastModified, byte[] content) {
+		this.pending.put(id, new FileState(lastModified, content.length, hash(content)));
+	}
+	
+	/**
+	 * @return number of files in the manifest, without the changes not commited
+	 */
+	int size() {
+		return this.states.size();
+	}
+	
+	/**
+	 * @return file where the manifest is saved
+	 */
+	File getFile() {
+		return this.file;
+	}
+	
+	static long hash(byte[] content) {
+		CRC32C crc = new CRC32C();
+		crc.update(content, 0, content.length);
+		return crc.getValue();
+	}
+	
+	/**
+	 * State of a file in the manifest.
+	 */
+	private static final class FileState {
+		
+		private final long lastModified;
+		
+		private final long size;
+		
+		private final long hash;
+		
+		FileState(long lastModified, long size, long hash) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.hash = hash;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Extracts the data about a book reading the RDF file as a stream of XML events (StAX).<p>
+ * The file is read in a single forward pass, without building any model in memory, and the reading stops as soon as the title, the author 
+ * and the language have been found. The following elements are taken into account:
+ * <ul>
+ * <li>title: the first <i>dcterms:title</i> element</li>
+ * <li>author: the <i>pgterms:name</i> element of the first <i>dcterms:creator</i> element. If the creator is a reference to an agent 
+ * defined elsewhere in the file (<i>rdf:resource</i> attribute), the name of that agent is returned</li>
+ * <li>language: the first <i>rdf:value</i> element inside a <i>dcterms:language</i> element</li>
+ * </ul>
+ * When a book has several creators or languages, the first ones in document order are returned, whether they are defined inline or by 
+ * reference. {@link JenaRdfExtractor} returns the values of the last SPARQL solution instead, whose order is not related to the document, 
+ * so both extractors may return a different author or language for these books.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see RdfExtractor
+ * @see JenaRdfExtractor
+ */
+public class StaxRdfExtractor implements RdfExtractor {
+
+	private static final String DCTERMS = "http://purl.org/dc/terms/";
+	
+	private static final String PGTERMS = "http://www.gutenberg.org/2009/pgterms/";
+	
+	private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+	
+	private final XMLInputFactory factory;
+	
+	
+	public StaxRdfExtractor() {
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+	
+	@Override
+	public void extract(InputStream input, Book book) throws IOException {
+		XMLStreamReader reader = null;
+		try {
+			reader = factory.createXMLStreamReader(input);
+			readFields(reader, book);
+		} catch (XMLStreamException e) {
+			throw new IOException("Invalid RDF content: " + e.getMessage(), e);
+		} finally {
+			closeReader(reader);
+		}
+	}
+	
+	private void readFields(XMLStreamReader reader, Book book) throws XMLStreamException {
+		String title = null;
+		String author = null;
+		String language = null;
+		
+		boolean creatorFound = false;
+		String creatorReference = null;
+		String currentAgent = null;
+		Map<String, String> agentNames = new HashMap<>();
+		
+		int depth = 0;
+		int creatorDepth = -1;
+		int languageDepth = -1;
+		
+		while (reader.hasNext() && (title == null || author == null || language == null)) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				String namespace = reader.getNamespaceURI();
+				String name = reader.getLocalName();
+				if (DCTERMS.equals(namespace)) {
+					if (name.equals("title") && title == null) {
+						title = reader.getElementText();
+						depth--;
+					} else if (name.equals("creator") && !creatorFound) {
+						creatorFound = true;
+						String resource = reader.getAttributeValue(RDF, "resource");
+						if (resource == null) {
+							creatorDepth = depth;
+						} else {
+							creatorReference = resource;
+							author = agentNames.get(resource);
+						}
+					} else if (name.equals("language")) {
+						languageDepth = depth;
+					}
+				} else if (PGTERMS.equals(namespace)) {
+					if (name.equals("agent")) {
+						currentAgent = reader.getAttributeValue(RDF, "about");
+					} else if (name.equals("name")) {
+						String agentName = reader.getElementText();
+						depth--;
+						if (author == null && (creatorDepth > 0 || (currentAgent != null && currentAgent.equals(creatorReference)))) {
+							author = agentName;
+						}
+						if (currentAgent != null) {
+							agentNames.putIfAbsent(currentAgent, agentName);
+						}
+					}
+				} else if (RDF.equals(namespace) && name.equals("value") && languageDepth > 0 && language == null) {
+					language = reader.getElementText();
+					depth--;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == creatorDepth) {
+					creatorDepth = -1;
+				} else if (depth == languageDepth) {
+					languageDepth = -1;
+				} else if (PGTERMS.equals(reader.getNamespaceURI()) && reader.getLocalName().equals("agent")) {
+					currentAgent = null;
+				}
+				depth--;
+			}
+		}
+		
+		if (title != null) {
+			book.setTitle(title);
+			book.setAuthor(author);
+			book.setLanguage(language);
+		}
+	}
+	
+	private void closeReader(XMLStreamReader reader) {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				// nothing to do, the input stream is closed by the caller
+			}
+		}
+	}
+}
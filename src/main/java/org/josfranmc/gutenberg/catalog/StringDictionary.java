@@ -0,0 +1,127 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.catalog;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of different strings, each one identified by an <code>int</code> code.<p>
+ * Codes are assigned consecutively, starting with zero, in the order strings are added. Each different string is stored only once, so 
+ * objects that keep the string returned by {@link #intern(String)} share the same instance. Several threads can use the dictionary at the 
+ * same time.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see BookDictionary
+ */
+final class StringDictionary {
+
+	/**
+	 * Code returned for strings which are not in the dictionary
+	 */
+	static final int NO_CODE = -1;
+	
+	private final ConcurrentMap<String, Integer> codes;
+	
+	/**
+	 * Strings of the dictionary, indexed by code
+	 */
+	private volatile String[] values;
+	
+	private int size;
+	
+	
+	StringDictionary() {
+		this.codes = new ConcurrentHashMap<>();
+		this.values = new String[64];
+	}
+	
+	/**
+	 * Returns the code of a string, adding it to the dictionary if it is not there.
+	 * @param value the string
+	 * @return the code of the string, or NO_CODE if the string is null
+	 */
+	int encode(String value) {
+		int result = NO_CODE;
+		if (value != null) {
+			Integer code = this.codes.get(value);
+			result = (code != null) ? code : add(value);
+		}
+		return result;
+	}
+	
+	private synchronized int add(String value) {
+		Integer code = this.codes.get(value);
+		if (code == null) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			code = this.size;
+			this.values[code] = value;
+			this.size++;
+			this.codes.put(value, code);
+		}
+		return code;
+	}
+	
+	/**
+	 * Returns the instance of a string stored in the dictionary, adding it if it is not there.
+	 * @param value the string
+	 * @return the string stored in the dictionary, equal to the parameter, or null if the parameter is null
+	 */
+	String intern(String value) {
+		return decode(encode(value));
+	}
+	
+	/**
+	 * Returns the string that corresponds to a code.
+	 * @param code code of the string
+	 * @return the string, or null if the code is NO_CODE
+	 * @throws IllegalArgumentException if the code is not in the dictionary
+	 */
+	String decode(int code) {
+		String result = null;
+		if (code != NO_CODE) {
+			String[] current = this.values;
+			if (code < 0 || code >= current.length || current[code] == null) {
+				throw new IllegalArgumentException("Unknown code " + code);
+			}
+			result = current[code];
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the code of a string, without adding it to the dictionary.
+	 * @param value the string
+	 * @return the code of the string, or NO_CODE if the string is not in the dictionary
+	 */
+	int getCode(String value) {
+		Integer code = (value != null) ? this.codes.get(value) : null;
+		return (code != null) ? code : NO_CODE;
+	}
+	
+	/**
+	 * @return number of strings in the dictionary
+	 */
+	int size() {
+		return this.codes.size();
+	}
+}
@@ -66,6 +66,12 @@ public abstract class DbConnection {
 	 */
 	protected abstract void setConnectionSetting(Properties settingProperties);
 	
+	/**
+	 * @return the SQL dialect of the database
+	 * @see DbDialect
+	 */
+	public abstract DbDialect getDialect();
+	
 	/**
 	 * @return returns a <code>Connection</code> object to a database
 	 * @throws SQLException if there is any error getting the connection
@@ -0,0 +1,68 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.db;
+
+/**
+ * SQL that depends on the type of database.<br>
+ * Each <code>DbConnection</code> class returns the dialect of the database it connects to.
+ * @version 2.4
+ * @author josfranmc
+ * @see DbConnection
+ */
+public enum DbDialect {
+
+	/**
+	 * HSQL databases
+	 */
+	HSQL(
+			"MERGE INTO books USING (VALUES (CAST(? AS VARCHAR(10)), CAST(? AS VARCHAR(300)), CAST(? AS VARCHAR(1000)), CAST(? AS VARCHAR(3)))) "
+			+ "AS vals (id, author, title, language) ON books.id = vals.id "
+			+ "WHEN MATCHED THEN UPDATE SET books.author = vals.author, books.title = vals.title, books.language = vals.language "
+			+ "WHEN NOT MATCHED THEN INSERT VALUES vals.id, vals.author, vals.title, vals.language"),
+	
+	/**
+	 * MySQL databases
+	 */
+	MYSQL(
+			"INSERT INTO books VALUES (?, ?, ?, ?) "
+			+ "ON DUPLICATE KEY UPDATE author = VALUES(author), title = VALUES(title), language = VALUES(language)"),
+	
+	/**
+	 * PostgreSQL databases
+	 */
+	POSTGRESQL(
+			"INSERT INTO books VALUES (?, ?, ?, ?) "
+			+ "ON CONFLICT (id) DO UPDATE SET author = EXCLUDED.author, title = EXCLUDED.title, language = EXCLUDED.language");
+	
+	private final String upsertSql;
+	
+	
+	private DbDialect(String upsertSql) {
+		this.upsertSql = upsertSql;
+	}
+	
+	/**
+	 * Returns a statement that inserts a book in the <i>books</i> table or, if the book already exists, updates its data.<br>
+	 * The parameters of the statement are the id, author, title and language of the book.
+	 * @return the SQL of the statement
+	 */
+	public String getUpsertSql() {
+		return this.upsertSql;
+	}
+}
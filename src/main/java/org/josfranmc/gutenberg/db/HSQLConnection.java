@@ -54,4 +54,13 @@ public final class HSQLConnection extends DbConnection {
 		setUser(settingProperties.getProperty("HSQL.user"));
 		setPassword(settingProperties.getProperty("HSQL.password"));
 	}
+	
+	/**
+	 * @return the SQL dialect of HSQL databases
+	 * @see DbDialect
+	 */
+	@Override
+	public DbDialect getDialect() {
+		return DbDialect.HSQL;
+	}
 }
@@ -115,4 +115,13 @@ public final class MySQLConnection extends DbConnection {
 		}
 		return url;
 	}
+	
+	/**
+	 * @return the SQL dialect of MySQL databases
+	 * @see DbDialect
+	 */
+	@Override
+	public DbDialect getDialect() {
+		return DbDialect.MYSQL;
+	}
 }
@@ -64,4 +64,13 @@ public final class PostgreSQLConnection extends DbConnection {
 		}
 		return url;
 	}
+	
+	/**
+	 * @return the SQL dialect of PostgreSQL databases
+	 * @see DbDialect
+	 */
+	@Override
+	public DbDialect getDialect() {
+		return DbDialect.POSTGRESQL;
+	}
 }
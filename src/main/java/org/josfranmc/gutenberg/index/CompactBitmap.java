@@ -0,0 +1,560 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative integers, organized as a roaring bitmap.<p>
+ * Numbers are grouped in chunks of 65536 by their 16 higher bits. Each chunk is stored in a container, as a sorted array of the 16 lower bits 
+ * if it has up to 4096 numbers, or as a bitmap of 65536 bits (8 KB) otherwise. Sparse sets take two bytes per number and dense sets one bit 
+ * per number, and intersections and unions are computed container by container, with word-wise operations between bitmaps.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public final class CompactBitmap {
+
+	/**
+	 * Maximum number of values of an array container
+	 */
+	static final int ARRAY_MAX_SIZE = 4096;
+	
+	/**
+	 * Higher 16 bits of the numbers of each container, sorted
+	 */
+	private char[] keys;
+	
+	private Container[] containers;
+	
+	/**
+	 * Number of containers
+	 */
+	private int size;
+	
+	
+	public CompactBitmap() {
+		this.keys = new char[4];
+		this.containers = new Container[4];
+	}
+	
+	/**
+	 * Creates a bitmap with some numbers.
+	 * @param values the numbers
+	 * @return the bitmap
+	 */
+	public static CompactBitmap of(int... values) {
+		CompactBitmap bitmap = new CompactBitmap();
+		for (int value : values) {
+			bitmap.add(value);
+		}
+		return bitmap;
+	}
+	
+	/**
+	 * Adds a number.
+	 * @param value non-negative number
+	 * @throws IllegalArgumentException if the number is negative
+	 */
+	public void add(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative values are not allowed.");
+		}
+		char high = (char) (value >>> 16);
+		int position = findContainer(high);
+		if (position >= 0) {
+			containers[position] = containers[position].add((char) value);
+		} else {
+			insertContainer(-position - 1, high, new ArrayContainer().add((char) value));
+		}
+	}
+	
+	/**
+	 * Removes a number.
+	 * @param value the number
+	 */
+	public void remove(int value) {
+		int position = (value >= 0) ? findContainer((char) (value >>> 16)) : -1;
+		if (position >= 0) {
+			Container container = containers[position].remove((char) value);
+			if (container.cardinality() == 0) {
+				System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+				System.arraycopy(containers, position + 1, containers, position, size - position - 1);
+				containers[--size] = null;
+			} else {
+				containers[position] = container;
+			}
+		}
+	}
+	
+	/**
+	 * Checks if the bitmap contains a number.
+	 * @param value the number
+	 * @return <i>true</i> if the number is in the bitmap, <i>false</i> otherwise
+	 */
+	public boolean contains(int value) {
+		int position = (value >= 0) ? findContainer((char) (value >>> 16)) : -1;
+		return position >= 0 && containers[position].contains((char) value);
+	}
+	
+	/**
+	 * @return number of numbers in the bitmap
+	 */
+	public int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+	
+	/**
+	 * @return <i>true</i> if the bitmap has no numbers, <i>false</i> otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Returns the numbers contained in this bitmap and in another one. Neither bitmap is modified.
+	 * @param other the other bitmap
+	 * @return a new bitmap with the intersection
+	 */
+	public CompactBitmap and(CompactBitmap other) {
+		CompactBitmap result = new CompactBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				Container container = containers[i].and(other.containers[j]);
+				if (container.cardinality() > 0) {
+					result.insertContainer(result.size, keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the number of numbers contained in this bitmap and in another one, without building the intersection.
+	 * @param other the other bitmap
+	 * @return the cardinality of the intersection
+	 */
+	public int andCardinality(CompactBitmap other) {
+		int cardinality = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				cardinality += containers[i].andCardinality(other.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		return cardinality;
+	}
+	
+	/**
+	 * Returns the numbers contained in this bitmap or in another one. Neither bitmap is modified.
+	 * @param other the other bitmap
+	 * @return a new bitmap with the union
+	 */
+	public CompactBitmap or(CompactBitmap other) {
+		CompactBitmap result = new CompactBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size || j < other.size) {
+			if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+				result.insertContainer(result.size, keys[i], containers[i].copy());
+				i++;
+			} else if (i == size || keys[i] > other.keys[j]) {
+				result.insertContainer(result.size, other.keys[j], other.containers[j].copy());
+				j++;
+			} else {
+				result.insertContainer(result.size, keys[i], containers[i].or(other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Passes the numbers of the bitmap to a consumer, in increasing order.
+	 * @param consumer object that receives the numbers
+	 */
+	public void forEach(IntConsumer consumer) {
+		for (int i = 0; i < size; i++) {
+			containers[i].forEach(keys[i] << 16, consumer);
+		}
+	}
+	
+	/**
+	 * @return the numbers of the bitmap, in increasing order
+	 */
+	public int[] toArray() {
+		int[] values = new int[cardinality()];
+		int[] count = new int[1];
+		forEach(value -> values[count[0]++] = value);
+		return values;
+	}
+	
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+	
+	private int findContainer(char high) {
+		return Arrays.binarySearch(keys, 0, size, high);
+	}
+	
+	private void insertContainer(int position, char high, Container container) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, position, keys, position + 1, size - position);
+		System.arraycopy(containers, position, containers, position + 1, size - position);
+		keys[position] = high;
+		containers[position] = container;
+		size++;
+	}
+	
+	/**
+	 * The lower 16 bits of the numbers of a chunk. Operations that change the type of container return the new container.
+	 */
+	private abstract static class Container {
+		
+		abstract Container add(char value);
+		
+		abstract Container remove(char value);
+		
+		abstract boolean contains(char value);
+		
+		abstract int cardinality();
+		
+		abstract Container and(Container other);
+		
+		abstract int andCardinality(Container other);
+		
+		abstract Container or(Container other);
+		
+		abstract Container copy();
+		
+		abstract void forEach(int high, IntConsumer consumer);
+	}
+	
+	private static final class ArrayContainer extends Container {
+		
+		private char[] values;
+		
+		private int cardinality;
+		
+		ArrayContainer() {
+			this.values = new char[4];
+		}
+		
+		ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+		
+		@Override
+		Container add(char value) {
+			Container result = this;
+			int position = Arrays.binarySearch(values, 0, cardinality, value);
+			if (position < 0) {
+				if (cardinality == ARRAY_MAX_SIZE) {
+					result = toBitmap().add(value);
+				} else {
+					position = -position - 1;
+					if (cardinality == values.length) {
+						values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_MAX_SIZE));
+					}
+					System.arraycopy(values, position, values, position + 1, cardinality - position);
+					values[position] = value;
+					cardinality++;
+				}
+			}
+			return result;
+		}
+		
+		@Override
+		Container remove(char value) {
+			int position = Arrays.binarySearch(values, 0, cardinality, value);
+			if (position >= 0) {
+				System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+				cardinality--;
+			}
+			return this;
+		}
+		
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+		
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+		
+		@Override
+		Container and(Container other) {
+			char[] result = new char[cardinality];
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) other;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality && j < array.cardinality) {
+					if (values[i] < array.values[j]) {
+						i++;
+					} else if (values[i] > array.values[j]) {
+						j++;
+					} else {
+						result[count++] = values[i];
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(values[i])) {
+						result[count++] = values[i];
+					}
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+		
+		@Override
+		int andCardinality(Container other) {
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) other;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality && j < array.cardinality) {
+					if (values[i] < array.values[j]) {
+						i++;
+					} else if (values[i] > array.values[j]) {
+						j++;
+					} else {
+						count++;
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(values[i])) {
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+		
+		@Override
+		Container or(Container other) {
+			Container result;
+			if (other instanceof BitmapContainer) {
+				result = other.or(this);
+			} else {
+				ArrayContainer array = (ArrayContainer) other;
+				char[] union = new char[cardinality + array.cardinality];
+				int count = 0;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality || j < array.cardinality) {
+					if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+						union[count++] = values[i++];
+					} else if (i == cardinality || values[i] > array.values[j]) {
+						union[count++] = array.values[j++];
+					} else {
+						union[count++] = values[i++];
+						j++;
+					}
+				}
+				ArrayContainer merged = new ArrayContainer(union, count);
+				result = (count > ARRAY_MAX_SIZE) ? merged.toBitmap() : merged;
+			}
+			return result;
+		}
+		
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+		}
+		
+		@Override
+		void forEach(int high, IntConsumer consumer) {
+			for (int i = 0; i < cardinality; i++) {
+				consumer.accept(high | values[i]);
+			}
+		}
+		
+		private BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < cardinality; i++) {
+				bitmap.add(values[i]);
+			}
+			return bitmap;
+		}
+	}
+	
+	private static final class BitmapContainer extends Container {
+		
+		private static final int WORDS = 65536 / 64;
+		
+		private final long[] words;
+		
+		private int cardinality;
+		
+		BitmapContainer() {
+			this.words = new long[WORDS];
+		}
+		
+		BitmapContainer(long[] words) {
+			this.words = words;
+			for (long word : words) {
+				cardinality += Long.bitCount(word);
+			}
+		}
+		
+		@Override
+		Container add(char value) {
+			long mask = 1L << value;
+			if ((words[value >>> 6] & mask) == 0) {
+				words[value >>> 6] |= mask;
+				cardinality++;
+			}
+			return this;
+		}
+		
+		@Override
+		Container remove(char value) {
+			Container result = this;
+			long mask = 1L << value;
+			if ((words[value >>> 6] & mask) != 0) {
+				words[value >>> 6] &= ~mask;
+				cardinality--;
+				if (cardinality <= ARRAY_MAX_SIZE) {
+					result = toArray();
+				}
+			}
+			return result;
+		}
+		
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+		
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+		
+		@Override
+		Container and(Container other) {
+			Container result;
+			if (other instanceof ArrayContainer) {
+				result = other.and(this);
+			} else {
+				long[] otherWords = ((BitmapContainer) other).words;
+				long[] intersection = new long[WORDS];
+				for (int i = 0; i < WORDS; i++) {
+					intersection[i] = words[i] & otherWords[i];
+				}
+				BitmapContainer bitmap = new BitmapContainer(intersection);
+				result = (bitmap.cardinality <= ARRAY_MAX_SIZE) ? bitmap.toArray() : bitmap;
+			}
+			return result;
+		}
+		
+		@Override
+		int andCardinality(Container other) {
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				count = other.andCardinality(this);
+			} else {
+				long[] otherWords = ((BitmapContainer) other).words;
+				for (int i = 0; i < WORDS; i++) {
+					count += Long.bitCount(words[i] & otherWords[i]);
+				}
+			}
+			return count;
+		}
+		
+		@Override
+		Container or(Container other) {
+			BitmapContainer result;
+			if (other instanceof ArrayContainer) {
+				result = (BitmapContainer) copy();
+				ArrayContainer array = (ArrayContainer) other;
+				for (int i = 0; i < array.cardinality; i++) {
+					result.add(array.values[i]);
+				}
+			} else {
+				long[] otherWords = ((BitmapContainer) other).words;
+				long[] union = new long[WORDS];
+				for (int i = 0; i < WORDS; i++) {
+					union[i] = words[i] | otherWords[i];
+				}
+				result = new BitmapContainer(union);
+			}
+			return result;
+		}
+		
+		@Override
+		Container copy() {
+			return new BitmapContainer(words.clone());
+		}
+		
+		@Override
+		void forEach(int high, IntConsumer consumer) {
+			for (int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+		
+		private ArrayContainer toArray() {
+			char[] values = new char[cardinality];
+			int[] count = new int[1];
+			forEach(0, value -> values[count[0]++] = (char) value);
+			return new ArrayContainer(values, cardinality);
+		}
+	}
+}
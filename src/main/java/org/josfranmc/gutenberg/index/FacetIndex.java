@@ -0,0 +1,228 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * An index of the books by language and author, which allows to filter books and count them by language or author without scanning the catalog.<p>
+ * Every book is given a small number, its ordinal, and for every language and every author the index keeps a <code>CompactBitmap</code> with 
+ * the ordinals of its books. Filters are intersections of bitmaps, and counts are cardinalities of intersections. Books can be added, 
+ * replaced and removed at any time: the ordinals of removed books are given to the next books added, so ordinals stay dense and bitmaps small.<p>
+ * Methods are synchronized.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see CompactBitmap
+ */
+public class FacetIndex {
+
+	/**
+	 * Books indexed, by ordinal. Removed books leave a <i>null</i> element
+	 */
+	private final List<Book> books;
+	
+	/**
+	 * Ordinals of the books, by book identifier
+	 */
+	private final Map<String, Integer> ordinals;
+	
+	/**
+	 * Ordinals of removed books, available for new books
+	 */
+	private final Deque<Integer> freeOrdinals;
+	
+	/**
+	 * Ordinals of all the books indexed
+	 */
+	private final CompactBitmap all;
+	
+	private final Map<String, CompactBitmap> languages;
+	
+	private final Map<String, CompactBitmap> authors;
+	
+	
+	public FacetIndex() {
+		this.books = new ArrayList<>();
+		this.ordinals = new HashMap<>();
+		this.freeOrdinals = new ArrayDeque<>();
+		this.all = new CompactBitmap();
+		this.languages = new HashMap<>();
+		this.authors = new HashMap<>();
+	}
+	
+	/**
+	 * Adds a book to the index. If a book with the same identifier has already been added, it is replaced.
+	 * @param book the book
+	 * @return <i>true</i> if the book is new, <i>false</i> if it has replaced a previous book
+	 * @throws IllegalArgumentException if the book or its identifier are <i>null</i>
+	 */
+	public synchronized boolean add(Book book) {
+		if (book == null || book.getId() == null) {
+			throw new IllegalArgumentException("Book and book identifier can not be null.");
+		}
+		boolean result = !remove(book.getId());
+		int ordinal;
+		if (freeOrdinals.isEmpty()) {
+			ordinal = books.size();
+			books.add(book);
+		} else {
+			ordinal = freeOrdinals.pop();
+			books.set(ordinal, book);
+		}
+		ordinals.put(book.getId(), ordinal);
+		all.add(ordinal);
+		if (book.getLanguage() != null) {
+			languages.computeIfAbsent(book.getLanguage(), language -> new CompactBitmap()).add(ordinal);
+		}
+		if (book.getAuthor() != null) {
+			authors.computeIfAbsent(book.getAuthor(), author -> new CompactBitmap()).add(ordinal);
+		}
+		return result;
+	}
+	
+	/**
+	 * Removes a book from the index.
+	 * @param id identifier of the book
+	 * @return <i>true</i> if the book has been removed, <i>false</i> if it was not indexed
+	 */
+	public synchronized boolean remove(String id) {
+		Integer ordinal = ordinals.remove(id);
+		if (ordinal != null) {
+			Book book = books.get(ordinal);
+			removeOrdinal(languages, book.getLanguage(), ordinal);
+			removeOrdinal(authors, book.getAuthor(), ordinal);
+			all.remove(ordinal);
+			books.set(ordinal, null);
+			freeOrdinals.push(ordinal);
+		}
+		return ordinal != null;
+	}
+	
+	/**
+	 * Returns the books of a language and an author.
+	 * @param language language of the books, or <i>null</i> for any language
+	 * @param author author of the books, or <i>null</i> for any author
+	 * @return the books found, in no particular order
+	 */
+	public synchronized List<Book> getBooks(String language, String author) {
+		List<Book> result = new ArrayList<>();
+		filter(language, author).forEach(ordinal -> result.add(books.get(ordinal)));
+		return result;
+	}
+	
+	/**
+	 * Counts the books of a language and an author.
+	 * @param language language of the books, or <i>null</i> for any language
+	 * @param author author of the books, or <i>null</i> for any author
+	 * @return number of books
+	 */
+	public synchronized int count(String language, String author) {
+		int result;
+		if (language != null && author != null) {
+			result = getBitmap(languages, language).andCardinality(getBitmap(authors, author));
+		} else {
+			result = filter(language, author).cardinality();
+		}
+		return result;
+	}
+	
+	/**
+	 * Counts the books of every language, optionally only the books of an author.
+	 * @param author author of the books counted, or <i>null</i> for any author
+	 * @return number of books by language, from the language with more books to the language with less books. Languages without books are 
+	 * not included
+	 */
+	public synchronized Map<String, Integer> getLanguageCounts(String author) {
+		return countFacet(languages, (author != null) ? getBitmap(authors, author) : all, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Counts the books of the authors with more books, optionally only the books in a language.
+	 * @param language language of the books counted, or <i>null</i> for any language
+	 * @param limit maximum number of authors returned
+	 * @return number of books by author, from the author with more books to the author with less books. Authors without books are not included
+	 * @throws IllegalArgumentException if the limit is less than one
+	 */
+	public synchronized Map<String, Integer> getAuthorCounts(String language, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be greater than zero.");
+		}
+		return countFacet(authors, (language != null) ? getBitmap(languages, language) : all, limit);
+	}
+	
+	/**
+	 * @return number of books indexed
+	 */
+	public synchronized int size() {
+		return ordinals.size();
+	}
+	
+	private CompactBitmap filter(String language, String author) {
+		CompactBitmap result = all;
+		if (language != null) {
+			result = result.and(getBitmap(languages, language));
+		}
+		if (author != null) {
+			result = result.and(getBitmap(authors, author));
+		}
+		return result;
+	}
+	
+	private CompactBitmap getBitmap(Map<String, CompactBitmap> facet, String value) {
+		CompactBitmap bitmap = facet.get(value);
+		return (bitmap != null) ? bitmap : new CompactBitmap();
+	}
+	
+	private void removeOrdinal(Map<String, CompactBitmap> facet, String value, int ordinal) {
+		CompactBitmap bitmap = (value != null) ? facet.get(value) : null;
+		if (bitmap != null) {
+			bitmap.remove(ordinal);
+			if (bitmap.isEmpty()) {
+				facet.remove(value);
+			}
+		}
+	}
+	
+	/**
+	 * Counts the books of every value of a facet that are in a filter, and returns the values with more books.
+	 */
+	private Map<String, Integer> countFacet(Map<String, CompactBitmap> facet, CompactBitmap filter, int limit) {
+		List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+		for (Map.Entry<String, CompactBitmap> entry : facet.entrySet()) {
+			int count = (filter == all) ? entry.getValue().cardinality() : entry.getValue().andCardinality(filter);
+			if (count > 0) {
+				counts.add(Map.entry(entry.getKey(), count));
+			}
+		}
+		counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+		Map<String, Integer> result = new LinkedHashMap<>();
+		for (int i = 0; i < counts.size() && i < limit; i++) {
+			result.put(counts.get(i).getKey(), counts.get(i).getValue());
+		}
+		return result;
+	}
+}
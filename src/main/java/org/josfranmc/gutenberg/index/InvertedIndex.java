@@ -0,0 +1,332 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * An in-memory inverted index of the titles and authors of the books, which allows to search books by the words they contain.<p>
+ * Texts are split in terms by the <code>TextNormalizer</code> class. Every book added is given a document number, and for every term the index 
+ * keeps the list of documents that contain it, compressed (see <code>PostingList</code>). Words in the title weigh twice as much as words in 
+ * the author.<p>
+ * Queries return the books that contain all the terms (<code>AND</code>) or any of them (<code>OR</code>), ranked by the sum of the weights 
+ * of the terms found multiplied by the inverse document frequency of each term, so rare terms rank higher than common ones.<p>
+ * Books can be added while the index is being searched. The index is guarded by a read-write lock, so several searches can run at the 
+ * same time, and only adding books or compacting the index makes them wait.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see TextNormalizer
+ */
+public class InvertedIndex {
+
+	/**
+	 * How the terms of a query are combined
+	 */
+	public enum Operator {
+		/** Books must contain all the terms */
+		AND,
+		/** Books must contain any of the terms */
+		OR
+	}
+	
+	/**
+	 * Weight of a term each time it appears in the title of a book
+	 */
+	static final int TITLE_WEIGHT = 2;
+	
+	/**
+	 * Weight of a term each time it appears in the author of a book
+	 */
+	static final int AUTHOR_WEIGHT = 1;
+	
+	/**
+	 * Books indexed, the position of a book is its document number
+	 */
+	private final List<Book> books;
+	
+	/**
+	 * Identifiers of the books indexed
+	 */
+	private final Set<String> ids;
+	
+	private final Map<String, PostingList> postings;
+	
+	private final ReadWriteLock lock;
+	
+	
+	public InvertedIndex() {
+		this.books = new ArrayList<>();
+		this.ids = new HashSet<>();
+		this.postings = new HashMap<>();
+		this.lock = new ReentrantReadWriteLock();
+	}
+	
+	/**
+	 * Adds a book to the index. Books already indexed, according to their identifier, are ignored.
+	 * @param book the book
+	 * @return <i>true</i> if the book has been added, <i>false</i> if it was already indexed
+	 * @throws IllegalArgumentException if the book or its identifier are <i>null</i>
+	 */
+	public boolean add(Book book) {
+		if (book == null || book.getId() == null) {
+			throw new IllegalArgumentException("Book and book identifier can not be null.");
+		}
+		Map<String, Integer> weights = new HashMap<>();
+		for (String term : TextNormalizer.tokenize(book.getTitle())) {
+			weights.merge(term, TITLE_WEIGHT, Integer::sum);
+		}
+		for (String term : TextNormalizer.tokenize(book.getAuthor())) {
+			weights.merge(term, AUTHOR_WEIGHT, Integer::sum);
+		}
+		boolean result;
+		lock.writeLock().lock();
+		try {
+			result = ids.add(book.getId());
+			if (result) {
+				int document = books.size();
+				books.add(book);
+				for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+					postings.computeIfAbsent(weight.getKey(), term -> new PostingList()).add(document, weight.getValue());
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return result;
+	}
+	
+	/**
+	 * Searches the books that contain the terms of a query, in their title or author.
+	 * @param query the words to search
+	 * @param operator whether books must contain all the terms or any of them
+	 * @param limit maximum number of books returned
+	 * @return the books found, from the most relevant to the least relevant. Books with the same score are returned in the order they were added
+	 * @throws IllegalArgumentException if the operator is <i>null</i> or the limit is less than one
+	 */
+	public List<SearchHit> search(String query, Operator operator, int limit) {
+		if (operator == null) {
+			throw new IllegalArgumentException("Operator can not be null.");
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be greater than zero.");
+		}
+		Set<String> terms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+		List<SearchHit> result;
+		lock.readLock().lock();
+		try {
+			List<PostingList> lists = new ArrayList<>();
+			boolean missing = false;
+			for (String term : terms) {
+				PostingList list = postings.get(term);
+				if (list != null) {
+					lists.add(list);
+				} else {
+					missing = true;
+				}
+			}
+			if (lists.isEmpty() || (missing && operator == Operator.AND)) {
+				result = Collections.emptyList();
+			} else {
+				lists.sort(Comparator.comparingInt(PostingList::size));
+				Matches matches = decode(lists.get(0));
+				for (int i = 1; i < lists.size(); i++) {
+					Matches other = decode(lists.get(i));
+					matches = (operator == Operator.AND) ? matches.intersect(other) : matches.union(other);
+				}
+				result = rank(matches, limit);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+	
+	/**
+	 * @return number of books indexed
+	 */
+	public int size() {
+		int result;
+		lock.readLock().lock();
+		try {
+			result = books.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+	
+	/**
+	 * @return number of different terms indexed
+	 */
+	public int getTermCount() {
+		int result;
+		lock.readLock().lock();
+		try {
+			result = postings.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+	
+	/**
+	 * @return number of bytes used by the compressed lists of documents
+	 */
+	public long getPostingBytes() {
+		long bytes = 0;
+		lock.readLock().lock();
+		try {
+			for (PostingList list : postings.values()) {
+				bytes += list.byteSize();
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Releases the memory reserved for books not added yet. It should be called once all the books have been added.
+	 */
+	public void compact() {
+		lock.writeLock().lock();
+		try {
+			for (PostingList list : postings.values()) {
+				list.trim();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Decodes the documents of a term, scored by the weight of the term in each document and its inverse document frequency.
+	 */
+	private Matches decode(PostingList list) {
+		int[] documents = new int[list.size()];
+		int[] weights = new int[list.size()];
+		list.decode(documents, weights);
+		double idf = Math.log(1.0 + (double) books.size() / list.size());
+		double[] scores = new double[list.size()];
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = weights[i] * idf;
+		}
+		return new Matches(documents, scores, documents.length);
+	}
+	
+	/**
+	 * Selects the documents with the best scores, using a heap of <i>limit</i> elements.
+	 */
+	private List<SearchHit> rank(Matches matches, int limit) {
+		Comparator<Integer> worstFirst = (a, b) -> (matches.scores[a] != matches.scores[b]) 
+				? Double.compare(matches.scores[a], matches.scores[b]) 
+				: Integer.compare(matches.documents[b], matches.documents[a]);
+		PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, matches.size) + 1, worstFirst);
+		for (int i = 0; i < matches.size; i++) {
+			best.add(i);
+			if (best.size() > limit) {
+				best.poll();
+			}
+		}
+		SearchHit[] hits = new SearchHit[best.size()];
+		for (int i = hits.length - 1; i >= 0; i--) {
+			int match = best.poll();
+			hits[i] = new SearchHit(books.get(matches.documents[match]), matches.scores[match]);
+		}
+		return Arrays.asList(hits);
+	}
+	
+	/**
+	 * Documents that match a query, in increasing order, with their scores.
+	 */
+	private static final class Matches {
+		
+		private final int[] documents;
+		
+		private final double[] scores;
+		
+		private final int size;
+		
+		Matches(int[] documents, double[] scores, int size) {
+			this.documents = documents;
+			this.scores = scores;
+			this.size = size;
+		}
+		
+		/**
+		 * Documents in both lists, with the sum of their scores.
+		 */
+		Matches intersect(Matches other) {
+			int[] resultDocuments = new int[Math.min(size, other.size)];
+			double[] resultScores = new double[resultDocuments.length];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < size && j < other.size) {
+				if (documents[i] < other.documents[j]) {
+					i++;
+				} else if (documents[i] > other.documents[j]) {
+					j++;
+				} else {
+					resultDocuments[count] = documents[i];
+					resultScores[count++] = scores[i++] + other.scores[j++];
+				}
+			}
+			return new Matches(resultDocuments, resultScores, count);
+		}
+		
+		/**
+		 * Documents in any of the lists, with the sum of their scores.
+		 */
+		Matches union(Matches other) {
+			int[] resultDocuments = new int[size + other.size];
+			double[] resultScores = new double[resultDocuments.length];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < size || j < other.size) {
+				if (j == other.size || (i < size && documents[i] < other.documents[j])) {
+					resultDocuments[count] = documents[i];
+					resultScores[count++] = scores[i++];
+				} else if (i == size || documents[i] > other.documents[j]) {
+					resultDocuments[count] = other.documents[j];
+					resultScores[count++] = other.scores[j++];
+				} else {
+					resultDocuments[count] = documents[i];
+					resultScores[count++] = scores[i++] + other.scores[j++];
+				}
+			}
+			return new Matches(resultDocuments, resultScores, count);
+		}
+	}
+}
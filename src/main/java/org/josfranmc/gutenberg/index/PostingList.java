@@ -0,0 +1,139 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.util.Arrays;
+
+/**
+ * The list of the documents that contain a term, with the weight of the term in each document.<p>
+ * Documents are added in increasing order and stored compressed: each entry is the difference with the previous document followed by the 
+ * weight, both encoded as variable length integers (7 bits per byte). Identifiers of consecutive books usually differ in less than 128, so 
+ * most entries take two bytes.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+final class PostingList {
+
+	private static final int INITIAL_CAPACITY = 8;
+	
+	private byte[] data;
+	
+	/**
+	 * Number of bytes used
+	 */
+	private int length;
+	
+	/**
+	 * Number of documents
+	 */
+	private int size;
+	
+	/**
+	 * Last document added
+	 */
+	private int lastDocument;
+	
+	
+	PostingList() {
+		this.data = new byte[INITIAL_CAPACITY];
+		this.lastDocument = -1;
+	}
+	
+	/**
+	 * Adds a document, which must be greater than the documents already added.
+	 * @param document the document number
+	 * @param weight weight of the term in the document, greater than zero
+	 * @throws IllegalArgumentException if the document is not greater than the last document added
+	 */
+	void add(int document, int weight) {
+		if (document <= lastDocument) {
+			throw new IllegalArgumentException("Documents must be added in increasing order.");
+		}
+		write(document - lastDocument);
+		write(weight);
+		lastDocument = document;
+		size++;
+	}
+	
+	/**
+	 * @return the number of documents
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * @return the number of bytes used to store the documents
+	 */
+	int byteSize() {
+		return length;
+	}
+	
+	/**
+	 * Decodes the list.
+	 * @param documents array where the documents are stored, with at least <code>size()</code> elements
+	 * @param weights array where the weights are stored, with at least <code>size()</code> elements
+	 */
+	void decode(int[] documents, int[] weights) {
+		int position = 0;
+		int document = -1;
+		for (int i = 0; i < size; i++) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			document += value;
+			documents[i] = document;
+			
+			value = 0;
+			shift = 0;
+			do {
+				b = data[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			weights[i] = value;
+		}
+	}
+	
+	/**
+	 * Releases the unused capacity.
+	 */
+	void trim() {
+		if (data.length > length) {
+			data = Arrays.copyOf(data, length);
+		}
+	}
+	
+	private void write(int value) {
+		if (length + 5 > data.length) {
+			data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+		}
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			data[length++] = (byte) ((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		data[length++] = (byte) remaining;
+	}
+}
@@ -0,0 +1,357 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * A compact index of the titles and authors of the books, which returns the titles and authors that begin with a prefix, for autocompletion.<p>
+ * Titles and authors are normalized with the <code>TextNormalizer</code> class, so prefixes are compared ignoring case, accents and punctuation. 
+ * Authors written as <i>Last name, First name</i> can also be found by their first name. Every different text is stored once, with the number 
+ * of books that have it, in arrays sorted by normalized text: the texts that begin with a prefix are a range of the arrays, found by binary 
+ * search, and the completions returned are the texts of that range with more books.<p>
+ * The index is immutable once built (see {@link Builder}), and it can be saved to a file and loaded later without reading the books again.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see TextNormalizer
+ */
+public class PrefixIndex {
+
+	/**
+	 * Identifies prefix index files
+	 */
+	static final int MAGIC = 0x4A475058;
+	
+	/**
+	 * Version of the file format
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * Field of the book a completion comes from
+	 */
+	public enum Field {
+		TITLE,
+		AUTHOR
+	}
+	
+	/**
+	 * Normalized texts, sorted
+	 */
+	private final String[] keys;
+	
+	/**
+	 * Texts as they are written in the books
+	 */
+	private final String[] texts;
+	
+	private final Field[] fields;
+	
+	/**
+	 * Number of books of every text
+	 */
+	private final int[] counts;
+	
+	
+	private PrefixIndex(String[] keys, String[] texts, Field[] fields, int[] counts) {
+		this.keys = keys;
+		this.texts = texts;
+		this.fields = fields;
+		this.counts = counts;
+	}
+	
+	/**
+	 * Returns the titles and authors that begin with a prefix.
+	 * @param prefix the beginning of a title or author, as typed by the user
+	 * @param limit maximum number of completions returned
+	 * @return the completions, from the text with more books to the text with less books. Texts with the same number of books are sorted 
+	 * alphabetically. If the prefix is empty no completion is returned
+	 * @throws IllegalArgumentException if the limit is less than one
+	 */
+	public List<Completion> complete(String prefix, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be greater than zero.");
+		}
+		String key = toKey(prefix);
+		List<Completion> result;
+		if (key.isEmpty()) {
+			result = Collections.emptyList();
+		} else {
+			int from = lowerBound(key);
+			int to = lowerBound(key + Character.MAX_VALUE);
+			Comparator<Integer> worstFirst = (a, b) -> (counts[a] != counts[b]) ? Integer.compare(counts[a], counts[b]) : Integer.compare(b, a);
+			PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, to - from) + 1, worstFirst);
+			for (int i = from; i < to; i++) {
+				best.add(i);
+				if (best.size() > limit) {
+					best.poll();
+				}
+			}
+			Completion[] completions = new Completion[best.size()];
+			for (int i = completions.length - 1; i >= 0; i--) {
+				int entry = best.poll();
+				completions[i] = new Completion(texts[entry], fields[entry], counts[entry]);
+			}
+			result = Arrays.asList(completions);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return number of different texts indexed
+	 */
+	public int size() {
+		return keys.length;
+	}
+	
+	/**
+	 * Saves the index to a file. The file is written to a temporary file first, so a previous file is not damaged if the write fails.
+	 * @param file the file
+	 * @throws IllegalStateException if the file cannot be written
+	 */
+	public void save(File file) {
+		if (file == null) {
+			throw new IllegalArgumentException("Invalid path to prefix index file.");
+		}
+		Path path = file.toPath().toAbsolutePath();
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(keys.length);
+				for (int i = 0; i < keys.length; i++) {
+					output.writeUTF(keys[i]);
+					output.writeUTF(texts[i]);
+					output.writeByte(fields[i].ordinal());
+					output.writeInt(counts[i]);
+				}
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error saving prefix index file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Loads an index saved with the {@link #save(File)} method.
+	 * @param file the file
+	 * @return the index
+	 * @throws IllegalArgumentException if the file is not a valid prefix index
+	 * @throws IllegalStateException if the file cannot be read
+	 */
+	public static PrefixIndex load(File file) {
+		if (file == null || !file.isFile()) {
+			throw new IllegalArgumentException("Invalid path to prefix index file.");
+		}
+		PrefixIndex result;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (input.readInt() != MAGIC) {
+				throw new IllegalArgumentException("Invalid prefix index file.");
+			}
+			int version = input.readInt();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported prefix index version: " + version);
+			}
+			int size = input.readInt();
+			String[] keys = new String[size];
+			String[] texts = new String[size];
+			Field[] fields = new Field[size];
+			int[] counts = new int[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = input.readUTF();
+				texts[i] = input.readUTF();
+				int field = input.readByte();
+				if (field < 0 || field >= Field.values().length) {
+					throw new IllegalArgumentException("Invalid prefix index file.");
+				}
+				fields[i] = Field.values()[field];
+				counts[i] = input.readInt();
+			}
+			result = new PrefixIndex(keys, texts, fields, counts);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error reading prefix index file: " + e.getMessage());
+		}
+		return result;
+	}
+	
+	/**
+	 * Position of the first key not less than a text.
+	 */
+	private int lowerBound(String text) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (keys[middle].compareTo(text) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	/**
+	 * Normalizes a text and joins its terms with single spaces.
+	 */
+	static String toKey(String text) {
+		return String.join(" ", TextNormalizer.tokenize(text));
+	}
+	
+	/**
+	 * A title or author that begins with the prefix searched.
+	 */
+	public static final class Completion {
+		
+		private final String text;
+		
+		private final Field field;
+		
+		private final int count;
+		
+		Completion(String text, Field field, int count) {
+			this.text = text;
+			this.field = field;
+			this.count = count;
+		}
+
+		/**
+		 * @return the title or author, as it is written in the books
+		 */
+		public String getText() {
+			return text;
+		}
+
+		/**
+		 * @return whether the text is a title or an author
+		 */
+		public Field getField() {
+			return field;
+		}
+
+		/**
+		 * @return number of books with this title or author
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return "Completion [text=" + text + ", field=" + field + ", count=" + count + "]";
+		}
+	}
+	
+	/**
+	 * It builds a <code>PrefixIndex</code> object from books.
+	 */
+	public static class Builder {
+		
+		/**
+		 * Entries found, by field and normalized text
+		 */
+		private final Map<String, Entry> entries = new HashMap<>();
+		
+		/**
+		 * Adds the title and the author of a book.
+		 * @param book the book
+		 * @return a reference to this object
+		 * @throws IllegalArgumentException if the book is <i>null</i>
+		 */
+		public Builder add(Book book) {
+			if (book == null) {
+				throw new IllegalArgumentException("Book can not be null.");
+			}
+			addText(book.getTitle(), Field.TITLE, toKey(book.getTitle()));
+			String author = book.getAuthor();
+			addText(author, Field.AUTHOR, toKey(author));
+			int comma = (author != null) ? author.indexOf(',') : -1;
+			if (comma > 0) {
+				addText(author, Field.AUTHOR, toKey(author.substring(comma + 1) + " " + author.substring(0, comma)));
+			}
+			return this;
+		}
+		
+		/**
+		 * Builds the index with the books added.
+		 * @return the index
+		 */
+		public PrefixIndex build() {
+			List<Entry> sorted = new ArrayList<>(entries.values());
+			sorted.sort(Comparator.comparing((Entry entry) -> entry.key).thenComparing(entry -> entry.field));
+			String[] keys = new String[sorted.size()];
+			String[] texts = new String[sorted.size()];
+			Field[] fields = new Field[sorted.size()];
+			int[] counts = new int[sorted.size()];
+			for (int i = 0; i < keys.length; i++) {
+				Entry entry = sorted.get(i);
+				keys[i] = entry.key;
+				texts[i] = entry.text;
+				fields[i] = entry.field;
+				counts[i] = entry.count;
+			}
+			return new PrefixIndex(keys, texts, fields, counts);
+		}
+		
+		private void addText(String text, Field field, String key) {
+			if (!key.isEmpty()) {
+				entries.computeIfAbsent(field.ordinal() + key, k -> new Entry(key, text, field)).count++;
+			}
+		}
+	}
+	
+	private static final class Entry {
+		
+		private final String key;
+		
+		private final String text;
+		
+		private final Field field;
+		
+		private int count;
+		
+		Entry(String key, String text, Field field) {
+			this.key = key;
+			this.text = text;
+			this.field = field;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * A book found by a search, with the score used to rank it.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public final class SearchHit {
+
+	private final Book book;
+	
+	private final double score;
+	
+	
+	/**
+	 * @param book the book found
+	 * @param score relevance of the book for the search, the higher the more relevant
+	 */
+	public SearchHit(Book book, double score) {
+		this.book = book;
+		this.score = score;
+	}
+
+	public Book getBook() {
+		return book;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchHit [book=" + book + ", score=" + score + "]";
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * It splits texts in the terms used by the search indexes.<p>
+ * Texts are split at every character that is neither a letter nor a digit. Terms are converted to lower case and accents and other diacritical 
+ * marks are removed, so <i>Éxodo</i> and <i>exodo</i> are the same term.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public final class TextNormalizer {
+
+	private TextNormalizer() {
+	}
+	
+	/**
+	 * Splits a text in normalized terms.
+	 * @param text the text, it may be <i>null</i>
+	 * @return the terms of the text, in the order they appear in it
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> terms;
+		if (text == null || text.isEmpty()) {
+			terms = Collections.emptyList();
+		} else {
+			terms = new ArrayList<>();
+			String normalized = normalize(text);
+			int start = -1;
+			for (int i = 0; i <= normalized.length(); i++) {
+				boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+				if (wordChar && start < 0) {
+					start = i;
+				} else if (!wordChar && start >= 0) {
+					terms.add(normalized.substring(start, i));
+					start = -1;
+				}
+			}
+		}
+		return terms;
+	}
+	
+	/**
+	 * Converts a text to lower case and removes its diacritical marks.
+	 * @param text the text
+	 * @return the normalized text
+	 */
+	public static String normalize(String text) {
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder result = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			if (Character.getType(c) != Character.NON_SPACING_MARK) {
+				result.append(c);
+			}
+		}
+		return result.toString().toLowerCase(Locale.ROOT);
+	}
+}
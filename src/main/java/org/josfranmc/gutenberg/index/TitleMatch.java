@@ -0,0 +1,71 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * A book whose title is similar to the title searched.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see TrigramIndex
+ */
+public final class TitleMatch {
+
+	private final Book book;
+	
+	private final int distance;
+	
+	private final double similarity;
+	
+	
+	/**
+	 * @param book the book found
+	 * @param distance edit distance between the normalized titles
+	 * @param similarity similarity between the normalized titles, from 0 to 1
+	 */
+	public TitleMatch(Book book, int distance, double similarity) {
+		this.book = book;
+		this.distance = distance;
+		this.similarity = similarity;
+	}
+
+	public Book getBook() {
+		return book;
+	}
+
+	/**
+	 * @return the number of characters that must be inserted, deleted or replaced to turn one normalized title into the other
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+	/**
+	 * @return one minus the edit distance divided by the length of the longest normalized title
+	 */
+	public double getSimilarity() {
+		return similarity;
+	}
+
+	@Override
+	public String toString() {
+		return "TitleMatch [book=" + book + ", distance=" + distance + ", similarity=" + similarity + "]";
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * An index of the trigrams of the titles of the books, which finds the titles similar to a given one without comparing it with every title.<p>
+ * Titles are normalized with the <code>TextNormalizer</code> class, so case, accents, punctuation and line breaks are ignored. Every normalized 
+ * title, padded with two marks at each end, is split in its trigrams (sequences of three characters), and for every trigram the index keeps 
+ * the list of titles that contain it and how many times (see <code>PostingList</code>).<p>
+ * A lookup counts the trigrams every title shares with the title searched. A single edit changes at most three trigrams, so a title within an 
+ * edit distance <i>k</i> shares at least <i>n - 3k</i> of its <i>n</i> trigrams: titles below that bound, or whose length differs in more than 
+ * <i>k</i>, are discarded without computing their distance. Only the remaining candidates are verified with the edit distance.<p>
+ * Methods are synchronized.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see TitleMatch
+ */
+public class TrigramIndex {
+
+	/**
+	 * Character added at both ends of the titles
+	 */
+	private static final char PADDING = '\0';
+	
+	private final List<Book> books;
+	
+	/**
+	 * Normalized titles, by document number
+	 */
+	private final List<String> titles;
+	
+	/**
+	 * Identifiers of the books indexed
+	 */
+	private final Set<String> ids;
+	
+	private final Map<Long, PostingList> postings;
+	
+	/**
+	 * Trigrams shared by every document with the title searched, reused between lookups
+	 */
+	private int[] shared;
+	
+	
+	public TrigramIndex() {
+		this.books = new ArrayList<>();
+		this.titles = new ArrayList<>();
+		this.ids = new HashSet<>();
+		this.postings = new HashMap<>();
+		this.shared = new int[0];
+	}
+	
+	/**
+	 * Adds the title of a book to the index. Books already indexed, according to their identifier, and books without title are ignored.
+	 * @param book the book
+	 * @return <i>true</i> if the book has been added, <i>false</i> otherwise
+	 * @throws IllegalArgumentException if the book or its identifier are <i>null</i>
+	 */
+	public synchronized boolean add(Book book) {
+		if (book == null || book.getId() == null) {
+			throw new IllegalArgumentException("Book and book identifier can not be null.");
+		}
+		String title = PrefixIndex.toKey(book.getTitle());
+		boolean result = !title.isEmpty() && ids.add(book.getId());
+		if (result) {
+			int document = books.size();
+			books.add(book);
+			titles.add(title);
+			for (Map.Entry<Long, Integer> trigram : trigrams(title).entrySet()) {
+				postings.computeIfAbsent(trigram.getKey(), key -> new PostingList()).add(document, trigram.getValue());
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Finds the books whose title is similar to a given title.
+	 * @param title the title searched
+	 * @param minSimilarity minimum similarity of the titles found, from 0 to 1. The similarity is one minus the edit distance divided by the 
+	 * length of the longest normalized title, e.g. 0.9 allows one edit every ten characters. Titles that share no trigram with the title 
+	 * searched are never found, which only matters for very low similarities
+	 * @param limit maximum number of books returned
+	 * @return the books found, from the most similar to the least similar. Books with the same similarity are returned in the order they were added
+	 * @throws IllegalArgumentException if the similarity is not between 0 and 1 or the limit is less than one
+	 */
+	public synchronized List<TitleMatch> find(String title, double minSimilarity, int limit) {
+		if (minSimilarity < 0 || minSimilarity > 1) {
+			throw new IllegalArgumentException("Similarity must be between 0 and 1.");
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be greater than zero.");
+		}
+		String key = PrefixIndex.toKey(title);
+		List<TitleMatch> matches = new ArrayList<>();
+		if (!key.isEmpty()) {
+			if (shared.length < books.size()) {
+				shared = new int[books.size()];
+			}
+			int[] candidates = countSharedTrigrams(key);
+			for (int document : candidates) {
+				TitleMatch match = verify(key, document, minSimilarity);
+				if (match != null) {
+					matches.add(match);
+				}
+				shared[document] = 0;
+			}
+			matches.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+		}
+		return (matches.size() > limit) ? new ArrayList<>(matches.subList(0, limit)) : matches;
+	}
+	
+	/**
+	 * @return number of books indexed
+	 */
+	public synchronized int size() {
+		return books.size();
+	}
+	
+	/**
+	 * Releases the memory reserved for books not added yet. It should be called once all the books have been added.
+	 */
+	public synchronized void compact() {
+		for (PostingList list : postings.values()) {
+			list.trim();
+		}
+	}
+	
+	/**
+	 * Adds to <code>shared</code> the trigrams of the title searched found in every document.
+	 * @return the documents that share any trigram, in increasing order
+	 */
+	private int[] countSharedTrigrams(String key) {
+		int[] touched = new int[16];
+		int count = 0;
+		for (Map.Entry<Long, Integer> trigram : trigrams(key).entrySet()) {
+			PostingList list = postings.get(trigram.getKey());
+			if (list != null) {
+				int[] documents = new int[list.size()];
+				int[] occurrences = new int[list.size()];
+				list.decode(documents, occurrences);
+				for (int i = 0; i < documents.length; i++) {
+					if (shared[documents[i]] == 0) {
+						if (count == touched.length) {
+							touched = Arrays.copyOf(touched, count * 2);
+						}
+						touched[count++] = documents[i];
+					}
+					shared[documents[i]] += Math.min(trigram.getValue(), occurrences[i]);
+				}
+			}
+		}
+		int[] result = Arrays.copyOf(touched, count);
+		Arrays.sort(result);
+		return result;
+	}
+	
+	/**
+	 * Checks if a candidate is similar enough, discarding it by its length and shared trigrams before computing the edit distance.
+	 * @return the match, or <i>null</i> if the title is not similar enough
+	 */
+	private TitleMatch verify(String key, int document, double minSimilarity) {
+		TitleMatch result = null;
+		String candidate = titles.get(document);
+		int maxLength = Math.max(key.length(), candidate.length());
+		int maxDistance = (int) Math.floor((1 - minSimilarity) * maxLength + 1e-9);
+		if (Math.abs(key.length() - candidate.length()) <= maxDistance && shared[document] >= maxLength + 2 - 3 * maxDistance) {
+			int distance = distance(key, candidate, maxDistance);
+			if (distance <= maxDistance) {
+				result = new TitleMatch(books.get(document), distance, 1 - (double) distance / maxLength);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Counts the trigrams of a normalized title, padded with two marks at each end.
+	 * @return number of occurrences of every trigram, the trigram is encoded as the 16 bits of each of its characters
+	 */
+	static Map<Long, Integer> trigrams(String key) {
+		String padded = "" + PADDING + PADDING + key + PADDING + PADDING;
+		Map<Long, Integer> trigrams = new HashMap<>();
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			long trigram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+			trigrams.merge(trigram, 1, Integer::sum);
+		}
+		return trigrams;
+	}
+	
+	/**
+	 * Computes the edit distance (Levenshtein) between two strings, stopping as soon as it exceeds a maximum.
+	 * @param a a string
+	 * @param b another string
+	 * @param max maximum distance of interest
+	 * @return the edit distance, or a number greater than <i>max</i> if the distance is greater than <i>max</i>
+	 */
+	static int distance(String a, String b, int max) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		int rowMin = 0;
+		for (int i = 1; i <= a.length() && rowMin <= max; i++) {
+			current[0] = i;
+			rowMin = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return (rowMin > max) ? max + 1 : previous[b.length()];
+	}
+}
@@ -0,0 +1,391 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.josfranmc.gutenberg.catalog.Book;
+import org.josfranmc.gutenberg.catalog.JGutenbergCatalog;
+import org.josfranmc.gutenberg.index.InvertedIndex;
+import org.josfranmc.gutenberg.index.PrefixIndex;
+import org.josfranmc.gutenberg.index.SearchHit;
+import org.josfranmc.gutenberg.index.TitleMatch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A HTTP server that answers lookups and searches on a <code>JGutenbergCatalog</code> object, in JSON format.<p>
+ * These are the requests served:
+ * <ul>
+ * <li><i>GET /books/{id}</i>: the book with the given identifier</li>
+ * <li><i>GET /books?ids={id},{id},...</i>: the books with the given identifiers, in the same order, <i>null</i> for books not found. They are 
+ * resolved at once with the {@link JGutenbergCatalog#getBooks(java.util.Collection)} method</li>
+ * <li><i>GET /search?q={words}&amp;op={and|or}&amp;limit={n}</i>: the books that contain the words in their title or author</li>
+ * <li><i>GET /complete?q={prefix}&amp;limit={n}</i>: the titles and authors that begin with the prefix</li>
+ * <li><i>GET /similar?title={title}&amp;min={similarity}&amp;limit={n}</i>: the books with a title similar to the given one</li>
+ * <li><i>GET /status</i>: the version of the catalog served, its number of books and whether it is being reloaded</li>
+ * <li><i>POST /reload</i>: reads the RDF files again in the background (see {@link JGutenbergCatalog#reload()})</li>
+ * </ul>
+ * Requests are handled concurrently, by virtual threads if the JDK supports them or by a pool of threads otherwise. The catalog served is 
+ * kept in an <code>AtomicReference</code>: a reload builds a new version of the catalog while the current one goes on serving requests, and 
+ * then replaces it in a single step, so every request is answered by one version of the catalog.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ * @see JGutenbergCatalog
+ */
+public class CatalogServer {
+
+	private static final Logger log = LogManager.getLogger(CatalogServer.class);
+	
+	/**
+	 * Maximum number of results of a search, if no limit is requested
+	 */
+	private static final int DEFAULT_LIMIT = JGutenbergCatalog.DEFAULT_SEARCH_LIMIT;
+	
+	/**
+	 * Maximum number of results that can be requested
+	 */
+	private static final int MAX_LIMIT = 1000;
+	
+	/**
+	 * Valid book identifiers. It prevents identifiers from being used as paths to other files
+	 */
+	private static final Pattern BOOK_ID = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+	
+	private final HttpServer server;
+	
+	private final AtomicReference<JGutenbergCatalog> catalog;
+	
+	/**
+	 * Version of the catalog served, increased by every reload
+	 */
+	private final AtomicLong version;
+	
+	private final AtomicBoolean reloading;
+	
+	private ExecutorService executor;
+	
+	private ExecutorService reloader;
+	
+	
+	/**
+	 * Creates a server for a catalog. The server is not started.
+	 * @param catalog the catalog served, whose RDF files should have been read
+	 * @param port port the server listens to, zero for any free port
+	 * @throws IllegalArgumentException if the catalog is <i>null</i> or the port is not valid
+	 * @throws IllegalStateException if the server cannot listen to the port
+	 */
+	public CatalogServer(JGutenbergCatalog catalog, int port) {
+		if (catalog == null) {
+			throw new IllegalArgumentException("Catalog can not be null.");
+		}
+		if (port < 0 || port > 65535) {
+			throw new IllegalArgumentException("Invalid port: " + port);
+		}
+		this.catalog = new AtomicReference<>(catalog);
+		this.version = new AtomicLong(1);
+		this.reloading = new AtomicBoolean();
+		try {
+			this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		} catch (IOException e) {
+			throw new IllegalStateException("HTTP server could not be created: " + e.getMessage());
+		}
+		server.createContext("/books", handler("GET", this::books));
+		server.createContext("/search", handler("GET", this::search));
+		server.createContext("/complete", handler("GET", this::complete));
+		server.createContext("/similar", handler("GET", this::similar));
+		server.createContext("/status", handler("GET", this::status));
+		server.createContext("/reload", handler("POST", this::startReload));
+	}
+	
+	/**
+	 * Starts the server.
+	 */
+	public void start() {
+		this.executor = createExecutor();
+		this.reloader = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "catalog-reload");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.start();
+		log.info("[INFO] Catalog server listening on port " + getPort());
+	}
+	
+	/**
+	 * Stops the server, waiting for the requests being handled.
+	 * @param delay maximum number of seconds to wait
+	 */
+	public void stop(int delay) {
+		server.stop(delay);
+		if (executor != null) {
+			executor.shutdown();
+			reloader.shutdownNow();
+		}
+		log.info("[INFO] Catalog server stopped");
+	}
+	
+	/**
+	 * @return the port the server listens to
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * @return the catalog currently served
+	 */
+	public JGutenbergCatalog getCatalog() {
+		return catalog.get();
+	}
+	
+	/**
+	 * @return the version of the catalog served, which starts at 1 and is increased by every reload
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+	
+	/**
+	 * Builds a new version of the catalog and replaces the current one with it. Requests go on being answered by the current version while 
+	 * the new one is built. If a reload is already running, nothing is done.
+	 * @return <i>true</i> if the catalog has been reloaded, <i>false</i> if another reload was running
+	 */
+	public boolean reload() {
+		boolean result = reloading.compareAndSet(false, true);
+		if (result) {
+			try {
+				log.info("[INFO] Reloading catalog...");
+				JGutenbergCatalog next = catalog.get().reload();
+				catalog.set(next);
+				log.info("[INFO] Catalog reloaded, version " + version.incrementAndGet());
+			} finally {
+				reloading.set(false);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Creates an executor that runs every request in a new virtual thread. Virtual threads are only available since Java 21, so the method 
+	 * is looked up by reflection and a pool of platform threads is used if it doesn't exist.
+	 */
+	private static ExecutorService createExecutor() {
+		ExecutorService result;
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			result = (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			result = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 4));
+		}
+		return result;
+	}
+	
+	private void books(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog current) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		String id = path.startsWith("/books/") ? path.substring("/books/".length()) : "";
+		if (!id.isEmpty()) {
+			Book book = findBook(current, id);
+			if (book == null) {
+				respond(exchange, 404, error("Book not found: " + id));
+			} else {
+				respond(exchange, 200, new JsonWriter().value(book).toString());
+			}
+		} else if (parameters.containsKey("ids")) {
+			List<String> ids = new ArrayList<>();
+			for (String bookId : parameters.get("ids").split(",")) {
+				ids.add(BOOK_ID.matcher(bookId.trim()).matches() ? bookId.trim() : null);
+			}
+			JsonWriter json = new JsonWriter().beginArray();
+			for (Book book : current.getBooks(ids)) {
+				json.value(book);
+			}
+			respond(exchange, 200, json.endArray().toString());
+		} else {
+			respond(exchange, 400, error("A book identifier or the ids parameter is required"));
+		}
+	}
+	
+	private Book findBook(JGutenbergCatalog current, String id) {
+		Book book = null;
+		if (BOOK_ID.matcher(id).matches()) {
+			try {
+				book = current.getBook(id);
+			} catch (IllegalArgumentException e) {
+				book = null;
+			}
+		}
+		return book;
+	}
+	
+	private void search(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog current) throws IOException {
+		String operator = parameters.getOrDefault("op", "and");
+		List<SearchHit> hits = current.search(required(parameters, "q"), InvertedIndex.Operator.valueOf(operator.toUpperCase()), limit(parameters));
+		JsonWriter json = new JsonWriter().beginArray();
+		for (SearchHit hit : hits) {
+			json.beginObject().name("score").value(hit.getScore()).name("book").value(hit.getBook()).endObject();
+		}
+		respond(exchange, 200, json.endArray().toString());
+	}
+	
+	private void complete(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog current) throws IOException {
+		List<PrefixIndex.Completion> completions = current.complete(required(parameters, "q"), limit(parameters));
+		JsonWriter json = new JsonWriter().beginArray();
+		for (PrefixIndex.Completion completion : completions) {
+			json.beginObject()
+				.name("text").value(completion.getText())
+				.name("field").value(completion.getField().name().toLowerCase())
+				.name("count").value(completion.getCount())
+				.endObject();
+		}
+		respond(exchange, 200, json.endArray().toString());
+	}
+	
+	private void similar(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog current) throws IOException {
+		double minSimilarity = Double.parseDouble(parameters.getOrDefault("min", "0.9"));
+		List<TitleMatch> matches = current.findSimilarTitles(required(parameters, "title"), minSimilarity, limit(parameters));
+		JsonWriter json = new JsonWriter().beginArray();
+		for (TitleMatch match : matches) {
+			json.beginObject()
+				.name("similarity").value(match.getSimilarity())
+				.name("distance").value(match.getDistance())
+				.name("book").value(match.getBook())
+				.endObject();
+		}
+		respond(exchange, 200, json.endArray().toString());
+	}
+	
+	private void status(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog current) throws IOException {
+		JsonWriter json = new JsonWriter().beginObject()
+			.name("version").value(version.get())
+			.name("books").value(current.getRdfCatalog().size())
+			.name("reloading").value(reloading.get())
+			.endObject();
+		respond(exchange, 200, json.toString());
+	}
+	
+	private void startReload(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog current) throws IOException {
+		if (reloading.get()) {
+			respond(exchange, 409, error("The catalog is already being reloaded"));
+		} else {
+			reloader.execute(() -> {
+				try {
+					reload();
+				} catch (RuntimeException e) {
+					log.error("[ERROR] Error reloading catalog. " + e.toString());
+				}
+			});
+			respond(exchange, 202, new JsonWriter().beginObject().name("version").value(version.get()).endObject().toString());
+		}
+	}
+	
+	private String required(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("Parameter " + name + " is required");
+		}
+		return value;
+	}
+	
+	private int limit(Map<String, String> parameters) {
+		int limit = Integer.parseInt(parameters.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+		}
+		return limit;
+	}
+	
+	private static String error(String message) {
+		return new JsonWriter().beginObject().name("error").value(message).endObject().toString();
+	}
+	
+	/**
+	 * Creates the handler of a kind of request. The catalog is read once per request, so the request is answered by a single version of the 
+	 * catalog even if it is replaced meanwhile. Wrong parameters are answered with a <i>400</i> status.
+	 */
+	private HttpHandler handler(String method, RequestHandler requestHandler) {
+		return exchange -> {
+			try {
+				if (!exchange.getRequestMethod().equals(method)) {
+					respond(exchange, 405, error("Method not allowed: " + exchange.getRequestMethod()));
+				} else {
+					requestHandler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()), catalog.get());
+				}
+			} catch (IllegalArgumentException e) {
+				respond(exchange, 400, error(e.getMessage()));
+			} catch (RuntimeException e) {
+				log.error("[ERROR] Error handling request " + exchange.getRequestURI() + ". " + e.toString());
+				respond(exchange, 500, error("Internal error"));
+			} finally {
+				exchange.close();
+			}
+		};
+	}
+	
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				int equals = parameter.indexOf('=');
+				if (equals > 0) {
+					parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8), 
+							URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return parameters;
+	}
+	
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+	
+	/**
+	 * Answers a kind of request with the catalog current when the request arrived.
+	 */
+	@FunctionalInterface
+	private interface RequestHandler {
+		void handle(HttpExchange exchange, Map<String, String> parameters, JGutenbergCatalog catalog) throws IOException;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright (C) 2018-2019 Jose Francisco Mena Ceca <josfranmc@gmail.com>
+ *
+ *  This file is part of JGutenbergCatalog.
+ *
+ *  JGutenbergCatalog is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  JGutenbergCatalog is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with JGutenbergCatalog.  If not, see <https://www.gnu.org/licenses/>. 
+ */
+package org.josfranmc.gutenberg.server;
+
+import org.josfranmc.gutenberg.catalog.Book;
+
+/**
+ * It writes the JSON documents returned by the server. Documents are small and have a fixed structure, so they are written directly to a 
+ * <code>StringBuilder</code>.
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+final class JsonWriter {
+
+	private final StringBuilder json;
+	
+	/**
+	 * Indicates that the next value is the first one of an object or an array
+	 */
+	private boolean first;
+	
+	
+	JsonWriter() {
+		this.json = new StringBuilder(256);
+		this.first = true;
+	}
+	
+	JsonWriter beginObject() {
+		separate();
+		json.append('{');
+		first = true;
+		return this;
+	}
+	
+	JsonWriter endObject() {
+		json.append('}');
+		first = false;
+		return this;
+	}
+	
+	JsonWriter beginArray() {
+		separate();
+		json.append('[');
+		first = true;
+		return this;
+	}
+	
+	JsonWriter endArray() {
+		json.append(']');
+		first = false;
+		return this;
+	}
+	
+	/**
+	 * Writes the name of a member of an object. It must be followed by a value.
+	 */
+	JsonWriter name(String name) {
+		separate();
+		appendString(name);
+		json.append(':');
+		first = true;
+		return this;
+	}
+	
+	JsonWriter value(String value) {
+		separate();
+		if (value == null) {
+			json.append("null");
+		} else {
+			appendString(value);
+		}
+		return this;
+	}
+	
+	JsonWriter value(long value) {
+		separate();
+		json.append(value);
+		return this;
+	}
+	
+	JsonWriter value(double value) {
+		separate();
+		json.append(Double.isFinite(value) ? Double.toString(value) : "null");
+		return this;
+	}
+	
+	JsonWriter value(boolean value) {
+		separate();
+		json.append(value);
+		return this;
+	}
+	
+	/**
+	 * Writes a book as an object with its identifier, title, author and language, or <i>null</i>.
+	 */
+	JsonWriter value(Book book) {
+		if (book == null) {
+			value((String) null);
+		} else {
+			beginObject();
+			name("id").value(book.getId());
+			name("title").value(book.getTitle());
+			name("author").value(book.getAuthor());
+			name("language").value(book.getLanguage());
+			endObject();
+		}
+		return this;
+	}
+	
+	@Override
+	public String toString() {
+		return json.toString();
+	}
+	
+	private void separate() {
+		if (!first) {
+			json.append(',');
+		}
+		first = false;
+	}
+	
+	private void appendString(String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c == '\n') {
+				json.append("\\n");
+			} else if (c == '\r') {
+				json.append("\\r");
+			} else if (c == '\t') {
+				json.append("\\t");
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+}
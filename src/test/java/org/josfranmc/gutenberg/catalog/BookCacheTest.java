@@ -0,0 +1,70 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase BookCache
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class BookCacheTest {
+
+	/**
+	 * Cuando la caché está llena se descarta el libro usado hace más tiempo
+	 */
+	@Test
+	public void leastRecentlyUsedTest() {
+		BookCache cache = new BookCache(2);
+		cache.put(createBook("1"));
+		cache.put(createBook("2"));
+		assertNotNull(cache.get("1"));
+		cache.put(createBook("3"));
+		
+		assertNull(cache.get("2"));
+		assertNotNull(cache.get("1"));
+		assertNotNull(cache.get("3"));
+		assertEquals("Wrong size", 2, cache.size());
+		assertEquals("Wrong evictions", 1, cache.getEvictions());
+	}
+	
+	@Test
+	public void statsTest() {
+		BookCache cache = new BookCache(10);
+		cache.get("1");
+		cache.put(createBook("1"));
+		cache.get("1");
+		cache.get("1");
+		cache.get("2");
+		
+		assertEquals("Wrong hits", 2, cache.getHits());
+		assertEquals("Wrong misses", 2, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 0.0001);
+	}
+	
+	@Test
+	public void zeroCapacityTest() {
+		BookCache cache = new BookCache(0);
+		cache.put(createBook("1"));
+		assertNull(cache.get("1"));
+		assertEquals("Wrong size", 0, cache.size());
+	}
+	
+	/**
+	 * Si el tamaño de la caché es negativo, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenCapacityWhenNegativeThenIllegalArgumentException() {
+		new BookCache(-1);
+	}
+	
+	private Book createBook(String id) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle("Title " + id);
+		return book;
+	}
+}
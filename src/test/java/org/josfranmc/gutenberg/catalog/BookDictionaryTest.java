@@ -0,0 +1,86 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase BookDictionary
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class BookDictionaryTest {
+
+	/**
+	 * Los libros con el mismo autor o idioma comparten la misma instancia y el mismo código
+	 */
+	@Test
+	public void internTest() {
+		BookDictionary dictionary = new BookDictionary();
+		Book first = createBook("1", new String("Cervantes, Miguel de"), new String("es"));
+		Book second = createBook("2", new String("Cervantes, Miguel de"), new String("es"));
+		Book third = createBook("3", "Galdós, Benito Pérez", null);
+		assertNotSame(first.getAuthor(), second.getAuthor());
+		
+		dictionary.intern(first);
+		dictionary.intern(second);
+		dictionary.intern(third);
+		
+		assertSame(first.getAuthor(), second.getAuthor());
+		assertSame(first.getLanguage(), second.getLanguage());
+		assertEquals(dictionary.getAuthorCode(first), dictionary.getAuthorCode(second));
+		assertEquals(0, dictionary.getAuthorCode(first));
+		assertEquals(1, dictionary.getAuthorCode(third));
+		assertEquals(BookDictionary.NO_CODE, dictionary.getLanguageCode(third));
+		assertEquals("Cervantes, Miguel de", dictionary.getAuthor(0));
+		assertEquals("es", dictionary.getLanguage(dictionary.getLanguageCode(first)));
+		assertNull(dictionary.getAuthor(BookDictionary.NO_CODE));
+		assertEquals("Wrong number of authors", 2, dictionary.getAuthorCount());
+		assertEquals("Wrong number of languages", 1, dictionary.getLanguageCount());
+	}
+	
+	@Test
+	public void unknownValueTest() {
+		BookDictionary dictionary = new BookDictionary();
+		assertEquals(BookDictionary.NO_CODE, dictionary.getAuthorCode(createBook("1", "Nobody", "en")));
+	}
+	
+	/**
+	 * Si el código no está en el diccionario, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenCodeWhenUnknownThenIllegalArgumentException() {
+		new BookDictionary().getLanguage(5);
+	}
+	
+	/**
+	 * Los libros leídos por CatalogRdf comparten los idiomas
+	 */
+	@Test
+	public void catalogRdfTest() {
+		CatalogRdf catalog = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalog.setThreads(2);
+		catalog.readFiles();
+		
+		BookDictionary dictionary = catalog.getDictionary();
+		for (RdfFile rdfFile : catalog.getRdfCatalog().values()) {
+			Book book = rdfFile.getBook();
+			assertSame(dictionary.getLanguage(dictionary.getLanguageCode(book)), book.getLanguage());
+			assertSame(dictionary.getAuthor(dictionary.getAuthorCode(book)), book.getAuthor());
+		}
+	}
+	
+	private Book createBook(String id, String author, String language) {
+		Book book = new Book();
+		book.setId(id);
+		book.setAuthor(author);
+		book.setTitle("Title " + id);
+		book.setLanguage(language);
+		return book;
+	}
+}
@@ -0,0 +1,55 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase BookIdSet
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class BookIdSetTest {
+
+	@Test
+	public void addAndContainsTest() {
+		BookIdSet ids = new BookIdSet();
+		assertTrue(ids.add("10607"));
+		assertFalse(ids.add("10607"));
+		assertTrue(ids.add("0"));
+		assertTrue(ids.add("abc"));
+		
+		assertTrue(ids.contains("10607"));
+		assertTrue(ids.contains("0"));
+		assertTrue(ids.contains("abc"));
+		assertFalse(ids.contains("10608"));
+		assertFalse(ids.contains(null));
+		assertEquals("Wrong size", 3, ids.size());
+	}
+	
+	/**
+	 * Los identificadores con ceros a la izquierda son distintos de los que no los tienen
+	 */
+	@Test
+	public void leadingZerosTest() {
+		BookIdSet ids = new BookIdSet();
+		ids.add("7");
+		
+		assertFalse(ids.contains("007"));
+		assertTrue(ids.add("007"));
+		assertTrue(ids.contains("007"));
+	}
+	
+	@Test
+	public void toNumberTest() {
+		assertEquals(10607, BookIdSet.toNumber("10607"));
+		assertEquals(0, BookIdSet.toNumber("0"));
+		assertEquals(-1, BookIdSet.toNumber("007"));
+		assertEquals(-1, BookIdSet.toNumber("12a"));
+		assertEquals(-1, BookIdSet.toNumber("-5"));
+		assertEquals(-1, BookIdSet.toNumber("1234567890"));
+		assertEquals(-1, BookIdSet.toNumber(""));
+	}
+}
@@ -0,0 +1,147 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase BookPublisher
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class BookPublisherTest {
+
+	private static final File RDF_FOLDER = new File("target/test-classes/rdftest");
+	
+	/**
+	 * Cada suscriptor recibe todos los libros del catálogo, pidiéndolos de uno en uno
+	 */
+	@Test
+	public void publishBooksTest() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Flow.Publisher<Book> publisher = new CatalogRdf(RDF_FOLDER).publishBooks(executor);
+		TestSubscriber first = new TestSubscriber(1, Long.MAX_VALUE);
+		TestSubscriber second = new TestSubscriber(1, Long.MAX_VALUE);
+		publisher.subscribe(first);
+		publisher.subscribe(second);
+		
+		assertTrue(first.await());
+		assertTrue(second.await());
+		executor.shutdown();
+		assertEquals("Wrong number of books", 6, first.books.size());
+		assertEquals("Wrong books", ids(first.books), ids(second.books));
+		assertTrue(ids(first.books).contains("10607"));
+		assertTrue(first.completed);
+	}
+	
+	/**
+	 * Solo se entregan los libros pedidos, y al cancelar no se entregan más
+	 */
+	@Test
+	public void cancelTest() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber(2, 2);
+		new CatalogRdf(RDF_FOLDER).publishBooks().subscribe(subscriber);
+		
+		assertTrue(subscriber.await());
+		Thread.sleep(200);
+		assertEquals("Wrong number of books", 2, subscriber.books.size());
+		assertFalse(subscriber.completed);
+	}
+	
+	/**
+	 * Si se piden cero libros, entonces se notifica un error IllegalArgumentException
+	 */
+	@Test
+	public void givenRequestWhenZeroThenIllegalArgumentException() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber(0, Long.MAX_VALUE);
+		new CatalogRdf(RDF_FOLDER).publishBooks().subscribe(subscriber);
+		
+		assertTrue(subscriber.await());
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+		assertTrue(subscriber.books.isEmpty());
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void givenSubscriberWhenNullThenNullPointerException() {
+		new CatalogRdf(RDF_FOLDER).publishBooks().subscribe(null);
+	}
+	
+	private Set<String> ids(List<Book> books) {
+		Set<String> ids = new HashSet<>();
+		for (Book book : books) {
+			ids.add(book.getId());
+		}
+		return ids;
+	}
+	
+	/**
+	 * Suscriptor que pide libros de <i>request</i> en <i>request</i> y cancela la suscripción al recibir <i>limit</i> libros
+	 */
+	private static class TestSubscriber implements Flow.Subscriber<Book> {
+		
+		private final long request;
+		
+		private final long limit;
+		
+		private final List<Book> books = new CopyOnWriteArrayList<>();
+		
+		private final CountDownLatch finished = new CountDownLatch(1);
+		
+		private Flow.Subscription subscription;
+		
+		private volatile boolean completed;
+		
+		private volatile Throwable error;
+		
+		TestSubscriber(long request, long limit) {
+			this.request = request;
+			this.limit = limit;
+		}
+		
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(request);
+		}
+
+		@Override
+		public void onNext(Book book) {
+			books.add(book);
+			if (books.size() == limit) {
+				subscription.cancel();
+				finished.countDown();
+			} else if (books.size() % request == 0) {
+				subscription.request(request);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			finished.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			finished.countDown();
+		}
+		
+		boolean await() throws InterruptedException {
+			return finished.await(1, TimeUnit.MINUTES);
+		}
+	}
+}
@@ -1,15 +1,29 @@
 package org.josfranmc.gutenberg.catalog;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.josfranmc.gutenberg.db.DbConnection;
 import org.josfranmc.gutenberg.db.DbConnectionBuilder;
+import org.josfranmc.gutenberg.db.DbDialect;
 import org.junit.Test;
+import org.postgresql.PGConnection;
 
 /**
  * Clase que implementa los test para probar los métodos de la clase CatalogDb
@@ -79,4 +93,389 @@ public class CatalogDbTest {
 		c.load(false);
 		assertFalse(c.isBookInDatabase("123"));
 	}
+	
+	/**
+	 * Si el tamaño del lote es menor que uno, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenBatchSizeWhenZeroThenIllegalArgumentException() {
+		new CatalogDb(getDbConnection("batchtest0")).setBatchSize(0);
+	}
+	
+	/**
+	 * Si el intervalo de commit es negativo, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenCommitIntervalWhenNegativeThenIllegalArgumentException() {
+		new CatalogDb(getDbConnection("batchtest0")).setCommitInterval(-1);
+	}
+	
+	@Test
+	public void loadInBatchesTest() {
+		CatalogDb c = new CatalogDb(getDbConnection("batchtest1"));
+		c.setBatchSize(3);
+		c.setCommitInterval(4);
+		c.beginLoad(false);
+		for (int i = 1; i <= 10; i++) {
+			c.loadBook(createBook(String.valueOf(i), "en"));
+		}
+		c.endLoad();
+		
+		assertEquals("Wrong number of books", 10, count("jdbc:hsqldb:mem:batchtest1"));
+	}
+	
+	/**
+	 * Si un libro de un lote no se puede guardar, el resto de libros del lote sí se guardan
+	 */
+	@Test
+	public void loadInBatchesWithWrongBookTest() {
+		CatalogDb c = new CatalogDb(getDbConnection("batchtest2"));
+		c.setBatchSize(8);
+		c.beginLoad(false);
+		for (int i = 1; i <= 10; i++) {
+			c.loadBook(createBook(String.valueOf(i), (i == 6) ? "too long language" : "en"));
+		}
+		c.endLoad();
+		
+		assertEquals("Wrong number of books", 9, count("jdbc:hsqldb:mem:batchtest2"));
+		CatalogDb check = new CatalogDb(getDbConnection("batchtest2"));
+		assertTrue(check.isBookInDatabase("5"));
+		assertFalse(check.isBookInDatabase("6"));
+		assertTrue(check.isBookInDatabase("7"));
+	}
+	
+	/**
+	 * Los libros que no se pueden guardar no cuentan para el intervalo de commit
+	 */
+	@Test
+	public void commitIntervalWithWrongBooksTest() {
+		DbConnection db = getDbConnection("commitintervaltest");
+		AtomicInteger commits = new AtomicInteger();
+		DbConnection countingDb = new DbConnection() {
+			@Override
+			protected void setConnectionSetting(Properties settingProperties) {
+			}
+			@Override
+			public DbDialect getDialect() {
+				return db.getDialect();
+			}
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection connection = db.getConnection();
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					if (method.getName().equals("commit")) {
+						commits.incrementAndGet();
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+			}
+		};
+		CatalogDb c = new CatalogDb(countingDb);
+		c.setBatchSize(2);
+		c.setCommitInterval(4);
+		c.beginLoad(false);
+		for (int i = 1; i <= 8; i++) {
+			c.loadBook(createBook(String.valueOf(i), (i <= 4) ? "too long language" : "en"));
+		}
+		c.endLoad();
+		
+		assertEquals("Wrong number of books", 4, count("jdbc:hsqldb:mem:commitintervaltest"));
+		assertEquals("Wrong number of commits", 2, commits.get());
+	}
+	
+	/**
+	 * Con los identificadores precargados, los libros que ya existen en la base de datos no se vuelven a guardar
+	 */
+	@Test
+	public void loadWithPreloadedIdsTest() {
+		CatalogDb first = new CatalogDb(getDbConnection("preloadtest"));
+		first.beginLoad(false);
+		for (int i = 1; i <= 5; i++) {
+			first.loadBook(createBook(String.valueOf(i), "en"));
+		}
+		first.endLoad();
+		
+		CatalogDb second = new CatalogDb(getDbConnection("preloadtest"));
+		second.setExistenceCheck(CatalogDb.ExistenceCheck.PRELOAD);
+		second.setBatchSize(4);
+		second.beginLoad(false);
+		for (int i = 1; i <= 10; i++) {
+			second.loadBook(createBook(String.valueOf(i), "en"));
+		}
+		second.loadBook(createBook("10", "en"));
+		second.endLoad();
+		
+		assertEquals("Wrong number of books", 10, count("jdbc:hsqldb:mem:preloadtest"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenExistenceCheckWhenNullThenIllegalArgumentException() {
+		new CatalogDb(getDbConnection("preloadtest0")).setExistenceCheck(null);
+	}
+	
+	/**
+	 * Si la base de datos no es PostgreSQL, el modo COPY guarda los libros con INSERT
+	 */
+	@Test
+	public void copyModeFallsBackToInsertTest() {
+		CatalogDb c = new CatalogDb(getDbConnection("copytest"));
+		c.setLoadMode(CatalogDb.LoadMode.COPY);
+		c.beginLoad(false);
+		for (int i = 1; i <= 5; i++) {
+			c.loadBook(createBook(String.valueOf(i), "en"));
+		}
+		c.loadBook(createBook("5", "en"));
+		c.endLoad();
+		
+		assertEquals("Wrong number of books", 5, count("jdbc:hsqldb:mem:copytest"));
+	}
+	
+	/**
+	 * Con UPSERT los libros ya cargados se actualizan
+	 */
+	@Test
+	public void upsertTest() {
+		CatalogDb first = new CatalogDb(getDbConnection("upserttest"));
+		first.beginLoad(false);
+		for (int i = 1; i <= 5; i++) {
+			first.loadBook(createBook(String.valueOf(i), "en"));
+		}
+		first.endLoad();
+		
+		CatalogDb second = new CatalogDb(getDbConnection("upserttest"));
+		second.setLoadMode(CatalogDb.LoadMode.UPSERT);
+		second.setBatchSize(3);
+		second.beginLoad(false);
+		for (int i = 4; i <= 8; i++) {
+			Book book = createBook(String.valueOf(i), (i == 7) ? "too long language" : "es");
+			book.setTitle("New title " + i);
+			second.loadBook(book);
+		}
+		second.endLoad();
+		
+		assertEquals("Wrong number of books", 7, count("jdbc:hsqldb:mem:upserttest"));
+		assertEquals("Title 3", getTitle("jdbc:hsqldb:mem:upserttest", "3"));
+		assertEquals("New title 4", getTitle("jdbc:hsqldb:mem:upserttest", "4"));
+		assertEquals("New title 8", getTitle("jdbc:hsqldb:mem:upserttest", "8"));
+	}
+	
+	/**
+	 * Una segunda carga sobre la misma base de datos, con la tabla books ya creada, guarda los libros nuevos con todos los modos de carga
+	 */
+	@Test
+	public void loadTwiceTest() {
+		loadTwice(getDbConnection("twicetest"));
+		assertEquals("Wrong number of books", 15, count("jdbc:hsqldb:mem:twicetest"));
+	}
+	
+	/**
+	 * Una segunda carga sobre una base de datos PostgreSQL, con la tabla books ya creada, guarda los libros nuevos. Solo se ejecuta si se 
+	 * indica la url de la base de datos con la propiedad <i>postgres.url</i>. La tabla books de esa base de datos se borra
+	 */
+	@Test
+	public void loadTwiceInPostgresTest() throws SQLException {
+		String url = System.getProperty("postgres.url");
+		assumeNotNull(url);
+		try (Connection connection = DriverManager.getConnection(url); Statement statement = connection.createStatement()) {
+			statement.executeUpdate("DROP TABLE IF EXISTS books");
+			loadTwice(new DbConnection() {
+				@Override
+				protected void setConnectionSetting(Properties settingProperties) {
+				}
+				@Override
+				public DbDialect getDialect() {
+					return DbDialect.POSTGRESQL;
+				}
+				@Override
+				public Connection getConnection() throws SQLException {
+					return DriverManager.getConnection(url);
+				}
+			});
+			try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM books")) {
+				resultSet.next();
+				assertEquals("Wrong number of books", 15, resultSet.getInt(1));
+			}
+			statement.executeUpdate("DROP TABLE books");
+		}
+	}
+	
+	/**
+	 * Carga cinco libros y después, con cada modo de carga, cinco libros más junto con los ya cargados
+	 */
+	private void loadTwice(DbConnection dbConnection) {
+		CatalogDb first = new CatalogDb(dbConnection);
+		first.beginLoad(false);
+		for (int i = 1; i <= 5; i++) {
+			first.loadBook(createBook(String.valueOf(i), "en"));
+		}
+		first.endLoad();
+		
+		int last = 5;
+		for (CatalogDb.LoadMode loadMode : new CatalogDb.LoadMode[] {CatalogDb.LoadMode.INSERT, CatalogDb.LoadMode.UPSERT}) {
+			CatalogDb next = new CatalogDb(dbConnection);
+			next.setLoadMode(loadMode);
+			next.setExistenceCheck(CatalogDb.ExistenceCheck.PRELOAD);
+			next.setBatchSize(3);
+			next.beginLoad(false);
+			for (int i = 1; i <= last + 5; i++) {
+				next.loadBook(createBook(String.valueOf(i), "en"));
+			}
+			next.endLoad();
+			last += 5;
+		}
+	}
+	
+	/**
+	 * Un mismo objeto puede hacer varias cargas, aunque la conexión se cierre al terminar cada una de ellas
+	 */
+	@Test
+	public void loadTwiceWithSameObjectTest() {
+		CatalogDb catalogDb = new CatalogDb(getDbConnection("sameobjecttest"));
+		catalogDb.setBatchSize(2);
+		for (int load = 0; load < 2; load++) {
+			catalogDb.beginLoad(false);
+			for (int i = 1; i <= 5 * (load + 1); i++) {
+				catalogDb.loadBook(createBook(String.valueOf(i), "en"));
+			}
+			assertTrue("Load not commited", catalogDb.endLoad());
+		}
+		
+		assertEquals("Wrong number of books", 10, count("jdbc:hsqldb:mem:sameobjecttest"));
+		assertTrue(catalogDb.isBookInDatabase("10"));
+		assertEquals("Wrong title", "Title 7", catalogDb.findBook("7").getTitle());
+	}
+	
+	/**
+	 * Antes de la primera carga no existe la tabla books, y las búsquedas no encuentran ningún libro. Tras la carga, los libros se encuentran
+	 */
+	@Test
+	public void findBookBeforeLoadTest() {
+		DbConnection db = getDbConnection("findbeforeloadtest");
+		CatalogDb catalogDb = new CatalogDb(db);
+		assertNull(catalogDb.findBook("1"));
+		assertTrue(catalogDb.findBooks(Arrays.asList("1", "2")).isEmpty());
+		
+		CatalogDb loader = new CatalogDb(db);
+		loader.beginLoad(false);
+		loader.loadBook(createBook("1", "en"));
+		loader.endLoad();
+		
+		assertEquals("Wrong title", "Title 1", catalogDb.findBook("1").getTitle());
+		assertEquals("Wrong number of books", 1, catalogDb.findBooks(Arrays.asList("1", "2")).size());
+	}
+	
+	/**
+	 * Si falla la copia de los libros, entonces la carga no se confirma y se devuelve false
+	 */
+	@Test
+	public void endLoadWhenCopyFailsTest() {
+		DbConnection db = getDbConnection("copyfailtest");
+		DbConnection pgDb = new DbConnection() {
+			@Override
+			protected void setConnectionSetting(Properties settingProperties) {
+			}
+			@Override
+			public DbDialect getDialect() {
+				return db.getDialect();
+			}
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection connection = db.getConnection();
+				Object pgConnection = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {PGConnection.class}, (proxy, method, args) -> null);
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					Object result;
+					if (method.getName().equals("isWrapperFor")) {
+						result = Boolean.TRUE;
+					} else if (method.getName().equals("unwrap")) {
+						result = pgConnection;
+					} else {
+						try {
+							result = method.invoke(connection, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+					return result;
+				});
+			}
+		};
+		CatalogDb catalogDb = new CatalogDb(pgDb) {
+			@Override
+			PostgresCopyWriter createCopyWriter(Connection connection) throws SQLException {
+				return new PostgresCopyWriter(connection) {
+					@Override
+					void begin() {
+					}
+					@Override
+					void write(Book book) {
+					}
+					@Override
+					long end() throws SQLException {
+						throw new SQLException("Copy failed");
+					}
+				};
+			}
+		};
+		catalogDb.setLoadMode(CatalogDb.LoadMode.COPY);
+		catalogDb.beginLoad(false);
+		catalogDb.loadBook(createBook("1", "en"));
+		
+		assertFalse("Load must fail", catalogDb.endLoad());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenLoadModeWhenNullThenIllegalArgumentException() {
+		new CatalogDb(getDbConnection("copytest0")).setLoadMode(null);
+	}
+	
+	private Book createBook(String id, String language) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle("Title " + id);
+		book.setAuthor("Author " + id);
+		book.setLanguage(language);
+		return book;
+	}
+	
+	private DbConnection getDbConnection(String name) {
+		Properties properties = new Properties();
+		properties.put("DbType", "HSQL");
+		properties.put("DatabaseDriver", "org.hsqldb.jdbcDriver");
+		properties.put("HSQL.url", "jdbc:hsqldb:mem:" + name);
+		properties.put("HSQL.user", "SA");
+		properties.put("HSQL.password", "");
+		return new DbConnectionBuilder().setSettingProperties(properties).build();
+	}
+	
+	private int count(String url) {
+		int result = -1;
+		try (Connection connection = DriverManager.getConnection(url, "SA", "");
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM books")) {
+			if (resultSet.next()) {
+				result = resultSet.getInt(1);
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+	
+	private String getTitle(String url, String id) {
+		String result = null;
+		try (Connection connection = DriverManager.getConnection(url, "SA", "");
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT title FROM books WHERE id = '" + id + "'")) {
+			if (resultSet.next()) {
+				result = resultSet.getString(1);
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
 }
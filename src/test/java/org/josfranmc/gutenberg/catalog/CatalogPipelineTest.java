@@ -0,0 +1,187 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.josfranmc.gutenberg.db.DbConnection;
+import org.josfranmc.gutenberg.db.DbConnectionBuilder;
+import org.josfranmc.gutenberg.db.DbDialect;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase CatalogPipeline
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class CatalogPipelineTest {
+
+	/**
+	 * Si la capacidad de la cola es menor que uno, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenQueueCapacityWhenZeroThenIllegalArgumentException() {
+		new CatalogPipeline(new CatalogRdf(new File("target/test-classes/rdftest")), new CatalogDb(getDbConnection("pipelinetest0")), 0);
+	}
+	
+	/**
+	 * Con una cola de capacidad uno los lectores tienen que esperar al escritor
+	 */
+	@Test
+	public void runTest() {
+		DbConnection db = getDbConnection("pipelinetest1");
+		CatalogRdf catalogRdf = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalogRdf.setThreads(3);
+		
+		long books = new CatalogPipeline(catalogRdf, new CatalogDb(db), 1).run(false);
+		
+		assertEquals("Wrong number of books", 6, books);
+		assertTrue("Catalog must not be kept in memory", catalogRdf.getRdfCatalog().isEmpty());
+		assertTrue(new CatalogDb(db).isBookInDatabase("10607"));
+	}
+	
+	/**
+	 * Los libros ya cargados no se vuelven a cargar
+	 */
+	@Test
+	public void runTwiceTest() {
+		DbConnection db = getDbConnection("pipelinetest2");
+		CatalogRdf catalogRdf = new CatalogRdf(new File("target/test-classes/rdftest"));
+		
+		new CatalogPipeline(catalogRdf, new CatalogDb(db), 4).run(false);
+		long books = new CatalogPipeline(catalogRdf, new CatalogDb(db), 4).run(false);
+		
+		assertEquals("Wrong number of books", 6, books);
+		assertTrue(new CatalogDb(db).isBookInDatabase("14229"));
+	}
+	
+	/**
+	 * El manifiesto se guarda solo cuando los libros se han confirmado en la base de datos
+	 */
+	@Test
+	public void runWithManifestTest() throws IOException {
+		File manifest = new File("target/pipelinemanifest.txt");
+		Files.deleteIfExists(manifest.toPath());
+		CatalogRdf catalogRdf = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalogRdf.setManifest(manifest);
+		
+		try {
+			new CatalogPipeline(catalogRdf, new CatalogDb(getFailingDbConnection("pipelinetest3")), 4).run(false);
+			fail("Commit must fail");
+		} catch (IllegalStateException e) {
+			assertFalse("Manifest must not be saved", manifest.exists());
+		}
+		
+		catalogRdf = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalogRdf.setManifest(manifest);
+		long books = new CatalogPipeline(catalogRdf, new CatalogDb(getDbConnection("pipelinetest3")), 4).run(false);
+		
+		assertEquals("Wrong number of books", 6, books);
+		assertTrue("Manifest must be saved", manifest.exists());
+		assertTrue(catalogRdf.isManifestSavedOnRead());
+	}
+	
+	/**
+	 * Si la carga falla, el estado del manifiesto en memoria no cambia, de modo que la siguiente carga vuelve a leer los ficheros
+	 */
+	@Test
+	public void runAgainAfterFailureTest() throws IOException {
+		File manifest = new File("target/pipelinemanifest2.txt");
+		Files.deleteIfExists(manifest.toPath());
+		CatalogRdf catalogRdf = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalogRdf.setManifest(manifest);
+		try {
+			new CatalogPipeline(catalogRdf, new CatalogDb(getFailingDbConnection("pipelinetest5")), 4).run(false);
+			fail("Commit must fail");
+		} catch (IllegalStateException e) {
+			assertFalse("Manifest must not be saved", manifest.exists());
+		}
+		
+		long books = new CatalogPipeline(catalogRdf, new CatalogDb(getDbConnection("pipelinetest5")), 4).run(false);
+		
+		assertEquals("Wrong number of books", 6, books);
+		assertTrue("Manifest must be saved", manifest.exists());
+	}
+	
+	/**
+	 * Si falla la lectura de los ficheros, los cambios se deshacen y se cierra la conexión
+	 */
+	@Test
+	public void runWhenReadFailsTest() {
+		DbConnection db = getDbConnection("pipelinetest4");
+		List<String> calls = new CopyOnWriteArrayList<>();
+		CatalogPipeline pipeline = new CatalogPipeline(new CatalogRdf(new File("target/test-classes/rdftest")), new CatalogDb(getDbConnection(db, calls, false)), 4);
+		pipeline.setListener(book -> {
+			throw new IllegalStateException("Read failed");
+		});
+		
+		try {
+			pipeline.run(false);
+			fail("Read must fail");
+		} catch (IllegalStateException e) {
+			assertTrue("Changes must be rolled back", calls.contains("rollback"));
+			assertTrue("Connection must be closed", calls.contains("close"));
+			assertFalse("Changes must not be commited", calls.contains("commit"));
+		}
+		assertFalse(new CatalogDb(db).isBookInDatabase("10607"));
+	}
+	
+	/**
+	 * Devuelve una conexión a la base de datos en la que fallan los commits
+	 */
+	private DbConnection getFailingDbConnection(String name) {
+		return getDbConnection(getDbConnection(name), new CopyOnWriteArrayList<>(), true);
+	}
+	
+	/**
+	 * Devuelve una conexión a la base de datos que anota los métodos de la conexión llamados y, opcionalmente, hace fallar los commits
+	 */
+	private DbConnection getDbConnection(DbConnection db, List<String> calls, boolean failingCommit) {
+		return new DbConnection() {
+			@Override
+			protected void setConnectionSetting(Properties settingProperties) {
+			}
+			@Override
+			public DbDialect getDialect() {
+				return db.getDialect();
+			}
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection connection = db.getConnection();
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					calls.add(method.getName());
+					if (failingCommit && method.getName().equals("commit")) {
+						throw new SQLException("Commit failed");
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+			}
+		};
+	}
+	
+	private DbConnection getDbConnection(String name) {
+		Properties properties = new Properties();
+		properties.put("DbType", "HSQL");
+		properties.put("DatabaseDriver", "org.hsqldb.jdbcDriver");
+		properties.put("HSQL.url", "jdbc:hsqldb:mem:" + name);
+		properties.put("HSQL.user", "SA");
+		properties.put("HSQL.password", "");
+		return new DbConnectionBuilder().setSettingProperties(properties).build();
+	}
+}
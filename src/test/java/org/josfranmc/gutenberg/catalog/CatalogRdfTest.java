@@ -1,9 +1,27 @@
 package org.josfranmc.gutenberg.catalog;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Test;
 
@@ -27,6 +45,308 @@ public class CatalogRdfTest {
 		assertEquals("Wrong Book title", "The Real Mother Goose", rf.getBook().getTitle());
 	}
 	
+	/**
+	 * La lectura en paralelo debe obtener el mismo catálogo que la lectura secuencial
+	 */
+	@Test
+	public void readFilesInParallelTest() {
+		CatalogRdf sequential = new CatalogRdf(new File("target/test-classes/rdftest"));
+		sequential.readFiles();
+		
+		CatalogRdf parallel = new CatalogRdf(new File("target/test-classes/rdftest"));
+		parallel.setThreads(4);
+		parallel.readFiles();
+		
+		assertEquals("Wrong catalog size", 6, parallel.getRdfCatalog().size());
+		assertEquals("Wrong catalog", sequential.getRdfCatalog(), parallel.getRdfCatalog());
+		assertEquals("Wrong Book title", "The Real Mother Goose", parallel.getRdfCatalog().get("10607").getBook().getTitle());
+	}
+	
+	/**
+	 * La lectura desde un archivo comprimido debe obtener el mismo catálogo que la lectura desde carpetas
+	 */
+	@Test
+	public void readFilesFromArchiveTest() throws IOException {
+		CatalogRdf folder = new CatalogRdf(new File("target/test-classes/rdftest"));
+		folder.readFiles();
+		
+		for (String name : new String[] {"rdf-files.tar", "rdf-files.tar.bz2", "rdf-files.tar.zip"}) {
+			for (int threads = 1; threads <= 4; threads += 3) {
+				CatalogRdf archive = new CatalogRdf(RdfArchiveTest.createArchive(name));
+				archive.setThreads(threads);
+				archive.readFiles();
+				
+				assertEquals("Wrong catalog size", 6, archive.getRdfCatalog().size());
+				for (RdfFile rdfFile : folder.getRdfCatalog().values()) {
+					assertEquals("Wrong book", rdfFile.getBook(), archive.getRdfCatalog().get(rdfFile.getId()).getBook());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * En modo perezoso los ficheros se analizan al pedir su libro, y se obtiene el mismo catálogo
+	 */
+	@Test
+	public void readFilesLazyTest() throws IOException {
+		CatalogRdf eager = new CatalogRdf(new File("target/test-classes/rdftest"));
+		eager.readFiles();
+		
+		for (File file : new File[] {new File("target/test-classes/rdftest"), RdfArchiveTest.createArchive("rdf-files.tar.zip")}) {
+			CatalogRdf lazy = new CatalogRdf(file);
+			lazy.setLazy(true);
+			lazy.readFiles();
+			
+			assertEquals("Wrong catalog size", 6, lazy.getRdfCatalog().size());
+			for (RdfFile rdfFile : lazy.getRdfCatalog().values()) {
+				assertFalse(rdfFile.isParsed());
+			}
+			assertEquals("Wrong author count", 0, lazy.getDictionary().getAuthorCount());
+			for (RdfFile rdfFile : eager.getRdfCatalog().values()) {
+				RdfFile lazyFile = lazy.getRdfCatalog().get(rdfFile.getId());
+				assertEquals("Wrong book", rdfFile.getBook(), lazyFile.getBook());
+				assertTrue(lazyFile.isParsed());
+			}
+			assertEquals("Wrong author count", eager.getDictionary().getAuthorCount(), lazy.getDictionary().getAuthorCount());
+		}
+	}
+	
+	/**
+	 * En modo perezoso los hilos de precarga analizan todos los ficheros
+	 */
+	@Test
+	public void readFilesLazyWithPrefetchTest() throws InterruptedException {
+		CatalogRdf cr = new CatalogRdf(new File("target/test-classes/rdftest"));
+		cr.setLazy(true);
+		cr.setPrefetchThreads(2);
+		cr.readFiles();
+		
+		assertTrue(cr.awaitPrefetch(1, TimeUnit.MINUTES));
+		for (RdfFile rdfFile : cr.getRdfCatalog().values()) {
+			assertTrue(rdfFile.isParsed());
+		}
+		assertEquals("Wrong Book title", "The Real Mother Goose", cr.getRdfCatalog().get("10607").getBook().getTitle());
+	}
+	
+	/**
+	 * El stream de libros, secuencial o paralelo, debe obtener los mismos libros que la lectura completa del catálogo
+	 */
+	@Test
+	public void streamBooksTest() throws IOException {
+		CatalogRdf cr = new CatalogRdf(new File("target/test-classes/rdftest"));
+		cr.readFiles();
+		
+		for (File file : new File[] {new File("target/test-classes/rdftest"), RdfArchiveTest.createArchive("rdf-files.tar.bz2")}) {
+			CatalogRdf streamed = new CatalogRdf(file);
+			try (Stream<Book> books = streamed.streamBooks()) {
+				Map<String, Book> sequential = books.collect(Collectors.toMap(Book::getId, Function.identity()));
+				assertEquals("Wrong number of books", 6, sequential.size());
+				for (RdfFile rdfFile : cr.getRdfCatalog().values()) {
+					assertEquals("Wrong book", rdfFile.getBook(), sequential.get(rdfFile.getId()));
+				}
+			}
+			try (Stream<Book> books = streamed.streamBooks()) {
+				long count = books.parallel().filter(book -> "The Real Mother Goose".equals(book.getTitle())).count();
+				assertEquals("Wrong number of books", 1, count);
+			}
+			assertTrue("Books must not be stored", streamed.getRdfCatalog().isEmpty());
+		}
+	}
+	
+	/**
+	 * El stream de ficheros paralelo se divide en lotes y mantiene el orden de lectura
+	 */
+	@Test
+	public void streamFilesInParallelTest() {
+		CatalogRdf cr = new CatalogRdf(new File("target/test-classes/rdftest"));
+		try (Stream<RdfFile> sequential = cr.streamFiles(); Stream<RdfFile> parallel = cr.streamFiles().parallel()) {
+			assertEquals("Wrong order", sequential.map(RdfFile::getId).collect(Collectors.toList()), 
+					parallel.map(RdfFile::getId).collect(Collectors.toList()));
+		}
+	}
+	
+	@Test
+	public void getRdfFileFromArchiveTest() throws IOException {
+		CatalogRdf cr = new CatalogRdf(RdfArchiveTest.createArchive("rdf-files.tar.zip"));
+		RdfFile rf = cr.getRdfFile("10607");
+		
+		assertEquals("Wrong Book title", "The Real Mother Goose", rf.getBook().getTitle());
+	}
+	
+	/**
+	 * Los ficheros de varios libros se buscan en el archivo leyéndolo una sola vez, y los que no existen se omiten
+	 */
+	@Test
+	public void getRdfFilesFromArchiveTest() throws IOException {
+		for (int threads = 1; threads <= 2; threads++) {
+			CatalogRdf cr = new CatalogRdf(RdfArchiveTest.createArchive("rdf-files.tar.zip"));
+			cr.setThreads(threads);
+			Map<String, RdfFile> rdfFiles = cr.getRdfFiles(Arrays.asList("10607", "14229", "999999"));
+			
+			assertEquals("Wrong number of files", 2, rdfFiles.size());
+			assertEquals("Wrong Book title", "The Real Mother Goose", rdfFiles.get("10607").getBook().getTitle());
+		}
+	}
+	
+	/**
+	 * Con un manifiesto solo se leen los ficheros nuevos o modificados, y se informa de los borrados
+	 */
+	@Test
+	public void readFilesWithManifestTest() throws IOException {
+		File folder = copyRdfFiles("target/manifesttest");
+		File manifest = new File("target/manifesttest.txt");
+		Files.deleteIfExists(manifest.toPath());
+		
+		CatalogRdf first = new CatalogRdf(folder);
+		first.setManifest(manifest);
+		first.readFiles();
+		assertEquals("Wrong catalog size", 6, first.getRdfCatalog().size());
+		assertTrue(manifest.exists());
+		
+		CatalogRdf second = new CatalogRdf(folder);
+		second.setManifest(manifest);
+		second.readFiles();
+		assertEquals("Wrong catalog size", 0, second.getRdfCatalog().size());
+		
+		File touched = new File(folder, "10607/pg10607.rdf");
+		touched.setLastModified(touched.lastModified() - 60000);
+		File changed = new File(folder, "14229/pg14229.rdf");
+		String content = new String(Files.readAllBytes(changed.toPath()), StandardCharsets.UTF_8);
+		Files.write(changed.toPath(), content.replace("</rdf:RDF>", "<!-- changed --></rdf:RDF>").getBytes(StandardCharsets.UTF_8));
+		deleteFolder(new File(folder, "43909"));
+		
+		CatalogRdf third = new CatalogRdf(folder);
+		third.setManifest(manifest);
+		third.setThreads(2);
+		third.readFiles();
+		assertEquals("Wrong catalog size", 1, third.getRdfCatalog().size());
+		assertNotNull(third.getRdfCatalog().get("14229"));
+		assertEquals("Wrong deleted files", Collections.singleton("43909"), third.getDeletedIds());
+	}
+	
+	/**
+	 * Los ficheros que no se pueden leer no se registran en el manifiesto, de modo que se vuelven a leer en la siguiente ejecución
+	 */
+	@Test
+	public void readFilesWithManifestAndWrongFileTest() throws IOException {
+		File folder = copyRdfFiles("target/manifestwrongtest");
+		File manifest = new File("target/manifestwrongtest.txt");
+		Files.deleteIfExists(manifest.toPath());
+		File wrong = new File(folder, "10607/pg10607.rdf");
+		Files.write(wrong.toPath(), "<rdf:RDF>".getBytes(StandardCharsets.UTF_8));
+		
+		CatalogRdf first = new CatalogRdf(folder);
+		first.setManifest(manifest);
+		first.readFiles();
+		assertEquals("Wrong catalog size", 6, first.getRdfCatalog().size());
+		
+		CatalogRdf second = new CatalogRdf(folder);
+		second.setManifest(manifest);
+		second.readFiles();
+		assertEquals("Wrong catalog size", 1, second.getRdfCatalog().size());
+		assertNotNull(second.getRdfCatalog().get("10607"));
+	}
+	
+	/**
+	 * Si falla la lectura de un fichero del archivo, se lanza la excepción y los ficheros no leídos no se consideran borrados
+	 */
+	@Test
+	public void readFilesFromArchiveWithManifestAndErrorTest() throws IOException {
+		File manifest = new File("target/manifesterrortest.txt");
+		Files.deleteIfExists(manifest.toPath());
+		File changed = copyRdfFiles("target/manifesterrortest");
+		for (File folder : changed.listFiles()) {
+			for (File rdf : folder.listFiles()) {
+				Files.write(rdf.toPath(), "<!-- changed -->".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+			}
+		}
+		CatalogRdf catalog = new CatalogRdf(changed);
+		catalog.setManifest(manifest);
+		catalog.readFiles();
+		
+		for (int threads = 1; threads <= 2; threads++) {
+			CatalogRdf archive = new CatalogRdf(RdfArchiveTest.createArchive("manifesterror.tar.bz2"));
+			archive.setManifest(manifest);
+			archive.setThreads(threads);
+			try {
+				archive.readFiles(rdfFile -> {
+					throw new IllegalStateException("Consumer failed");
+				});
+				fail("Exception must be rethrown");
+			} catch (IllegalStateException e) {
+				assertEquals("Consumer failed", e.getMessage());
+			}
+			assertTrue("Files not read must not be deleted", archive.getDeletedIds().isEmpty());
+		}
+	}
+	
+	/**
+	 * Si el manifiesto no se guarda al leer, solo se guarda al llamar a saveManifest
+	 */
+	@Test
+	public void saveManifestTest() throws IOException {
+		File manifest = new File("target/savemanifesttest.txt");
+		Files.deleteIfExists(manifest.toPath());
+		CatalogRdf catalog = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalog.setManifest(manifest);
+		catalog.setManifestSavedOnRead(false);
+		catalog.readFiles();
+		assertFalse(manifest.exists());
+		
+		catalog.saveManifest();
+		assertTrue(manifest.exists());
+	}
+	
+	private File copyRdfFiles(String path) throws IOException {
+		File target = new File(path);
+		deleteFolder(target);
+		Path source = Paths.get("target/test-classes/rdftest");
+		try (Stream<Path> files = Files.walk(source)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Path copy = target.toPath().resolve(source.relativize(file).toString());
+				if (Files.isDirectory(file)) {
+					Files.createDirectories(copy);
+				} else {
+					Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+				}
+			}
+		}
+		return target;
+	}
+	
+	private void deleteFolder(File folder) throws IOException {
+		if (folder.exists()) {
+			try (Stream<Path> files = Files.walk(folder.toPath())) {
+				files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+			}
+		}
+	}
+	
+	/**
+	 * Si el parámetro rdfFilesFolder es un fichero que no es un archivo de ficheros RDF, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenRdfFilesFolderParameterWhenFileThenIllegalArgumentException() {
+		new CatalogRdf(new File("target/test-classes/rdftest/10/pg10.rdf"));
+	}
+	
+	/**
+	 * Si el número de hilos es menor que uno, entonces lanzar excepción IllegalArgumentException
+	 */
+	/**
+	 * Si el número de hilos de precarga es negativo, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenPrefetchThreadsParameterWhenNegativeThenIllegalArgumentException() {
+		CatalogRdf cr = new CatalogRdf(new File("target/test-classes/rdftest"));
+		cr.setPrefetchThreads(-1);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenThreadsParameterWhenZeroThenIllegalArgumentException() {
+		new CatalogRdf(new File("target/test-classes/rdftest")).setThreads(0);
+	}
+	
 	/**
 	 * Si el parámetro rdfFilesFolder es null, entonces lanzar excepción IllegalArgumentException
 	 */
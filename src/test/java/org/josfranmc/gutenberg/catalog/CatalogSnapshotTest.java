@@ -0,0 +1,83 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase CatalogSnapshot
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class CatalogSnapshotTest {
+
+	/**
+	 * Todos los libros del catálogo se recuperan del snapshot
+	 */
+	@Test
+	public void saveAndOpenTest() {
+		CatalogRdf catalog = new CatalogRdf(new File("target/test-classes/rdftest"));
+		catalog.readFiles();
+		File file = new File("target/snapshot/catalog.snapshot");
+		CatalogSnapshot.save(catalog.getRdfCatalog(), file);
+		
+		CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+		assertEquals("Wrong snapshot size", catalog.getRdfCatalog().size(), snapshot.size());
+		catalog.getRdfCatalog().forEach((id, rdfFile) -> assertEquals("Wrong Book " + id, rdfFile.getBook(), snapshot.getBook(id)));
+		assertNull(snapshot.getBook("1"));
+		assertNull(snapshot.getBook("99999"));
+		assertNull(snapshot.getBook(null));
+	}
+	
+	/**
+	 * Los valores nulos y los textos repetidos o con caracteres no ASCII se guardan correctamente
+	 */
+	@Test
+	public void nullAndRepeatedValuesTest() {
+		Map<String, RdfFile> catalog = new HashMap<>();
+		catalog.put("1", createRdfFile("1", "Cervantes, Miguel de", "Don Quijote", "es"));
+		catalog.put("2", createRdfFile("2", "Cervantes, Miguel de", "Novelas ejemplares", "es"));
+		catalog.put("3", createRdfFile("3", null, "Añoranza ñ €", null));
+		File file = new File("target/snapshot/values.snapshot");
+		CatalogSnapshot.save(catalog, file);
+		
+		CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+		for (String id : catalog.keySet()) {
+			assertEquals("Wrong Book " + id, catalog.get(id).getBook(), snapshot.getBook(id));
+		}
+		assertEquals("Añoranza ñ €", snapshot.getBook("3").getTitle());
+		assertNull(snapshot.getBook("3").getAuthor());
+		assertNull(snapshot.getBook("3").getLanguage());
+	}
+	
+	/**
+	 * Si el fichero no es un snapshot, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenSnapshotFileWhenInvalidThenIllegalArgumentException() throws IOException {
+		File file = new File("target/snapshot/invalid.snapshot");
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24});
+		CatalogSnapshot.open(file);
+	}
+	
+	private RdfFile createRdfFile(String id, String author, String title, String language) {
+		String rdf = "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:dcterms=\"http://purl.org/dc/terms/\" "
+				+ "xmlns:pgterms=\"http://www.gutenberg.org/2009/pgterms/\">"
+				+ "<pgterms:ebook rdf:about=\"ebooks/" + id + "\">"
+				+ "<dcterms:title>" + title + "</dcterms:title>"
+				+ ((author != null) ? "<dcterms:creator><pgterms:agent><pgterms:name>" + author + "</pgterms:name></pgterms:agent></dcterms:creator>" : "")
+				+ ((language != null) ? "<dcterms:language><rdf:Description><rdf:value>" + language + "</rdf:value></rdf:Description></dcterms:language>" : "")
+				+ "</pgterms:ebook>"
+				+ "</rdf:RDF>";
+		return new RdfFile("test", '/', id, rdf.getBytes(StandardCharsets.UTF_8), new StaxRdfExtractor());
+	}
+}
@@ -3,6 +3,7 @@ package org.josfranmc.gutenberg.catalog;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.sql.Connection;
@@ -10,7 +11,10 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
 
+import org.josfranmc.gutenberg.index.InvertedIndex;
 import org.junit.Test;
 
 /**
@@ -87,6 +91,109 @@ public class JGutenbergCatalogTest {
 		assertTrue(query("jdbc:hsqldb:mem:gutenbergtest2"));
 	}
 	
+	@Test
+	public void loadDbStreamingTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.setDatabase("target/test-classes/db/hsql4_connection.properties");
+		jg.setStreaming(true);
+		jg.setThreads(2);
+		jg.loadDb();
+		
+		assertTrue(query("jdbc:hsqldb:mem:gutenbergtest4"));
+		assertTrue(jg.getRdfCatalog().isEmpty());
+		assertEquals("Wrong number of books indexed", 6, jg.getSearchIndex().size());
+	}
+	
+	/**
+	 * La búsqueda por palabras del título o del autor devuelve los libros que las contienen
+	 */
+	@Test
+	public void searchTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.readRdfFiles();
+		
+		assertEquals("Wrong number of books found", 2, jg.search("various").size());
+		assertEquals("Wrong book found", "10607", jg.search("MOTHER goose").get(0).getBook().getId());
+		assertTrue(jg.search("mother bible").isEmpty());
+		assertEquals("Wrong number of books found", 2, jg.search("mother bible", InvertedIndex.Operator.OR, 10).size());
+	}
+	
+	/**
+	 * El índice de prefijos guardado se carga sin volver a leer los ficheros RDF
+	 */
+	@Test
+	public void completeTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.readRdfFiles();
+		assertEquals("Wrong completion", "The Real Mother Goose", jg.complete("the real").get(0).getText());
+		jg.savePrefixIndex("target/prefix.idx");
+		
+		JGutenbergCatalog loaded = new JGutenbergCatalog("target/test-classes/rdftest");
+		loaded.loadPrefixIndex("target/prefix.idx");
+		assertEquals("Wrong completion", "Various", loaded.complete("vari").get(0).getText());
+		assertEquals("Wrong number of books", 2, loaded.complete("vari").get(0).getCount());
+		assertTrue(loaded.getRdfCatalog().isEmpty());
+	}
+	
+	/**
+	 * Los libros se cuentan por idioma y autor
+	 */
+	@Test
+	public void getFacetIndexTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.readRdfFiles();
+		
+		assertEquals("Wrong number of books", 6, jg.getFacetIndex().count("en", null));
+		assertEquals("Wrong number of books", 2, jg.getFacetIndex().count("en", "Various"));
+		assertEquals("Wrong author", "Various", jg.getFacetIndex().getAuthorCounts("en", 1).keySet().iterator().next());
+	}
+	
+	/**
+	 * Se encuentran los libros con títulos parecidos
+	 */
+	@Test
+	public void findSimilarTitlesTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.readRdfFiles();
+		
+		assertEquals("Wrong book found", "10607", jg.findSimilarTitles("The real mother goose.", 1, 10).get(0).getBook().getId());
+		assertEquals("Wrong book found", "10", jg.findSimilarTitles("King James Version of the Bible", 0.8, 10).get(0).getBook().getId());
+	}
+	
+	/**
+	 * Si no se han leído los ficheros RDF, el índice se construye al buscar
+	 */
+	@Test
+	public void searchWithoutReadingTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		
+		assertEquals("Wrong book found", "48856", jg.search("bartolome mitre").get(0).getBook().getId());
+		assertTrue(jg.getRdfCatalog().isEmpty());
+	}
+	
+	@Test
+	public void loadDbInBatchesTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.setDatabase("target/test-classes/db/hsql5_connection.properties");
+		jg.loadDb();
+		
+		assertTrue(query("jdbc:hsqldb:mem:gutenbergtest5"));
+		
+		jg.setDatabase("target/test-classes/db/hsql5_connection.properties");
+		jg.loadDb();
+		
+		assertTrue(query("jdbc:hsqldb:mem:gutenbergtest5"));
+	}
+	
+	/**
+	 * Si el fichero de configuración tiene un tamaño de lote que no es un número, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void loadDbWithBadBatchSizeTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.setDatabase("target/test-classes/db/hsql_bad_setting.properties");
+	}
+	
 	@Test(expected=IllegalArgumentException.class)
 	public void loadDbWithBadSettingFileTest() {
 		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
@@ -120,6 +227,22 @@ public class JGutenbergCatalogTest {
 		assertTrue(query("jdbc:hsqldb:mem:gutenbergtest3"));
 	}
 	
+	@Test(expected=IllegalArgumentException.class)
+	public void main5Test() {
+		String[] args = {"-r", "target/test-classes/rdftest", "-t", "x"};
+		JGutenbergCatalog.main(args); 
+	}
+	
+	@Test
+	public void readRdfFilesInParallelTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.setThreads(2);
+		jg.readRdfFiles();
+		
+		Book book = jg.getBook("10607");
+		assertEquals("Wrong Book title", "The Real Mother Goose", book.getTitle());
+	}
+	
 	private boolean query(String url) {
 		boolean result = false;
 		ResultSet resultSet = null;
@@ -152,4 +275,74 @@ public class JGutenbergCatalogTest {
 		}
 		return result;
 	}
+	
+	/**
+	 * Los libros se obtienen del snapshot sin leer los ficheros RDF
+	 */
+	@Test
+	public void snapshotTest() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.saveSnapshot("target/snapshot/jgutenberg.snapshot");
+		
+		JGutenbergCatalog restarted = new JGutenbergCatalog("target/test-classes/rdftest");
+		restarted.loadSnapshot("target/snapshot/jgutenberg.snapshot");
+		Book book = restarted.getBook("10607");
+		
+		assertEquals("Wrong Book", jg.getRdfCatalog().get("10607").getBook(), book);
+		assertTrue(restarted.getRdfCatalog().isEmpty());
+	}
+	
+	/**
+	 * Los libros que no están en memoria se buscan en la base de datos antes que en los ficheros RDF, y se guardan en la caché
+	 */
+	@Test
+	public void getBookFromDbTest() throws SQLException {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.setDatabase("target/test-classes/db/hsql6_connection.properties");
+		jg.loadDb();
+		try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:gutenbergtest6", "SA", "");
+			 PreparedStatement statement = connection.prepareStatement("INSERT INTO books VALUES ('99999', 'Author', 'Only in DB', 'en')")) {
+			statement.executeUpdate();
+		}
+		
+		JGutenbergCatalog restarted = new JGutenbergCatalog("target/test-classes/rdftest");
+		restarted.setDatabase("target/test-classes/db/hsql6_connection.properties");
+		assertEquals("Wrong Book title", "Only in DB", restarted.getBook("99999").getTitle());
+		assertEquals("Wrong Book title", "Only in DB", restarted.getBook("99999").getTitle());
+		assertEquals("Wrong Book title", "The Real Mother Goose", restarted.getBook("10607").getTitle());
+		
+		assertEquals("Wrong hits", 1, restarted.getBookCache().getHits());
+		assertEquals("Wrong misses", 2, restarted.getBookCache().getMisses());
+		assertTrue(restarted.getRdfCatalog().isEmpty());
+	}
+	
+	/**
+	 * Los libros de una consulta múltiple se buscan en la base de datos y en los ficheros RDF, y se devuelven en el orden pedido
+	 */
+	@Test
+	public void getBooksTest() throws SQLException {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.setDatabase("target/test-classes/db/hsql7_connection.properties");
+		jg.loadDb();
+		try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:gutenbergtest7", "SA", "");
+			 PreparedStatement statement = connection.prepareStatement("INSERT INTO books VALUES ('99999', 'Author', 'Only in DB', 'en')")) {
+			statement.executeUpdate();
+		}
+		
+		JGutenbergCatalog restarted = new JGutenbergCatalog("target/test-classes/rdftest");
+		restarted.setDatabase("target/test-classes/db/hsql7_connection.properties");
+		restarted.setThreads(2);
+		restarted.getBook("10");
+		List<Book> books = restarted.getBooks(Arrays.asList("10607", "99999", "88888", "10607", "10", null));
+		
+		assertEquals("Wrong number of books", 6, books.size());
+		assertEquals("Wrong Book title", "The Real Mother Goose", books.get(0).getTitle());
+		assertEquals("Wrong Book title", "Only in DB", books.get(1).getTitle());
+		assertNull(books.get(2));
+		assertEquals("Wrong Book", books.get(0), books.get(3));
+		assertEquals("Wrong Book Id", "10", books.get(4).getId());
+		assertNull(books.get(5));
+		assertEquals("Wrong cache size", 3, restarted.getBookCache().size());
+		assertTrue(restarted.getRdfCatalog().isEmpty());
+	}
 }
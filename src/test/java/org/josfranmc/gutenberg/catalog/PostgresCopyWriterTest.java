@@ -0,0 +1,84 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeNotNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase PostgresCopyWriter.<br>
+ * Los test que necesitan una base de datos PostgreSQL solo se ejecutan si se indica su url con la propiedad <i>postgres.url</i>
+ * (por ejemplo -Dpostgres.url=jdbc:postgresql://localhost:5432/test?user=test&amp;password=test)
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class PostgresCopyWriterTest {
+
+	@Test
+	public void appendRowTest() {
+		StringBuilder row = new StringBuilder();
+		PostgresCopyWriter.appendRow(row, createBook("10607", "Author", "Title", "en"));
+		assertEquals("10607\tAuthor\tTitle\ten\n", row.toString());
+	}
+	
+	/**
+	 * Los caracteres especiales del formato de texto de COPY se escapan y los valores nulos se escriben como \N
+	 */
+	@Test
+	public void appendRowEscapeTest() {
+		StringBuilder row = new StringBuilder();
+		PostgresCopyWriter.appendRow(row, createBook("1", null, "A\tb\\c\r\nd", "en"));
+		assertEquals("1\t\\N\tA\\tb\\\\c\\r\\nd\ten\n", row.toString());
+	}
+	
+	@Test
+	public void isSupportedTest() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:copywritertest", "SA", "")) {
+			assertFalse(PostgresCopyWriter.isSupported(connection));
+		}
+	}
+	
+	/**
+	 * Solo se copian los libros que no están en la tabla books
+	 */
+	@Test
+	public void copyBooksTest() throws SQLException {
+		String url = System.getProperty("postgres.url");
+		assumeNotNull(url);
+		try (Connection connection = DriverManager.getConnection(url); Statement statement = connection.createStatement()) {
+			connection.setAutoCommit(false);
+			statement.executeUpdate("CREATE TEMP TABLE books (id VARCHAR(10) PRIMARY KEY, author VARCHAR(255), title VARCHAR(1024), language VARCHAR(10))");
+			statement.executeUpdate("INSERT INTO books VALUES ('1', 'Author 1', 'Title 1', 'en')");
+			
+			PostgresCopyWriter writer = new PostgresCopyWriter(connection);
+			writer.begin();
+			for (int i = 1; i <= 5; i++) {
+				writer.write(createBook(String.valueOf(i), "Author " + i, "Title\t" + i, "en"));
+			}
+			writer.write(createBook("5", "Author 5", "Title 5", "en"));
+			assertEquals("Wrong number of new books", 4, writer.end());
+			
+			try (ResultSet resultSet = statement.executeQuery("SELECT title FROM books WHERE id = '2'")) {
+				resultSet.next();
+				assertEquals("Title\t2", resultSet.getString(1));
+			}
+			connection.rollback();
+		}
+	}
+	
+	private Book createBook(String id, String author, String title, String language) {
+		Book book = new Book();
+		book.setId(id);
+		book.setAuthor(author);
+		book.setTitle(title);
+		book.setLanguage(language);
+		return book;
+	}
+}
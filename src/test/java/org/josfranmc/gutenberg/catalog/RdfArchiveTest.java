@@ -0,0 +1,165 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase RdfArchive
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class RdfArchiveTest {
+
+	private static final File RDF_FOLDER = new File("target/test-classes/rdftest");
+	
+	@Test
+	public void isArchiveTest() throws IOException {
+		assertTrue(RdfArchive.isArchive(createArchive("rdf-files.tar")));
+		assertTrue(RdfArchive.isArchive(createArchive("rdf-files.tar.bz2")));
+		assertFalse(RdfArchive.isArchive(RDF_FOLDER));
+		assertFalse(RdfArchive.isArchive(new File("target/test-classes/rdftest/10/pg10.rdf")));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenFileParameterWhenNotArchiveThenIllegalArgumentException() {
+		new RdfArchive(new File("target/test-classes/rdftest/10/pg10.rdf"));
+	}
+	
+	@Test
+	public void readTest() throws IOException {
+		for (String name : new String[] {"rdf-files.tar", "rdf-files.tar.bz2", "rdf-files.tar.zip"}) {
+			List<RdfArchive.Entry> entries = new ArrayList<>();
+			new RdfArchive(createArchive(name)).read(entries::add);
+			
+			assertEquals("Wrong number of entries in " + name, 9, entries.size());
+			for (RdfArchive.Entry entry : entries) {
+				assertTrue("Wrong entry name", entry.getName().startsWith("cache/epub/"));
+				assertEquals("Wrong file name", entry.getFileName(), new File(entry.getName()).getName());
+				assertTrue("Empty entry", entry.getContent().length > 0);
+			}
+		}
+	}
+	
+	/**
+	 * El lector del archivo devuelve las mismas entradas que la lectura completa
+	 */
+	@Test
+	public void readerTest() throws IOException {
+		RdfArchive archive = new RdfArchive(createArchive("rdf-files.tar.zip"));
+		List<RdfArchive.Entry> entries = new ArrayList<>();
+		archive.read(entries::add);
+		
+		try (RdfArchive.EntryReader reader = archive.reader()) {
+			for (RdfArchive.Entry entry : entries) {
+				assertTrue(reader.hasNext());
+				assertEquals("Wrong entry", entry.getName(), reader.next().getName());
+			}
+			assertFalse(reader.hasNext());
+		}
+	}
+	
+	@Test
+	public void findTest() throws IOException {
+		RdfArchive archive = new RdfArchive(createArchive("rdf-files.tar.bz2"));
+		RdfArchive.Entry entry = archive.find("10607");
+		
+		assertNotNull(entry);
+		assertEquals("Wrong folder name", "10607", entry.getFolderName());
+		assertEquals("Wrong file name", "pg10607.rdf", entry.getFileName());
+		assertNull(archive.find("999999"));
+	}
+	
+	/**
+	 * Los identificadores de los libros del archivo se leen una vez, y se vuelven a leer si el archivo cambia
+	 */
+	@Test
+	public void containsTest() throws IOException {
+		File file = new File("target/rdfarchive/contains.tar");
+		Files.deleteIfExists(file.toPath());
+		createArchive("contains.tar");
+		RdfArchive archive = new RdfArchive(file);
+		
+		assertTrue(archive.contains("10607"));
+		assertFalse(archive.contains("999999"));
+		assertNull(archive.find("999999"));
+		
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new FileOutputStream(file))) {
+			tar.finish();
+		}
+		assertTrue(file.setLastModified(file.lastModified() - 60000));
+		assertFalse(archive.contains("10607"));
+		assertNull(archive.find("10607"));
+	}
+	
+	@Test
+	public void findSeveralTest() throws IOException {
+		RdfArchive archive = new RdfArchive(createArchive("rdf-files.tar.bz2"));
+		Map<String, RdfArchive.Entry> entries = archive.find(Arrays.asList("10607", "14229", "999999"));
+		
+		assertEquals("Wrong number of files", 2, entries.size());
+		assertEquals("Wrong file name", "pg10607.rdf", entries.get("10607").getFileName());
+		assertEquals("Wrong file name", "pg14229.rdf", entries.get("14229").getFileName());
+	}
+	
+	/**
+	 * Crea un archivo con los ficheros RDF de prueba, con la misma estructura que el catálogo descargado del proyecto Gutenberg.
+	 * @param name nombre del archivo, su extensión indica el formato
+	 * @return el archivo creado
+	 */
+	static File createArchive(String name) throws IOException {
+		File archive = new File("target/rdfarchive/" + name);
+		if (!archive.exists()) {
+			archive.getParentFile().mkdirs();
+			try (OutputStream output = new FileOutputStream(archive)) {
+				if (name.endsWith(".bz2")) {
+					try (BZip2CompressorOutputStream bzip = new BZip2CompressorOutputStream(output)) {
+						writeTar(bzip);
+					}
+				} else if (name.endsWith(".zip")) {
+					try (ZipOutputStream zip = new ZipOutputStream(output)) {
+						zip.putNextEntry(new ZipEntry("rdf-files.tar"));
+						writeTar(zip);
+						zip.closeEntry();
+					}
+				} else {
+					writeTar(output);
+				}
+			}
+		}
+		return archive;
+	}
+	
+	private static void writeTar(OutputStream output) throws IOException {
+		TarArchiveOutputStream tar = new TarArchiveOutputStream(output);
+		for (File folder : RDF_FOLDER.listFiles()) {
+			for (File file : folder.listFiles()) {
+				TarArchiveEntry entry = new TarArchiveEntry("cache/epub/" + folder.getName() + "/" + file.getName());
+				entry.setSize(file.length());
+				tar.putArchiveEntry(entry);
+				tar.write(Files.readAllBytes(file.toPath()));
+				tar.closeArchiveEntry();
+			}
+		}
+		tar.finish();
+	}
+}
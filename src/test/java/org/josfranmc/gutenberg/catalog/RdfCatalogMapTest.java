@@ -0,0 +1,180 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase RdfCatalogMap
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class RdfCatalogMapTest {
+
+	private static final byte[] CONTENT = "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"/>".getBytes(StandardCharsets.UTF_8);
+	
+	@Test
+	public void putGetRemoveTest() {
+		RdfCatalogMap map = new RdfCatalogMap();
+		RdfFile numeric = createRdfFile("10607");
+		RdfFile other = createRdfFile("007");
+		
+		assertNull(map.put("10607", numeric));
+		assertNull(map.put("007", other));
+		assertSame(numeric, map.put("10607", numeric));
+		
+		assertEquals("Wrong size", 2, map.size());
+		assertSame(numeric, map.get("10607"));
+		assertSame(other, map.get("007"));
+		assertNull(map.get("7"));
+		assertNull(map.get(10607));
+		assertTrue(map.containsKey("007"));
+		
+		assertSame(numeric, map.remove("10607"));
+		assertNull(map.get("10607"));
+		assertSame(other, map.remove("007"));
+		assertTrue(map.isEmpty());
+	}
+	
+	/**
+	 * El mapa crece y reutiliza las posiciones de los elementos borrados sin perder elementos
+	 */
+	@Test
+	public void growAndRemoveTest() {
+		RdfCatalogMap map = new RdfCatalogMap();
+		Map<String, RdfFile> expected = new HashMap<>();
+		RdfFile rdfFile = createRdfFile("1");
+		for (int i = 0; i < 20000; i++) {
+			map.put(String.valueOf(i * 7), rdfFile);
+			expected.put(String.valueOf(i * 7), rdfFile);
+		}
+		for (int i = 0; i < 20000; i += 2) {
+			map.remove(String.valueOf(i * 7));
+			expected.remove(String.valueOf(i * 7));
+		}
+		for (int i = 0; i < 5000; i++) {
+			map.put(String.valueOf(i * 3), rdfFile);
+			expected.put(String.valueOf(i * 3), rdfFile);
+		}
+		
+		assertEquals("Wrong size", expected.size(), map.size());
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+	}
+	
+	@Test
+	public void iteratorRemoveTest() {
+		RdfCatalogMap map = new RdfCatalogMap();
+		for (String id : new String[] {"1", "2", "3", "abc"}) {
+			map.put(id, createRdfFile(id));
+		}
+		Iterator<Map.Entry<String, RdfFile>> iterator = map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			String id = iterator.next().getKey();
+			if (id.equals("2") || id.equals("abc")) {
+				iterator.remove();
+			}
+		}
+		
+		assertEquals("Wrong size", 2, map.size());
+		assertFalse(map.containsKey("2"));
+		assertFalse(map.containsKey("abc"));
+		assertTrue(map.containsKey("3"));
+	}
+	
+	/**
+	 * El iterador recorre los elementos que había al crearlo, aunque el mapa se modifique mientras se recorre
+	 */
+	@Test
+	public void iteratorWhileModifyingTest() {
+		RdfCatalogMap map = new RdfCatalogMap();
+		RdfFile rdfFile = createRdfFile("1");
+		for (int i = 0; i < 1000; i++) {
+			map.put(String.valueOf(i), rdfFile);
+		}
+		Map<String, RdfFile> expected = new HashMap<>(map);
+		Map<String, RdfFile> found = new HashMap<>();
+		Iterator<Map.Entry<String, RdfFile>> iterator = map.entrySet().iterator();
+		int added = 1000;
+		while (iterator.hasNext()) {
+			Map.Entry<String, RdfFile> entry = iterator.next();
+			found.put(entry.getKey(), entry.getValue());
+			map.remove(entry.getKey());
+			map.put(String.valueOf(added++), rdfFile);
+		}
+		
+		assertEquals(expected, found);
+		assertEquals("Wrong size", 1000, map.size());
+	}
+	
+	/**
+	 * forEach ejecuta la acción sin bloquear el mapa, así que otros hilos pueden modificarlo mientras tanto
+	 */
+	@Test(timeout=10000)
+	public void forEachWithoutLockTest() throws Exception {
+		RdfCatalogMap map = new RdfCatalogMap();
+		RdfFile rdfFile = createRdfFile("1");
+		for (int i = 0; i < 100; i++) {
+			map.put(String.valueOf(i), rdfFile);
+		}
+		map.put("other", rdfFile);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Map<String, RdfFile> found = new HashMap<>();
+		map.forEach((key, value) -> {
+			found.put(key, value);
+			try {
+				executor.submit(() -> map.put("new" + key, rdfFile)).get();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		executor.shutdown();
+		
+		assertEquals("Wrong number of entries", 101, found.size());
+		assertTrue(found.containsKey("other"));
+		assertEquals("Wrong size", 202, map.size());
+	}
+	
+	/**
+	 * Varios hilos pueden añadir elementos al mismo tiempo
+	 */
+	@Test
+	public void concurrentPutTest() throws InterruptedException {
+		RdfCatalogMap map = new RdfCatalogMap();
+		RdfFile rdfFile = createRdfFile("1");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			int first = t;
+			executor.execute(() -> {
+				for (int i = first; i < 40000; i += 4) {
+					map.put(String.valueOf(i), rdfFile);
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		
+		assertEquals("Wrong size", 40000, map.size());
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void givenValueWhenNullThenNullPointerException() {
+		new RdfCatalogMap().put("1", null);
+	}
+	
+	private RdfFile createRdfFile(String id) {
+		return new RdfFile("test", '/', id, CONTENT, new StaxRdfExtractor());
+	}
+}
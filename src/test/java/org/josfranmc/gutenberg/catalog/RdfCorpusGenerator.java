@@ -0,0 +1,372 @@
+package org.josfranmc.gutenberg.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Clase que genera un catálogo sintético de ficheros RDF, con la estructura <i>cache/epub/id/pgid.rdf</i> del catálogo del proyecto Gutenberg, 
+ * para probar y medir el programa con catálogos del tamaño del real sin necesidad de descargarlo.<p>
+ * Los ficheros se construyen a partir de los ficheros RDF de prueba, que se usan como plantillas: en cada uno se cambian el identificador, 
+ * el título, los autores y el idioma. Los datos siguen distribuciones que se pueden configurar:
+ * <ul>
+ * <li>El número de palabras del título sigue una distribución geométrica, y algunos títulos tienen un subtítulo en otra línea</li>
+ * <li>Los autores se eligen de un conjunto limitado según una distribución de Zipf, de modo que unos pocos autores tienen muchos libros</li>
+ * <li>Algunos libros tienen varios autores, y otros ninguno</li>
+ * <li>Algunos libros no tienen idioma</li>
+ * <li>Algunas carpetas tienen un nombre que contiene la palabra <i>delete</i>, por lo que deben ser ignoradas</li>
+ * </ul>
+ * Con la misma semilla se genera siempre el mismo catálogo. También se puede ejecutar desde la línea de comandos:
+ * <pre>java org.josfranmc.gutenberg.catalog.RdfCorpusGenerator carpeta numeroDeLibros [semilla]</pre>
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class RdfCorpusGenerator {
+
+	private static final String[] WORDS = {"the", "of", "and", "a", "in", "history", "adventures", "love", "war", "king", "life", "letters", 
+			"journey", "island", "poems", "house", "voyage", "mystery", "night", "city", "volume", "stories", "children", "old", "new", 
+			"garden", "river", "secret", "memoirs", "travels", "sea", "world", "lady", "captain", "song", "book", "tales", "woman", "england"};
+	
+	private static final String[] SYLLABLES = {"ab", "ber", "cal", "dor", "el", "fen", "gar", "hol", "in", "jor", "kel", "lan", "mor", "nel", 
+			"os", "per", "quin", "ros", "sal", "tor", "ul", "ver", "wil", "xan", "yor", "zan"};
+	
+	private static final String[] LANGUAGES = {"en", "fr", "fi", "de", "nl", "it", "es", "pt", "zh", "sv"};
+	
+	/**
+	 * Probabilidad acumulada de cada idioma, aproximada a la del catálogo real
+	 */
+	private static final double[] LANGUAGE_WEIGHTS = {0.78, 0.83, 0.86, 0.89, 0.91, 0.93, 0.95, 0.97, 0.98, 1.0};
+	
+	private static final Pattern TITLE = Pattern.compile("<dcterms:title>.*?</dcterms:title>", Pattern.DOTALL);
+	
+	private static final Pattern CREATOR = Pattern.compile("[ \\t]*<dcterms:creator>.*?</dcterms:creator>\\r?\\n", Pattern.DOTALL);
+	
+	private static final Pattern LANGUAGE = Pattern.compile("[ \\t]*<dcterms:language>.*?</dcterms:language>\\r?\\n", Pattern.DOTALL);
+	
+	private static final Pattern LANGUAGE_VALUE = Pattern.compile("(<dcterms:language>.*?<rdf:value[^>]*>)[^<]*", Pattern.DOTALL);
+	
+	private final File templatesFolder;
+	
+	private long seed = 1;
+	
+	private int firstId = 1;
+	
+	private double meanTitleWords = 6;
+	
+	private double subtitleRate = 0.1;
+	
+	private int authors = 20000;
+	
+	private double authorSkew = 1.1;
+	
+	private double multiCreatorRate = 0.1;
+	
+	private double noCreatorRate = 0.05;
+	
+	private double missingLanguageRate = 0.02;
+	
+	private double deleteRate = 0.01;
+	
+	
+	/**
+	 * Crea un generador que usa como plantillas los ficheros RDF de una carpeta
+	 * @param templatesFolder carpeta con los ficheros RDF de plantilla, con la estructura <i>id/pgid.rdf</i>
+	 */
+	public RdfCorpusGenerator(File templatesFolder) {
+		if (templatesFolder == null || !templatesFolder.isDirectory()) {
+			throw new IllegalArgumentException("Invalid templates folder");
+		}
+		this.templatesFolder = templatesFolder;
+	}
+	
+	/**
+	 * Genera el catálogo en la carpeta <i>cache/epub</i> de una carpeta, que se crea si no existe.
+	 * @param root carpeta donde se genera el catálogo
+	 * @param books número de libros a generar, incluidos los de las carpetas a ignorar
+	 * @return la carpeta <i>cache/epub</i> con los ficheros RDF generados
+	 * @throws IllegalStateException si no se pueden leer las plantillas o escribir los ficheros
+	 */
+	public File generate(File root, int books) {
+		if (books < 0) {
+			throw new IllegalArgumentException("Number of books can not be negative");
+		}
+		File epub = new File(new File(root, "cache"), "epub");
+		Random random = new Random(this.seed);
+		double[] authorWeights = createZipfWeights(this.authors, this.authorSkew);
+		try {
+			List<Template> templates = readTemplates();
+			for (int i = 0; i < books; i++) {
+				String id = String.valueOf(this.firstId + i);
+				Template template = templates.get(i % templates.size());
+				String content = template.content.replaceAll("(ebooks|files|epub)/" + template.id + "(?=[/\".-])", "$1/" + id);
+				content = setTitle(content, createTitle(random));
+				content = setCreators(content, random, authorWeights);
+				content = setLanguage(content, random);
+				File folder = new File(epub, getFolderName(id, random));
+				Files.createDirectories(folder.toPath());
+				Files.write(new File(folder, RdfFile.FILE_PREFIX + id + RdfFile.FILE_EXTENSION).toPath(), content.getBytes(StandardCharsets.UTF_8));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Error generating RDF corpus: " + e.getMessage());
+		}
+		return epub;
+	}
+	
+	private List<Template> readTemplates() throws IOException {
+		List<Template> templates = new ArrayList<>();
+		File[] folders = this.templatesFolder.listFiles(File::isDirectory);
+		for (File folder : folders) {
+			File file = new File(folder, RdfFile.FILE_PREFIX + folder.getName() + RdfFile.FILE_EXTENSION);
+			if (file.isFile()) {
+				String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+				if (TITLE.matcher(content).find() && LANGUAGE.matcher(content).find()) {
+					templates.add(new Template(folder.getName(), content));
+				}
+			}
+		}
+		if (templates.isEmpty()) {
+			throw new IllegalStateException("No RDF templates found in " + this.templatesFolder);
+		}
+		templates.sort((a, b) -> a.id.compareTo(b.id));
+		return templates;
+	}
+	
+	private String createTitle(Random random) {
+		StringBuilder title = new StringBuilder(capitalize(WORDS[random.nextInt(WORDS.length)]));
+		int words = geometric(random, this.meanTitleWords);
+		for (int i = 1; i < words; i++) {
+			title.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		if (random.nextDouble() < this.subtitleRate) {
+			title.append("\n").append(capitalize(WORDS[random.nextInt(WORDS.length)])).append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return title.toString();
+	}
+	
+	private String setTitle(String content, String title) {
+		Matcher matcher = TITLE.matcher(content);
+		matcher.find();
+		return content.substring(0, matcher.start()) + "<dcterms:title>" + title + "</dcterms:title>" + content.substring(matcher.end());
+	}
+	
+	private String setCreators(String content, Random random, double[] authorWeights) {
+		String result = CREATOR.matcher(content).replaceAll("");
+		double value = random.nextDouble();
+		int creators = (value < this.noCreatorRate) ? 0 : (value < this.noCreatorRate + this.multiCreatorRate) ? 2 + random.nextInt(2) : 1;
+		StringBuilder xml = new StringBuilder();
+		for (int i = 0; i < creators; i++) {
+			int author = pick(random, authorWeights);
+			xml.append("    <dcterms:creator>\n")
+				.append("      <pgterms:agent rdf:about=\"2009/agents/").append(author + 1).append("\">\n")
+				.append("        <pgterms:name>").append(getAuthorName(author)).append("</pgterms:name>\n")
+				.append("      </pgterms:agent>\n")
+				.append("    </dcterms:creator>\n");
+		}
+		Matcher matcher = LANGUAGE.matcher(result);
+		matcher.find();
+		return result.substring(0, matcher.start()) + xml + result.substring(matcher.start());
+	}
+	
+	private String setLanguage(String content, Random random) {
+		String result;
+		if (random.nextDouble() < this.missingLanguageRate) {
+			result = LANGUAGE.matcher(content).replaceFirst("");
+		} else {
+			String language = LANGUAGES[pick(random, LANGUAGE_WEIGHTS)];
+			result = LANGUAGE_VALUE.matcher(content).replaceFirst("$1" + language);
+		}
+		return result;
+	}
+	
+	private String getFolderName(String id, Random random) {
+		String result = id;
+		if (random.nextDouble() < this.deleteRate) {
+			result = random.nextBoolean() ? id + ".delete" : "DELETE-" + id;
+		}
+		return result;
+	}
+	
+	/**
+	 * Devuelve el nombre del autor que ocupa una posición en el conjunto de autores. El mismo autor tiene siempre el mismo nombre.
+	 */
+	static String getAuthorName(int author) {
+		StringBuilder surname = new StringBuilder();
+		int value = author;
+		do {
+			surname.append(SYLLABLES[value % SYLLABLES.length]);
+			value /= SYLLABLES.length;
+		} while (value > 0);
+		return capitalize(surname.toString()) + ", " + capitalize(SYLLABLES[(author * 7) % SYLLABLES.length]) + "o";
+	}
+	
+	private static String capitalize(String word) {
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+	
+	/**
+	 * Devuelve un número de una distribución geométrica con la media indicada, mayor que cero
+	 */
+	private static int geometric(Random random, double mean) {
+		int result = 1;
+		while (random.nextDouble() > 1 / mean && result < 40) {
+			result++;
+		}
+		return result;
+	}
+	
+	/**
+	 * Calcula la probabilidad acumulada de cada posición en una distribución de Zipf
+	 */
+	private static double[] createZipfWeights(int size, double skew) {
+		double[] weights = new double[size];
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += 1 / Math.pow(i + 1, skew);
+			weights[i] = sum;
+		}
+		for (int i = 0; i < size; i++) {
+			weights[i] /= sum;
+		}
+		return weights;
+	}
+	
+	/**
+	 * Elige una posición según sus probabilidades acumuladas
+	 */
+	private static int pick(Random random, double[] weights) {
+		double value = random.nextDouble();
+		int low = 0;
+		int high = weights.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (weights[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	private static void checkRate(double rate) {
+		if (rate < 0 || rate > 1) {
+			throw new IllegalArgumentException("Rate must be between 0 and 1: " + rate);
+		}
+	}
+	
+	/**
+	 * @param seed semilla de los números aleatorios. Por defecto es 1
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * @param firstId identificador del primer libro. Por defecto es 1
+	 */
+	public void setFirstId(int firstId) {
+		this.firstId = firstId;
+	}
+	
+	/**
+	 * @param meanTitleWords número medio de palabras de los títulos. Por defecto es 6
+	 */
+	public void setMeanTitleWords(double meanTitleWords) {
+		if (meanTitleWords < 1) {
+			throw new IllegalArgumentException("Mean title words must be at least 1");
+		}
+		this.meanTitleWords = meanTitleWords;
+	}
+	
+	/**
+	 * @param subtitleRate proporción de títulos con subtítulo. Por defecto es 0.1
+	 */
+	public void setSubtitleRate(double subtitleRate) {
+		checkRate(subtitleRate);
+		this.subtitleRate = subtitleRate;
+	}
+	
+	/**
+	 * @param authors número de autores distintos. Por defecto es 20000
+	 */
+	public void setAuthors(int authors) {
+		if (authors < 1) {
+			throw new IllegalArgumentException("Number of authors must be greater than zero");
+		}
+		this.authors = authors;
+	}
+	
+	/**
+	 * @param authorSkew exponente de la distribución de Zipf de los autores. Cuanto mayor es, más se repiten los autores más frecuentes. 
+	 * Por defecto es 1.1
+	 */
+	public void setAuthorSkew(double authorSkew) {
+		if (authorSkew < 0) {
+			throw new IllegalArgumentException("Author skew can not be negative");
+		}
+		this.authorSkew = authorSkew;
+	}
+	
+	/**
+	 * @param multiCreatorRate proporción de libros con dos o tres autores. Por defecto es 0.1
+	 */
+	public void setMultiCreatorRate(double multiCreatorRate) {
+		checkRate(multiCreatorRate);
+		this.multiCreatorRate = multiCreatorRate;
+	}
+	
+	/**
+	 * @param noCreatorRate proporción de libros sin autor. Por defecto es 0.05
+	 */
+	public void setNoCreatorRate(double noCreatorRate) {
+		checkRate(noCreatorRate);
+		this.noCreatorRate = noCreatorRate;
+	}
+	
+	/**
+	 * @param missingLanguageRate proporción de libros sin idioma. Por defecto es 0.02
+	 */
+	public void setMissingLanguageRate(double missingLanguageRate) {
+		checkRate(missingLanguageRate);
+		this.missingLanguageRate = missingLanguageRate;
+	}
+	
+	/**
+	 * @param deleteRate proporción de carpetas que deben ser ignoradas. Por defecto es 0.01
+	 */
+	public void setDeleteRate(double deleteRate) {
+		checkRate(deleteRate);
+		this.deleteRate = deleteRate;
+	}
+	
+	private static class Template {
+		
+		private final String id;
+		
+		private final String content;
+		
+		private Template(String id, String content) {
+			this.id = id;
+			this.content = content;
+		}
+	}
+	
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Usage: RdfCorpusGenerator folder books [seed]");
+		} else {
+			RdfCorpusGenerator generator = new RdfCorpusGenerator(new File(System.getProperty("rdf.samples", "src/test/resources/rdftest")));
+			if (args.length > 2) {
+				generator.setSeed(Long.parseLong(args[2]));
+			}
+			File epub = generator.generate(new File(args[0]), Integer.parseInt(args[1]));
+			System.out.println("RDF files generated in " + epub.getAbsolutePath());
+		}
+	}
+}
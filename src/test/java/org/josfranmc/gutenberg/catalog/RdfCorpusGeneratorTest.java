@@ -0,0 +1,102 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase RdfCorpusGenerator
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class RdfCorpusGeneratorTest {
+
+	/**
+	 * Si la carpeta de plantillas no existe, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenTemplatesFolderWhenWrongThenIllegalArgumentException() {
+		new RdfCorpusGenerator(new File("bad/path"));
+	}
+	
+	/**
+	 * Los ficheros generados se leen como un catálogo, con autores repetidos, libros sin idioma y carpetas ignoradas
+	 */
+	@Test
+	public void generateTest() throws IOException {
+		File root = new File("target/corpustest");
+		deleteFolder(root);
+		RdfCorpusGenerator generator = new RdfCorpusGenerator(new File("target/test-classes/rdftest"));
+		generator.setFirstId(70000);
+		generator.setAuthors(50);
+		generator.setMissingLanguageRate(0.2);
+		generator.setDeleteRate(0.1);
+		File epub = generator.generate(root, 300);
+		
+		String[] folders = epub.list();
+		long deleted = Stream.of(folders).filter(name -> name.toLowerCase().contains("delete")).count();
+		assertEquals("Wrong number of folders", 300, folders.length);
+		assertTrue("Wrong deleted folders", deleted > 0);
+		
+		CatalogRdf catalog = new CatalogRdf(epub);
+		catalog.setThreads(2);
+		catalog.readFiles();
+		assertEquals("Wrong catalog size", 300 - deleted, catalog.getRdfCatalog().size());
+		
+		Set<String> authors = new HashSet<>();
+		int withoutLanguage = 0;
+		for (RdfFile rdfFile : catalog.getRdfCatalog().values()) {
+			Book book = rdfFile.getBook();
+			assertNotNull("Wrong title", book.getTitle());
+			if (book.getAuthor() != null) {
+				authors.add(book.getAuthor());
+			}
+			if (book.getLanguage() == null) {
+				withoutLanguage++;
+			}
+		}
+		assertTrue("Wrong number of authors", authors.size() > 1 && authors.size() <= 50);
+		assertTrue("Wrong books without language", withoutLanguage > 0);
+		
+		Book jenaBook = new RdfFile(new File(epub, "70001"), new JenaRdfExtractor()).getBook();
+		assertEquals("Wrong Book", jenaBook, catalog.getRdfCatalog().get("70001").getBook());
+	}
+	
+	/**
+	 * Con la misma semilla se genera el mismo catálogo
+	 */
+	@Test
+	public void generateWithSameSeedTest() throws IOException {
+		RdfCorpusGenerator generator = new RdfCorpusGenerator(new File("target/test-classes/rdftest"));
+		generator.setSeed(7);
+		File first = generator.generate(new File("target/corpustest1"), 20);
+		File second = generator.generate(new File("target/corpustest2"), 20);
+		for (String name : first.list()) {
+			File file = new File(new File(first, name), "pg" + name.replaceAll("\\D", "") + ".rdf");
+			assertTrue("Wrong content", Arrays.equals(Files.readAllBytes(file.toPath()), 
+					Files.readAllBytes(new File(new File(second, name), file.getName()).toPath())));
+		}
+	}
+	
+	private void deleteFolder(File folder) throws IOException {
+		if (folder.exists()) {
+			try (Stream<Path> files = Files.walk(folder.toPath())) {
+				for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+}
@@ -5,6 +5,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 /**
@@ -35,6 +42,16 @@ public class RdfFileTest {
 		assertEquals("Wrong Book title", "The Real Mother Goose", book.getTitle());
 	}
 	
+	@Test
+	public void getBookWithJenaTest() {
+		File file = new File("target/test-classes/rdftest/43909");
+		RdfFile rf = new RdfFile(file, new JenaRdfExtractor());
+		Book book = rf.getBook();
+		assertEquals("Wrong Book title", "Sometub's Cruise on the C. & O. CanalThe narrative of a motorboat vacation in the heart of Maryland", book.getTitle());
+		assertEquals("Wrong Book author", "Cowan, John Pryor", book.getAuthor());
+		assertEquals("Wrong Book language", "en", book.getLanguage());
+	}
+	
 	@Test
 	public void equalTest() {
 		File file1 = new File("target/test-classes/rdftest/10607");
@@ -51,4 +68,43 @@ public class RdfFileTest {
 		
 		assertTrue(rf1.equals(rf3));
 	}
+	
+	/**
+	 * La ruta del fichero se obtiene a partir de la carpeta del catálogo y del identificador
+	 */
+	@Test
+	public void getFilePathTest() {
+		File file = new File("target/test-classes/rdftest/10607");
+		RdfFile rf = new RdfFile(file);
+		assertEquals(new File(file, "pg10607.rdf").getAbsolutePath(), rf.getFilePath());
+		
+		RdfFile archived = new RdfFile("rdf-files.tar!/cache/epub", '/', "10", "<rdf:RDF/>".getBytes(), new StaxRdfExtractor());
+		assertEquals("rdf-files.tar!/cache/epub/10/pg10.rdf", archived.getFilePath());
+	}
+	
+	/**
+	 * Un fichero perezoso se analiza una sola vez, al pedir su libro, aunque se pida desde varios hilos
+	 */
+	@Test
+	public void getBookLazyTest() throws Exception {
+		File folder = new File("target/test-classes/rdftest");
+		AtomicInteger parsed = new AtomicInteger();
+		RdfFile rf = RdfFile.createLazy(folder.getAbsolutePath(), File.separatorChar, "10607", null, new StaxRdfExtractor(), book -> parsed.incrementAndGet());
+		assertFalse(rf.isParsed());
+		assertEquals("10607", rf.getId());
+		assertEquals(0, parsed.get());
+		
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		List<Future<Book>> books = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			books.add(pool.submit(rf::getBook));
+		}
+		for (Future<Book> book : books) {
+			assertEquals("The Real Mother Goose", book.get().getTitle());
+		}
+		pool.shutdown();
+		assertTrue(rf.isParsed());
+		assertEquals(1, parsed.get());
+		assertEquals(new RdfFile(new File(folder, "10607")).getBook(), rf.getBook());
+	}
 }
@@ -0,0 +1,111 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase RdfManifest
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class RdfManifestTest {
+
+	private static final byte[] CONTENT = "<rdf:RDF></rdf:RDF>".getBytes(StandardCharsets.UTF_8);
+	
+	@Test
+	public void saveAndLoadTest() throws IOException {
+		File file = new File("target/manifest/saveandload.txt");
+		Files.deleteIfExists(file.toPath());
+		
+		RdfManifest manifest = new RdfManifest(file);
+		manifest.beginScan();
+		assertFalse(manifest.isUnchanged("10", 1000, CONTENT.length));
+		manifest.update("10", 1000, CONTENT);
+		manifest.update("abc", 2000, CONTENT);
+		manifest.commit();
+		manifest.save();
+		
+		RdfManifest loaded = new RdfManifest(file);
+		assertEquals("Wrong manifest size", 2, loaded.size());
+		assertTrue(loaded.isUnchanged("10", 1000, CONTENT.length));
+		assertFalse(loaded.isUnchanged("10", 1001, CONTENT.length));
+		assertFalse(loaded.isUnchanged("abc", 2000, CONTENT.length + 1));
+	}
+	
+	/**
+	 * Si solo cambia la fecha de modificación, el contenido se compara por su hash y se guarda la nueva fecha
+	 */
+	@Test
+	public void hasSameContentTest() {
+		RdfManifest manifest = new RdfManifest(new File("target/manifest/samecontent.txt"));
+		manifest.update("10", 1000, CONTENT);
+		manifest.commit();
+		
+		assertTrue(manifest.hasSameContent("10", 3000, CONTENT));
+		manifest.commit();
+		assertTrue(manifest.isUnchanged("10", 3000, CONTENT.length));
+		assertFalse(manifest.hasSameContent("10", 4000, "<rdf:RDF> </rdf:RDF>".getBytes(StandardCharsets.UTF_8)));
+		assertFalse(manifest.hasSameContent("11", 1000, CONTENT));
+	}
+	
+	@Test
+	public void endScanTest() {
+		RdfManifest manifest = new RdfManifest(new File("target/manifest/endscan.txt"));
+		manifest.update("10", 1000, CONTENT);
+		manifest.update("11", 1000, CONTENT);
+		manifest.commit();
+		
+		manifest.beginScan();
+		manifest.isUnchanged("10", 1000, CONTENT.length);
+		assertEquals(Collections.singleton("11"), manifest.endScan());
+		manifest.commit();
+		assertEquals("Wrong manifest size", 1, manifest.size());
+	}
+	
+	/**
+	 * Los cambios no confirmados no se guardan, y se descartan al empezar una nueva lectura
+	 */
+	@Test
+	public void commitTest() throws IOException {
+		File file = new File("target/manifest/commit.txt");
+		Files.deleteIfExists(file.toPath());
+		RdfManifest manifest = new RdfManifest(file);
+		manifest.beginScan();
+		manifest.isUnchanged("10", 1000, CONTENT.length);
+		manifest.update("10", 1000, CONTENT);
+		manifest.endScan();
+		manifest.commit();
+		
+		manifest.beginScan();
+		manifest.update("11", 1000, CONTENT);
+		assertEquals(Collections.singleton("10"), manifest.endScan());
+		manifest.save();
+		assertEquals("Wrong manifest size", 1, new RdfManifest(file).size());
+		
+		manifest.beginScan();
+		manifest.commit();
+		assertEquals("Wrong manifest size", 1, manifest.size());
+		assertTrue(manifest.isUnchanged("10", 1000, CONTENT.length));
+		assertFalse(manifest.isUnchanged("11", 1000, CONTENT.length));
+	}
+	
+	/**
+	 * Si el fichero no es un manifiesto válido, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenManifestFileWhenInvalidThenIllegalArgumentException() throws IOException {
+		File file = new File("target/manifest/invalid.txt");
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), "10\t1000".getBytes(StandardCharsets.UTF_8));
+		new RdfManifest(file);
+	}
+}
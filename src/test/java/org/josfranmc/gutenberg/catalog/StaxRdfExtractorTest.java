@@ -0,0 +1,120 @@
+package org.josfranmc.gutenberg.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase StaxRdfExtractor
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class StaxRdfExtractorTest {
+
+	private static final String[] IDS = {"10", "10607", "14229", "14230", "43909", "48856"};
+	
+	/**
+	 * Los datos obtenidos deben ser los mismos que los obtenidos con Jena
+	 */
+	@Test
+	public void sameDataAsJenaTest() throws IOException {
+		RdfExtractor stax = new StaxRdfExtractor();
+		RdfExtractor jena = new JenaRdfExtractor();
+		for (String id : IDS) {
+			Book expected = extract(jena, id);
+			Book book = extract(stax, id);
+			assertEquals("Wrong title " + id, expected.getTitle(), book.getTitle());
+			assertEquals("Wrong author " + id, expected.getAuthor(), book.getAuthor());
+			assertEquals("Wrong language " + id, expected.getLanguage(), book.getLanguage());
+		}
+	}
+	
+	@Test
+	public void extractTest() throws IOException {
+		Book book = extract(new StaxRdfExtractor(), "48856");
+		assertEquals("Wrong Book title", "The Emancipation of South America", book.getTitle());
+		assertEquals("Wrong Book author", "Mitre, Bartolomé", book.getAuthor());
+		assertEquals("Wrong Book language", "en", book.getLanguage());
+	}
+	
+	/**
+	 * Si el creador es una referencia a un agente definido en otro lugar del fichero, entonces se obtiene su nombre
+	 */
+	@Test
+	public void creatorReferenceTest() throws IOException {
+		String rdf = "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:dcterms=\"http://purl.org/dc/terms/\" "
+				+ "xmlns:pgterms=\"http://www.gutenberg.org/2009/pgterms/\">"
+				+ "<pgterms:ebook rdf:about=\"ebooks/1\">"
+				+ "<dcterms:title>Title</dcterms:title>"
+				+ "<dcterms:creator rdf:resource=\"2009/agents/7\"/>"
+				+ "</pgterms:ebook>"
+				+ "<pgterms:agent rdf:about=\"2009/agents/7\"><pgterms:name>Someone</pgterms:name></pgterms:agent>"
+				+ "</rdf:RDF>";
+		Book book = new Book();
+		new StaxRdfExtractor().extract(new ByteArrayInputStream(rdf.getBytes(StandardCharsets.UTF_8)), book);
+		assertEquals("Wrong Book author", "Someone", book.getAuthor());
+		assertNull("Wrong Book language", book.getLanguage());
+	}
+	
+	/**
+	 * Si hay varios creadores o idiomas, entonces se obtienen los primeros del fichero, tanto si el creador es una referencia como si no
+	 */
+	@Test
+	public void severalCreatorsTest() throws IOException {
+		String header = "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:dcterms=\"http://purl.org/dc/terms/\" "
+				+ "xmlns:pgterms=\"http://www.gutenberg.org/2009/pgterms/\">"
+				+ "<pgterms:ebook rdf:about=\"ebooks/1\">"
+				+ "<dcterms:title>Title</dcterms:title>";
+		String inline = "<dcterms:creator><pgterms:agent rdf:about=\"2009/agents/8\"><pgterms:name>Inline</pgterms:name></pgterms:agent></dcterms:creator>";
+		String reference = "<dcterms:creator rdf:resource=\"2009/agents/7\"/>";
+		String languages = "<dcterms:language><rdf:Description><rdf:value>es</rdf:value></rdf:Description></dcterms:language>"
+				+ "<dcterms:language><rdf:Description><rdf:value>en</rdf:value></rdf:Description></dcterms:language>";
+		String footer = "</pgterms:ebook>"
+				+ "<pgterms:agent rdf:about=\"2009/agents/7\"><pgterms:name>Reference</pgterms:name></pgterms:agent>"
+				+ "</rdf:RDF>";
+		
+		Book book = new Book();
+		new StaxRdfExtractor().extract(new ByteArrayInputStream((header + inline + reference + languages + footer).getBytes(StandardCharsets.UTF_8)), book);
+		assertEquals("Wrong Book author", "Inline", book.getAuthor());
+		assertEquals("Wrong Book language", "es", book.getLanguage());
+		
+		book = new Book();
+		new StaxRdfExtractor().extract(new ByteArrayInputStream((header + reference + inline + languages + footer).getBytes(StandardCharsets.UTF_8)), book);
+		assertEquals("Wrong Book author", "Reference", book.getAuthor());
+		assertEquals("Wrong Book language", "es", book.getLanguage());
+	}
+	
+	/**
+	 * Si no hay título, entonces no se asigna ningún dato
+	 */
+	@Test
+	public void withoutTitleTest() throws IOException {
+		String rdf = "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:dcterms=\"http://purl.org/dc/terms/\">"
+				+ "<dcterms:language><rdf:Description><rdf:value>en</rdf:value></rdf:Description></dcterms:language>"
+				+ "</rdf:RDF>";
+		Book book = new Book();
+		new StaxRdfExtractor().extract(new ByteArrayInputStream(rdf.getBytes(StandardCharsets.UTF_8)), book);
+		assertNull("Wrong Book language", book.getLanguage());
+	}
+	
+	@Test(expected=IOException.class)
+	public void invalidContentTest() throws IOException {
+		new StaxRdfExtractor().extract(new ByteArrayInputStream("<rdf:RDF".getBytes(StandardCharsets.UTF_8)), new Book());
+	}
+	
+	private Book extract(RdfExtractor extractor, String id) throws IOException {
+		Book book = new Book();
+		try (InputStream is = new FileInputStream(new File("target/test-classes/rdftest/" + id + "/pg" + id + ".rdf"))) {
+			extractor.extract(is, book);
+		}
+		return book;
+	}
+}
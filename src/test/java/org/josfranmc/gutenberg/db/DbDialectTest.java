@@ -0,0 +1,15 @@
+package org.josfranmc.gutenberg.db;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DbDialectTest {
+
+	@Test
+	public void getDialectTest() {
+		assertEquals(DbDialect.POSTGRESQL, new PostgreSQLConnection().getDialect());
+		assertEquals(DbDialect.MYSQL, new MySQLConnection().getDialect());
+		assertEquals(DbDialect.HSQL, new DbConnectionBuilder().build().getDialect());
+	}
+}
@@ -0,0 +1,103 @@
+package org.josfranmc.gutenberg.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase CompactBitmap
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class CompactBitmapTest {
+
+	@Test
+	public void addAndRemoveTest() {
+		CompactBitmap bitmap = CompactBitmap.of(5, 1, 70000, 5);
+		assertArrayEquals(new int[] {1, 5, 70000}, bitmap.toArray());
+		assertTrue(bitmap.contains(70000));
+		assertFalse(bitmap.contains(4464));
+		
+		bitmap.remove(70000);
+		bitmap.remove(3);
+		assertArrayEquals(new int[] {1, 5}, bitmap.toArray());
+		bitmap.remove(1);
+		bitmap.remove(5);
+		assertTrue(bitmap.isEmpty());
+	}
+	
+	/**
+	 * Los contenedores pasan de array a mapa de bits al superar 4096 valores, y vuelven a array al bajar de ese número
+	 */
+	@Test
+	public void denseContainerTest() {
+		CompactBitmap bitmap = new CompactBitmap();
+		for (int i = 0; i < 10000; i += 2) {
+			bitmap.add(i);
+		}
+		assertEquals(5000, bitmap.cardinality());
+		assertTrue(bitmap.contains(9998));
+		assertFalse(bitmap.contains(9999));
+		for (int i = 0; i < 2000; i += 2) {
+			bitmap.remove(i);
+		}
+		assertEquals(4000, bitmap.cardinality());
+		assertTrue(bitmap.contains(2000));
+		assertFalse(bitmap.contains(1998));
+	}
+	
+	/**
+	 * Las operaciones obtienen el mismo resultado que con conjuntos, con contenedores de ambos tipos
+	 */
+	@Test
+	public void operationsTest() {
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			TreeSet<Integer> setA = new TreeSet<>();
+			TreeSet<Integer> setB = new TreeSet<>();
+			CompactBitmap a = new CompactBitmap();
+			CompactBitmap b = new CompactBitmap();
+			int sizeA = (round % 2 == 0) ? 1000 : 30000;
+			int sizeB = (round % 3 == 0) ? 500 : 20000;
+			for (int i = 0; i < sizeA; i++) {
+				int value = random.nextInt(200000);
+				setA.add(value);
+				a.add(value);
+			}
+			for (int i = 0; i < sizeB; i++) {
+				int value = random.nextInt(200000);
+				setB.add(value);
+				b.add(value);
+			}
+			TreeSet<Integer> intersection = new TreeSet<>(setA);
+			intersection.retainAll(setB);
+			TreeSet<Integer> union = new TreeSet<>(setA);
+			union.addAll(setB);
+			
+			assertEquals(setA.size(), a.cardinality());
+			assertArrayEquals(toArray(intersection), a.and(b).toArray());
+			assertEquals(intersection.size(), a.andCardinality(b));
+			assertEquals(intersection.size(), b.andCardinality(a));
+			assertArrayEquals(toArray(union), a.or(b).toArray());
+			assertArrayEquals(toArray(setA), a.toArray());
+		}
+	}
+	
+	/**
+	 * Si el valor es negativo, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenValueParameterWhenNegativeThenIllegalArgumentException() {
+		new CompactBitmap().add(-1);
+	}
+	
+	private int[] toArray(TreeSet<Integer> set) {
+		return set.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
@@ -0,0 +1,89 @@
+package org.josfranmc.gutenberg.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.josfranmc.gutenberg.catalog.Book;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase FacetIndex
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class FacetIndexTest {
+
+	/**
+	 * Los libros se filtran y se cuentan por idioma y autor
+	 */
+	@Test
+	public void countTest() {
+		FacetIndex index = createIndex();
+		
+		assertEquals(5, index.count(null, null));
+		assertEquals(3, index.count("en", null));
+		assertEquals(2, index.count("en", "Dickens"));
+		assertEquals(0, index.count("fr", "Dickens"));
+		assertEquals(1, index.getBooks("es", "Cervantes").size());
+		assertEquals("4", index.getBooks("es", "Cervantes").get(0).getId());
+		
+		Map<String, Integer> languages = new LinkedHashMap<>();
+		languages.put("en", 3);
+		languages.put("es", 1);
+		languages.put("fr", 1);
+		assertEquals(languages, index.getLanguageCounts(null));
+		assertEquals(Arrays.asList("en"), Arrays.asList(index.getLanguageCounts("Dickens").keySet().toArray()));
+		assertEquals("Dickens", index.getAuthorCounts(null, 1).keySet().iterator().next());
+		assertEquals(1, index.getAuthorCounts("fr", 10).size());
+	}
+	
+	/**
+	 * Al reemplazar o borrar libros se actualizan los mapas de bits
+	 */
+	@Test
+	public void updateTest() {
+		FacetIndex index = createIndex();
+		
+		assertFalse(index.add(createBook("1", "Dickens", "fr")));
+		assertEquals(2, index.count("en", null));
+		assertEquals(2, index.count("fr", null));
+		assertTrue(index.remove("5"));
+		assertFalse(index.remove("5"));
+		assertEquals(1, index.count("fr", null));
+		assertFalse(index.getAuthorCounts(null, 10).containsKey("Verne"));
+		
+		assertTrue(index.add(createBook("6", "Verne", "fr")));
+		assertEquals(5, index.size());
+		assertEquals(2, index.count("fr", null));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenBookParameterWhenNullThenIllegalArgumentException() {
+		new FacetIndex().add(null);
+	}
+	
+	private FacetIndex createIndex() {
+		FacetIndex index = new FacetIndex();
+		index.add(createBook("1", "Dickens", "en"));
+		index.add(createBook("2", "Dickens", "en"));
+		index.add(createBook("3", "Dickens", "es"));
+		index.add(createBook("4", "Cervantes", "es"));
+		index.add(createBook("5", "Verne", "fr"));
+		index.remove("3");
+		index.add(createBook("7", null, "en"));
+		return index;
+	}
+	
+	private Book createBook(String id, String author, String language) {
+		Book book = new Book();
+		book.setId(id);
+		book.setAuthor(author);
+		book.setLanguage(language);
+		return book;
+	}
+}
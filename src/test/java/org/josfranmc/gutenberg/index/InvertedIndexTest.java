@@ -0,0 +1,133 @@
+package org.josfranmc.gutenberg.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.josfranmc.gutenberg.catalog.Book;
+import org.josfranmc.gutenberg.index.InvertedIndex.Operator;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase InvertedIndex
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class InvertedIndexTest {
+
+	/**
+	 * Con AND se devuelven los libros que contienen todos los términos, y con OR los que contienen alguno
+	 */
+	@Test
+	public void searchTest() {
+		InvertedIndex index = createIndex();
+		
+		assertArrayEquals(new String[] {"2"}, ids(index.search("cruise canal", Operator.AND, 10)));
+		assertArrayEquals(new String[] {"2", "1"}, ids(index.search("cruise canal", Operator.OR, 10)));
+		assertEquals(0, index.search("canal unknown", Operator.AND, 10).size());
+		assertArrayEquals(new String[] {"1", "2"}, ids(index.search("canal unknown", Operator.OR, 10)));
+		assertEquals(0, index.search(" ", Operator.OR, 10).size());
+	}
+	
+	/**
+	 * Los términos del título pesan más que los del autor, y los términos raros más que los comunes
+	 */
+	@Test
+	public void rankingTest() {
+		InvertedIndex index = createIndex();
+		
+		List<SearchHit> hits = index.search("cowan", Operator.OR, 10);
+		assertArrayEquals(new String[] {"3", "1"}, ids(hits));
+		assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+		
+		assertArrayEquals(new String[] {"4"}, ids(index.search("canal punch", Operator.OR, 1)));
+		assertArrayEquals(new String[] {"2", "1"}, ids(index.search("the", Operator.OR, 2)));
+	}
+	
+	/**
+	 * Los libros ya indexados no se vuelven a añadir
+	 */
+	@Test
+	public void addTest() {
+		InvertedIndex index = createIndex();
+		assertFalse(index.add(createBook("1", "Another title", null)));
+		assertEquals(4, index.size());
+		assertEquals(0, index.search("another", Operator.OR, 10).size());
+		
+		index.compact();
+		assertTrue(index.getPostingBytes() > 0);
+		assertArrayEquals(new String[] {"2"}, ids(index.search("CRUISE", Operator.AND, 10)));
+	}
+	
+	/**
+	 * Varios hilos pueden buscar al mismo tiempo mientras se añaden libros
+	 */
+	@Test
+	public void concurrentSearchTest() throws Exception {
+		InvertedIndex index = createIndex();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> searches = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			searches.add(executor.submit(() -> {
+				for (int i = 0; i < 500; i++) {
+					List<SearchHit> hits = index.search("canal", Operator.AND, 5000);
+					assertTrue("Books lost while adding", hits.size() >= 2);
+				}
+			}));
+		}
+		for (int i = 5; i < 2005; i++) {
+			index.add(createBook(String.valueOf(i), "Canal " + i, "Various"));
+		}
+		for (Future<?> search : searches) {
+			search.get();
+		}
+		executor.shutdown();
+		
+		assertEquals(2002, index.search("canal", Operator.AND, 5000).size());
+	}
+	
+	/**
+	 * Si el límite es menor que uno, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenLimitParameterWhenZeroThenIllegalArgumentException() {
+		createIndex().search("canal", Operator.AND, 0);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenBookParameterWhenNullThenIllegalArgumentException() {
+		createIndex().add(null);
+	}
+	
+	private InvertedIndex createIndex() {
+		InvertedIndex index = new InvertedIndex();
+		index.add(createBook("1", "The canal", "Cowan, John"));
+		index.add(createBook("2", "The cruise on the canal", "Smith"));
+		index.add(createBook("3", "Cowan's travels", "Various"));
+		index.add(createBook("4", "Punch", "Various"));
+		return index;
+	}
+	
+	private Book createBook(String id, String title, String author) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle(title);
+		book.setAuthor(author);
+		return book;
+	}
+	
+	private String[] ids(List<SearchHit> hits) {
+		String[] ids = new String[hits.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = hits.get(i).getBook().getId();
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,101 @@
+package org.josfranmc.gutenberg.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.josfranmc.gutenberg.catalog.Book;
+import org.josfranmc.gutenberg.index.PrefixIndex.Completion;
+import org.josfranmc.gutenberg.index.PrefixIndex.Field;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase PrefixIndex
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class PrefixIndexTest {
+
+	/**
+	 * Se devuelven los títulos y autores que empiezan por el prefijo, primero los que tienen más libros
+	 */
+	@Test
+	public void completeTest() {
+		PrefixIndex index = createIndex();
+		
+		List<Completion> completions = index.complete("the m", 10);
+		assertEquals(2, completions.size());
+		assertEquals("The Mirror of Literature", completions.get(0).getText());
+		assertEquals(2, completions.get(0).getCount());
+		assertEquals("The Mother Goose", completions.get(1).getText());
+		
+		assertEquals(1, index.complete("THE MOTHER", 10).size());
+		assertEquals(0, index.complete("mother", 10).size());
+		assertEquals(1, index.complete("the", 1).size());
+		assertEquals(0, index.complete(" ", 10).size());
+	}
+	
+	/**
+	 * Los autores se encuentran por el apellido y por el nombre, sin tener en cuenta los acentos
+	 */
+	@Test
+	public void completeAuthorTest() {
+		PrefixIndex index = createIndex();
+		
+		List<Completion> completions = index.complete("mitre, barto", 10);
+		assertEquals(1, completions.size());
+		assertEquals("Mitre, Bartolomé", completions.get(0).getText());
+		assertEquals(Field.AUTHOR, completions.get(0).getField());
+		assertEquals("Mitre, Bartolomé", index.complete("bartolome", 10).get(0).getText());
+	}
+	
+	/**
+	 * El índice guardado en un fichero se carga con el mismo contenido
+	 */
+	@Test
+	public void saveAndLoadTest() throws IOException {
+		PrefixIndex index = createIndex();
+		File file = new File("target/prefixtest/prefix.idx");
+		index.save(file);
+		
+		PrefixIndex loaded = PrefixIndex.load(file);
+		assertEquals(index.size(), loaded.size());
+		assertEquals(index.complete("the", 10).toString(), loaded.complete("the", 10).toString());
+		Files.delete(file.toPath());
+	}
+	
+	/**
+	 * Si el fichero no es un índice, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenFileParameterWhenNotIndexThenIllegalArgumentException() {
+		PrefixIndex.load(new File("target/test-classes/rdftest/10/pg10.rdf"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void givenLimitParameterWhenZeroThenIllegalArgumentException() {
+		createIndex().complete("the", 0);
+	}
+	
+	private PrefixIndex createIndex() {
+		PrefixIndex.Builder builder = new PrefixIndex.Builder();
+		builder.add(createBook("The Mirror of Literature", "Various"));
+		builder.add(createBook("The Mirror of Literature", "Various"));
+		builder.add(createBook("The Mother Goose", null));
+		builder.add(createBook("Historia de Belgrano", "Mitre, Bartolomé"));
+		PrefixIndex index = builder.build();
+		assertTrue(index.size() > 0);
+		return index;
+	}
+	
+	private Book createBook(String title, String author) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setAuthor(author);
+		return book;
+	}
+}
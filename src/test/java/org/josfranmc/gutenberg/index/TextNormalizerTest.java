@@ -0,0 +1,36 @@
+package org.josfranmc.gutenberg.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase TextNormalizer
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class TextNormalizerTest {
+
+	/**
+	 * Los términos se separan por los caracteres que no son letras ni dígitos, en minúsculas y sin acentos
+	 */
+	@Test
+	public void tokenizeTest() {
+		assertEquals(Arrays.asList("mitre", "bartolome"), TextNormalizer.tokenize("Mitre, Bartolomé"));
+		assertEquals(Arrays.asList("volume", "17", "no", "493"), TextNormalizer.tokenize("  Volume 17, No. 493."));
+		assertEquals(Arrays.asList("exodo", "ninos"), TextNormalizer.tokenize("ÉXODO\nniños"));
+	}
+	
+	/**
+	 * Si el texto es null o vacío, entonces no hay términos
+	 */
+	@Test
+	public void tokenizeEmptyTest() {
+		assertTrue(TextNormalizer.tokenize(null).isEmpty());
+		assertTrue(TextNormalizer.tokenize("").isEmpty());
+		assertTrue(TextNormalizer.tokenize(" ,.- ").isEmpty());
+	}
+}
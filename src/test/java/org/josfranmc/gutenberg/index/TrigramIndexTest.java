@@ -0,0 +1,127 @@
+package org.josfranmc.gutenberg.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.josfranmc.gutenberg.catalog.Book;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase TrigramIndex
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class TrigramIndexTest {
+
+	/**
+	 * Se encuentran los títulos que solo difieren en mayúsculas, puntuación o saltos de línea, y los que tienen pocos cambios
+	 */
+	@Test
+	public void findTest() {
+		TrigramIndex index = createIndex();
+		
+		List<TitleMatch> matches = index.find("the real mother-goose!", 1, 10);
+		assertEquals(1, matches.size());
+		assertEquals("1", matches.get(0).getBook().getId());
+		assertEquals(0, matches.get(0).getDistance());
+		
+		matches = index.find("The Real Mothr Goose", 0.9, 10);
+		assertEquals(1, matches.size());
+		assertEquals(1, matches.get(0).getDistance());
+		
+		matches = index.find("Punch, or the London Charivari, Volume 101, November 21, 1892", 0.8, 10);
+		assertEquals(2, matches.size());
+		assertEquals("2", matches.get(0).getBook().getId());
+		assertEquals("3", matches.get(1).getBook().getId());
+		assertTrue(matches.get(0).getSimilarity() > matches.get(1).getSimilarity());
+		assertEquals(1, index.find("Punch, or the London Charivari, Volume 101, November 21, 1892", 0.8, 1).size());
+		assertEquals(1, index.find("Punch, or the London Charivari, Volume 101, November 21, 1892", 0.9, 10).size());
+		
+		assertEquals(0, index.find("The Emancipation of South America", 0.8, 10).size());
+	}
+	
+	/**
+	 * El filtro por trigramas no descarta ningún título que cumpla la similitud pedida
+	 */
+	@Test
+	public void findSameAsEditDistanceTest() {
+		Random random = new Random(7);
+		TrigramIndex index = new TrigramIndex();
+		String[] titles = new String[300];
+		for (int i = 0; i < titles.length; i++) {
+			titles[i] = randomTitle(random);
+			index.add(createBook(String.valueOf(i), titles[i]));
+		}
+		for (int i = 0; i < 50; i++) {
+			String query = PrefixIndex.toKey(mutate(titles[random.nextInt(titles.length)], random));
+			double minSimilarity = 0.7 + random.nextInt(3) / 10.0;
+			int expected = 0;
+			for (String title : titles) {
+				String key = PrefixIndex.toKey(title);
+				int maxLength = Math.max(key.length(), query.length());
+				if (TrigramIndex.distance(key, query, maxLength) <= (int) Math.floor((1 - minSimilarity) * maxLength + 1e-9)) {
+					expected++;
+				}
+			}
+			assertEquals("Wrong matches for " + query, expected, index.find(query, minSimilarity, 1000).size());
+		}
+	}
+	
+	@Test
+	public void distanceTest() {
+		assertEquals(3, TrigramIndex.distance("kitten", "sitting", 10));
+		assertEquals(0, TrigramIndex.distance("goose", "goose", 0));
+		assertEquals(5, TrigramIndex.distance("", "goose", 10));
+		assertTrue(TrigramIndex.distance("kitten", "sitting", 1) > 1);
+	}
+	
+	/**
+	 * Si la similitud no está entre 0 y 1, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenSimilarityParameterWhenGreaterThanOneThenIllegalArgumentException() {
+		createIndex().find("goose", 1.5, 10);
+	}
+	
+	private TrigramIndex createIndex() {
+		TrigramIndex index = new TrigramIndex();
+		index.add(createBook("1", "The Real Mother Goose"));
+		index.add(createBook("2", "Punch, or the London Charivari, Volume 101,\nNovember 21, 1891"));
+		index.add(createBook("3", "Punch, or the London Charivari, Volume 102, March 5, 1892"));
+		index.add(createBook("4", "The Mirror of Literature"));
+		index.add(createBook("5", null));
+		return index;
+	}
+	
+	private Book createBook(String id, String title) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle(title);
+		return book;
+	}
+	
+	private String randomTitle(Random random) {
+		String[] words = {"the", "goose", "mother", "canal", "cruise", "london", "volume", "mirror", "bible", "king"};
+		StringBuilder title = new StringBuilder();
+		for (int i = 0; i < 2 + random.nextInt(4); i++) {
+			title.append(words[random.nextInt(words.length)]).append(' ');
+		}
+		return title.toString();
+	}
+	
+	private String mutate(String title, Random random) {
+		StringBuilder mutated = new StringBuilder(title);
+		for (int i = 0; i < random.nextInt(4); i++) {
+			int position = random.nextInt(mutated.length());
+			if (random.nextBoolean()) {
+				mutated.setCharAt(position, (char) ('a' + random.nextInt(26)));
+			} else {
+				mutated.deleteCharAt(position);
+			}
+		}
+		return mutated.toString();
+	}
+}
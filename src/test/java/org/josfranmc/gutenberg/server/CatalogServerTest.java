@@ -0,0 +1,168 @@
+package org.josfranmc.gutenberg.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.josfranmc.gutenberg.catalog.JGutenbergCatalog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Clase que implementa los test para probar los métodos de la clase CatalogServer
+ * @author Jose Francisco Mena Ceca
+ * @version 2.4
+ */
+public class CatalogServerTest {
+
+	private CatalogServer server;
+	
+	@Before
+	public void startServer() {
+		JGutenbergCatalog jg = new JGutenbergCatalog("target/test-classes/rdftest");
+		jg.readRdfFiles();
+		server = new CatalogServer(jg, 0);
+		server.start();
+	}
+	
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+	
+	/**
+	 * Si el catálogo es null, entonces lanzar excepción IllegalArgumentException
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void givenCatalogWhenNullThenIllegalArgumentException() {
+		new CatalogServer(null, 0);
+	}
+	
+	/**
+	 * Se obtiene un libro por su identificador, o 404 si no existe
+	 */
+	@Test
+	public void getBookTest() throws IOException {
+		assertEquals("Wrong status", 200, status("GET", "/books/10607"));
+		assertEquals("Wrong book", "{\"id\":\"10607\",\"title\":\"The Real Mother Goose\",\"author\":null,\"language\":\"en\"}", 
+				get("/books/10607"));
+		assertEquals("Wrong status", 404, status("GET", "/books/99999"));
+		assertEquals("Wrong status", 404, status("GET", "/books/..%2F10"));
+		assertEquals("Wrong status", 405, status("POST", "/books/10607"));
+	}
+	
+	/**
+	 * Los libros de una consulta múltiple se devuelven en el orden pedido, con null para los que no existen
+	 */
+	@Test
+	public void getBooksTest() throws IOException {
+		String books = get("/books?ids=10,99999,10607");
+		assertTrue("Wrong order", books.indexOf("\"10\"") < books.indexOf("\"10607\""));
+		assertTrue("Wrong missing book", books.contains("},null,{"));
+		assertEquals("Wrong status", 400, status("GET", "/books"));
+	}
+	
+	/**
+	 * Se buscan libros por palabras, títulos y autores por prefijo, y títulos parecidos
+	 */
+	@Test
+	public void searchTest() throws IOException {
+		assertTrue("Wrong search", get("/search?q=MOTHER+goose").contains("\"id\":\"10607\""));
+		assertEquals("Wrong search", "[]", get("/search?q=mother+bible"));
+		assertTrue("Wrong search", get("/search?q=mother+bible&op=or").contains("\"id\":\"10\""));
+		assertTrue("Wrong completion", get("/complete?q=the+real").contains("\"text\":\"The Real Mother Goose\""));
+		assertTrue("Wrong similar titles", get("/similar?title=The+real+mother+goose.&min=1").contains("\"id\":\"10607\""));
+		assertEquals("Wrong status", 400, status("GET", "/search"));
+		assertEquals("Wrong status", 400, status("GET", "/search?q=goose&limit=0"));
+		assertEquals("Wrong status", 400, status("GET", "/search?q=goose&op=xor"));
+	}
+	
+	/**
+	 * Al recargar el catálogo se sustituye por una nueva versión sin modificar la anterior
+	 */
+	@Test
+	public void reloadTest() throws IOException {
+		server.stop(0);
+		File folder = copyRdfFiles("target/servertest");
+		File manifest = new File("target/servertest.txt");
+		Files.deleteIfExists(manifest.toPath());
+		JGutenbergCatalog jg = new JGutenbergCatalog(folder.getPath());
+		jg.setManifest(manifest.getPath());
+		jg.readRdfFiles();
+		server = new CatalogServer(jg, 0);
+		server.start();
+		assertEquals("Wrong status", "{\"version\":1,\"books\":6,\"reloading\":false}", get("/status"));
+		
+		deleteFolder(new File(folder, "43909"));
+		assertTrue(server.reload());
+		
+		assertEquals("Wrong status", "{\"version\":2,\"books\":5,\"reloading\":false}", get("/status"));
+		assertNotSame(jg, server.getCatalog());
+		assertEquals("Wrong catalog size", 6, jg.getRdfCatalog().size());
+		assertFalse("Wrong catalog", server.getCatalog().getRdfCatalog().containsKey("43909"));
+		assertEquals("Wrong status", 405, status("GET", "/reload"));
+		assertEquals("Wrong status", 202, status("POST", "/reload"));
+	}
+	
+	private int status(String method, String path) throws IOException {
+		HttpURLConnection connection = open(method, path);
+		int status = connection.getResponseCode();
+		connection.disconnect();
+		return status;
+	}
+	
+	private String get(String path) throws IOException {
+		HttpURLConnection connection = open("GET", path);
+		assertEquals("Wrong status", 200, connection.getResponseCode());
+		assertEquals("Wrong content type", "application/json; charset=utf-8", connection.getContentType());
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		try (InputStream input = connection.getInputStream()) {
+			input.transferTo(content);
+		}
+		connection.disconnect();
+		return new String(content.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	private HttpURLConnection open(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		return connection;
+	}
+	
+	private File copyRdfFiles(String path) throws IOException {
+		File target = new File(path);
+		deleteFolder(target);
+		Path source = Paths.get("target/test-classes/rdftest");
+		try (Stream<Path> files = Files.walk(source)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.copy(file, target.toPath().resolve(source.relativize(file).toString()));
+			}
+		}
+		return target;
+	}
+	
+	private void deleteFolder(File folder) throws IOException {
+		if (folder.exists()) {
+			try (Stream<Path> files = Files.walk(folder.toPath())) {
+				for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+}